@@ -0,0 +1,451 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Generates the mappers of classes annotated with
+ * <code>com.sybit.airtableandroid.mapper.AirtableEntity</code>.
+ *
+ * <p>For a class <code>Event</code> the class <code>Event_AirtableMapper</code> is generated in
+ * the same package. It reads and writes the properties by their getters and setters, so no
+ * reflection is needed at runtime.</p>
+ */
+@SupportedAnnotationTypes(AirtableEntityProcessor.AIRTABLE_ENTITY)
+public class AirtableEntityProcessor extends AbstractProcessor {
+
+  static final String AIRTABLE_ENTITY = "com.sybit.airtableandroid.mapper.AirtableEntity";
+
+  private static final String ENTITY_MAPPER = "com.sybit.airtableandroid.mapper.EntityMapper";
+  private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+  private static final String SUFFIX = "_AirtableMapper";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+    TypeElement annotation = processingEnv.getElementUtils().getTypeElement(AIRTABLE_ENTITY);
+    if (annotation == null) {
+      return false;
+    }
+
+    for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+      if (element.getKind() != ElementKind.CLASS
+          || element.getModifiers().contains(Modifier.ABSTRACT)) {
+        error(element, "@AirtableEntity is only supported on concrete classes");
+        continue;
+      }
+
+      try {
+        generate((TypeElement) element);
+      } catch (IOException ex) {
+        error(element, "Could not generate mapper: " + ex.getMessage());
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Generate the mapper of given class.
+   */
+  private void generate(TypeElement type) throws IOException {
+
+    if (!hasDefaultConstructor(type)) {
+      error(type, "@AirtableEntity needs a constructor without parameters");
+      return;
+    }
+
+    List<Property> properties = properties(type);
+    for (Property property : properties) {
+      if (property.serialized && property.read == null) {
+        error(property.field, "Field " + property.name + " is serialized but not readable, "
+            + "add a public getter");
+        return;
+      }
+    }
+
+    PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+    String packageName = packageElement.getQualifiedName().toString();
+    String typeName = type.getQualifiedName().toString();
+    String mapperName = mapperSimpleName(type);
+
+    StringBuilder source = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    source.append("import java.util.LinkedHashMap;\n")
+        .append("import java.util.Map;\n\n")
+        .append("/**\n")
+        .append(" * Mapper of {@link ").append(typeName).append("}.\n")
+        .append(" * Generated by AirtableEntityProcessor, do not modify.\n")
+        .append(" */\n")
+        .append("public final class ").append(mapperName)
+        .append(" extends ").append(ENTITY_MAPPER).append("<").append(typeName).append("> {\n\n");
+
+    // constructor
+    source.append("  public ").append(mapperName).append("() {\n\n")
+        .append("    super(").append(typeName).append(".class);\n");
+    for (Property property : properties) {
+      if (property.serializedName != null) {
+        source.append("    addSerializedName(").append(literal(property.serializedName))
+            .append(", ").append(literal(property.name)).append(");\n");
+      }
+    }
+    source.append("  }\n\n");
+
+    // newInstance
+    source.append("  @Override\n")
+        .append("  public ").append(typeName).append(" newInstance() {\n\n")
+        .append("    return new ").append(typeName).append("();\n")
+        .append("  }\n\n");
+
+    // get
+    source.append("  @Override\n")
+        .append("  public Object get(").append(typeName).append(" item, String property) {\n\n")
+        .append("    switch (property) {\n");
+    for (Property property : properties) {
+      if (property.read != null) {
+        source.append("      case ").append(literal(property.name)).append(":\n")
+            .append("        return ").append(property.read).append(";\n");
+      }
+    }
+    source.append("      default:\n")
+        .append("        return null;\n")
+        .append("    }\n")
+        .append("  }\n\n");
+
+    // getFields
+    source.append("  @Override\n")
+        .append("  public Map<String, Object> getFields(").append(typeName).append(" item) {\n\n")
+        .append("    Map<String, Object> fields = new LinkedHashMap<>();\n");
+    for (Property property : properties) {
+      if (property.serialized) {
+        source.append("    fields.put(").append(literal(property.column())).append(", ")
+            .append(property.read).append(");\n");
+      }
+    }
+    source.append("\n")
+        .append("    return fields;\n")
+        .append("  }\n\n");
+
+    // hasSetter
+    source.append("  @Override\n")
+        .append("  protected boolean hasSetter(String property) {\n\n");
+    StringBuilder cases = new StringBuilder();
+    for (Property property : properties) {
+      if (property.write != null) {
+        cases.append("      case ").append(literal(property.name)).append(":\n");
+      }
+    }
+    if (cases.length() == 0) {
+      source.append("    return false;\n");
+    } else {
+      source.append("    switch (property) {\n")
+          .append(cases)
+          .append("        return true;\n")
+          .append("      default:\n")
+          .append("        return false;\n")
+          .append("    }\n");
+    }
+    source.append("  }\n\n");
+
+    // setProperty
+    source.append("  @Override\n")
+        .append("  protected void setProperty(").append(typeName)
+        .append(" item, String property, Object value) {\n\n")
+        .append("    switch (property) {\n");
+    for (Property property : properties) {
+      if (property.write != null) {
+        String write = String.format(property.write, conversion(property.field));
+        source.append("      case ").append(literal(property.name)).append(":\n");
+        if (property.field.asType().getKind().isPrimitive()) {
+          // null can't be unboxed, the property keeps its value
+          source.append("        if (value != null) {\n")
+              .append("          ").append(write).append(";\n")
+              .append("        }\n");
+        } else {
+          source.append("        ").append(write).append(";\n");
+        }
+        source.append("        break;\n");
+      }
+    }
+    source.append("      default:\n")
+        .append("        break;\n")
+        .append("    }\n")
+        .append("  }\n")
+        .append("}\n");
+
+    String qualifiedName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+    try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type)
+        .openWriter()) {
+      writer.write(source.toString());
+    }
+  }
+
+  /**
+   * Collect the fields of the class and its super classes, in the order Gson serializes them.
+   * Fields of super classes shadowed by a field of the same name are skipped.
+   */
+  private List<Property> properties(TypeElement type) {
+
+    List<ExecutableElement> methods = ElementFilter
+        .methodsIn(processingEnv.getElementUtils().getAllMembers(type));
+    PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+
+    List<Property> properties = new ArrayList<>();
+    Set<String> names = new HashSet<>();
+    for (TypeElement current = type; current != null; current = superclass(current)) {
+      for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.STATIC)
+            || !names.add(field.getSimpleName().toString())) {
+          continue;
+        }
+
+        Property property = new Property();
+        property.field = field;
+        property.name = field.getSimpleName().toString();
+        property.serializedName = serializedName(field);
+        property.serialized = !modifiers.contains(Modifier.TRANSIENT)
+            && !property.name.equals("id") && !property.name.equals("createdTime");
+
+        boolean visible = modifiers.contains(Modifier.PUBLIC)
+            || (!modifiers.contains(Modifier.PRIVATE)
+            && processingEnv.getElementUtils().getPackageOf(field).equals(packageElement));
+
+        ExecutableElement getter = getter(methods, field);
+        ExecutableElement setter = setter(methods, field);
+
+        if (getter != null) {
+          property.read = "item." + getter.getSimpleName() + "()";
+        } else if (visible) {
+          property.read = "item." + property.name;
+        }
+
+        if (setter != null) {
+          property.write = "item." + setter.getSimpleName() + "(%s)";
+        } else if (visible && !modifiers.contains(Modifier.FINAL)) {
+          property.write = "item." + property.name + " = %s";
+        }
+
+        properties.add(property);
+      }
+    }
+
+    return properties;
+  }
+
+  /**
+   * Get the conversion expression of the parsed value to the type of the field, cast only if the
+   * type is parameterized.
+   */
+  private String conversion(VariableElement field) {
+
+    TypeMirror type = field.asType();
+    if (type.getKind().isPrimitive()) {
+      TypeElement boxed = processingEnv.getTypeUtils()
+          .boxedClass(processingEnv.getTypeUtils().getPrimitiveType(type.getKind()));
+
+      return "convert(value, " + boxed.getQualifiedName() + ".class)";
+    }
+
+    TypeMirror rawType = processingEnv.getTypeUtils().erasure(type);
+    TypeMirror collectionType = processingEnv.getTypeUtils().erasure(
+        processingEnv.getElementUtils().getTypeElement("java.util.Collection").asType());
+
+    if (processingEnv.getTypeUtils().isAssignable(rawType, collectionType)) {
+      String componentType = "java.lang.Object";
+      if (type instanceof DeclaredType && !((DeclaredType) type).getTypeArguments().isEmpty()) {
+        TypeMirror argument = ((DeclaredType) type).getTypeArguments().get(0);
+        if (argument.getKind() == TypeKind.DECLARED) {
+          componentType = processingEnv.getTypeUtils().erasure(argument).toString();
+        }
+      }
+
+      return "convertToCollection(value, " + rawType + ".class, " + componentType + ".class)";
+    }
+
+    if (processingEnv.getTypeUtils().isSameType(type, rawType)) {
+      return "convert(value, " + rawType + ".class)";
+    }
+
+    return "(" + type + ") convert(value, " + rawType + ".class)";
+  }
+
+  private ExecutableElement getter(List<ExecutableElement> methods, VariableElement field) {
+
+    String capitalized = capitalize(field.getSimpleName().toString());
+    boolean isBoolean = field.asType().getKind() == TypeKind.BOOLEAN;
+
+    for (ExecutableElement method : methods) {
+      String name = method.getSimpleName().toString();
+      if (isAccessor(method, 0) && (name.equals("get" + capitalized)
+          || (isBoolean && name.equals("is" + capitalized)))) {
+        return method;
+      }
+    }
+
+    return null;
+  }
+
+  private ExecutableElement setter(List<ExecutableElement> methods, VariableElement field) {
+
+    String name = "set" + capitalize(field.getSimpleName().toString());
+
+    for (ExecutableElement method : methods) {
+      if (isAccessor(method, 1) && method.getSimpleName().contentEquals(name)
+          && processingEnv.getTypeUtils()
+          .isSameType(method.getParameters().get(0).asType(), field.asType())) {
+        return method;
+      }
+    }
+
+    return null;
+  }
+
+  private static boolean isAccessor(ExecutableElement method, int parameters) {
+
+    return method.getModifiers().contains(Modifier.PUBLIC)
+        && !method.getModifiers().contains(Modifier.STATIC)
+        && method.getParameters().size() == parameters;
+  }
+
+  private boolean hasDefaultConstructor(TypeElement type) {
+
+    for (ExecutableElement constructor : ElementFilter
+        .constructorsIn(type.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty()
+          && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private TypeElement superclass(TypeElement type) {
+
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+
+    TypeElement element = (TypeElement) processingEnv.getTypeUtils().asElement(superclass);
+    if (element.getQualifiedName().contentEquals("java.lang.Object")) {
+      return null;
+    }
+
+    return element;
+  }
+
+  /**
+   * Get the value of the <code>@SerializedName</code> annotation of the field.
+   */
+  private static String serializedName(VariableElement field) {
+
+    for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+      Element element = annotation.getAnnotationType().asElement();
+      if (((TypeElement) element).getQualifiedName().contentEquals(SERIALIZED_NAME)) {
+        for (ExecutableElement key : annotation.getElementValues().keySet()) {
+          if (key.getSimpleName().contentEquals("value")) {
+            AnnotationValue value = annotation.getElementValues().get(key);
+
+            return value.getValue().toString();
+          }
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Simple name of the mapper, nested class names are joined by '_'.
+   */
+  private static String mapperSimpleName(TypeElement type) {
+
+    StringBuilder name = new StringBuilder(type.getSimpleName());
+    for (Element enclosing = type.getEnclosingElement();
+        enclosing.getKind().isClass() || enclosing.getKind().isInterface();
+        enclosing = enclosing.getEnclosingElement()) {
+      name.insert(0, enclosing.getSimpleName() + "_");
+    }
+
+    return name.append(SUFFIX).toString();
+  }
+
+  private static String capitalize(String name) {
+
+    return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+  }
+
+  private static String literal(String value) {
+
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+
+  private void error(Element element, String message) {
+
+    processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+  }
+
+  /**
+   * Field of the annotated class together with the code to access it.
+   */
+  private static final class Property {
+
+    private VariableElement field;
+    private String name;
+    private String serializedName;
+    private boolean serialized;
+
+    /**
+     * Expression reading the value from <code>item</code>.
+     */
+    private String read;
+
+    /**
+     * Statement writing <code>%s</code> to <code>item</code>, as format string.
+     */
+    private String write;
+
+    String column() {
+
+      return (serializedName != null) ? serializedName : name;
+    }
+  }
+}
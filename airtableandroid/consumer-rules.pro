@@ -0,0 +1,4 @@
+# Mappers generated for classes annotated with @AirtableEntity are loaded by name.
+-keep class * extends com.sybit.airtableandroid.mapper.EntityMapper {
+    public <init>();
+}
@@ -8,6 +8,8 @@ package com.sybit.airtableandroid;
 
 import android.content.Context;
 import com.androidnetworking.AndroidNetworking;
+import com.androidnetworking.interfaces.Parser;
+import com.androidnetworking.utils.ParseUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sybit.airtableandroid.converter.ListConverter;
 import com.sybit.airtableandroid.converter.MapConverter;
@@ -49,6 +51,7 @@ public class Airtable {
 
   private Configuration config;
   private Context context;
+  private final ServerClock serverClock = new ServerClock();
 
   public Airtable(Context context) {
 
@@ -163,7 +166,8 @@ public class Airtable {
     ConvertUtils.register(thConverter, Map.class);
 
     Builder builder = new OkHttpClient().newBuilder()
-        .addNetworkInterceptor(new HeadersInterceptor("Bearer " + apiKey()));
+        .addNetworkInterceptor(new HeadersInterceptor("Bearer " + apiKey()))
+        .addNetworkInterceptor(serverClock);
 
     if (config.getTimeout() != null) {
       Timber.i("Set connection timeout to: " + config.getTimeout() + "ms.");
@@ -176,6 +180,10 @@ public class Airtable {
     OkHttpClient okHttpClient = builder.build();
 
     AndroidNetworking.initialize(context, okHttpClient);
+    Parser.Factory parserFactory = ParseUtil.getParserFactory();
+    if (!(parserFactory instanceof AirtableParserFactory)) {
+      AndroidNetworking.setParserFactory(new AirtableParserFactory(parserFactory));
+    }
 
     return this;
   }
@@ -215,6 +223,14 @@ public class Airtable {
     return new Base(base, this);
   }
 
+  /**
+   * Get the clock of Airtable, estimated by the responses to the requests of this object.
+   */
+  public ServerClock getServerClock() {
+
+    return serverClock;
+  }
+
   public Configuration getConfig() {
 
     return config;
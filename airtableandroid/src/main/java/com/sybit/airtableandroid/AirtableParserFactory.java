@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import com.androidnetworking.interfaces.Parser;
+import com.sybit.airtableandroid.mapper.EntityMappers;
+import com.sybit.airtableandroid.mapper.RecordReader;
+import com.sybit.airtableandroid.vo.RecordPage;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+
+/**
+ * Parser factory of the networking library reading pages of records by a {@link RecordReader}.
+ *
+ * <p>Responses parsed to <code>RecordPage&lt;T&gt;</code> are read token by token and mapped
+ * directly to items of <code>T</code>. All other types are parsed by the delegate.</p>
+ *
+ * <p>The factory is installed by {@link Airtable#configure(Configuration)}, wrapping the parser
+ * factory set before, by default the Gson factory of the networking library. Applications
+ * setting their own parser factory afterwards have to wrap it in this one.</p>
+ */
+public class AirtableParserFactory extends Parser.Factory {
+
+  private final Parser.Factory delegate;
+
+  private final Map<Class<?>, RecordReader<?>> readers = new ConcurrentHashMap<>();
+
+  /**
+   * @param delegate factory of all types except pages of records.
+   */
+  public AirtableParserFactory(Parser.Factory delegate) {
+
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Parser<ResponseBody, ?> responseBodyParser(Type type) {
+
+    Class<?> itemType = pageItemType(type);
+    if (itemType == null) {
+      return delegate.responseBodyParser(type);
+    }
+
+    final RecordReader<?> reader = reader(itemType);
+
+    return body -> {
+      try {
+        return reader.readPage(body.byteStream());
+      } finally {
+        body.close();
+      }
+    };
+  }
+
+  @Override
+  public Parser<?, RequestBody> requestBodyParser(Type type) {
+
+    return delegate.requestBodyParser(type);
+  }
+
+  @Override
+  public Object getObject(String string, Type type) {
+
+    return delegate.getObject(string, type);
+  }
+
+  @Override
+  public String getString(Object object) {
+
+    return delegate.getString(object);
+  }
+
+  @Override
+  public HashMap<String, String> getStringMap(Object object) {
+
+    return delegate.getStringMap(object);
+  }
+
+  /**
+   * Get the reader of given class, created once per class with the mapper shared by the tables.
+   */
+  private RecordReader<?> reader(Class<?> itemType) {
+
+    RecordReader<?> reader = readers.get(itemType);
+    if (reader == null) {
+      reader = new RecordReader<>(EntityMappers.get(itemType));
+      readers.put(itemType, reader);
+    }
+
+    return reader;
+  }
+
+  /**
+   * @return class of items if given type is a <code>RecordPage</code>, else null.
+   */
+  private static Class<?> pageItemType(Type type) {
+
+    if (type instanceof ParameterizedType
+        && ((ParameterizedType) type).getRawType() == RecordPage.class) {
+      Type argument = ((ParameterizedType) type).getActualTypeArguments()[0];
+      if (argument instanceof Class) {
+        return (Class<?>) argument;
+      }
+    }
+
+    return null;
+  }
+}
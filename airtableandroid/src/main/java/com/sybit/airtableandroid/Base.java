@@ -6,6 +6,8 @@
  */
 package com.sybit.airtableandroid;
 
+import com.sybit.airtableandroid.mapper.EntityMapper;
+import com.sybit.airtableandroid.mapper.EntityMappers;
 import com.sybit.airtableandroid.vo.Records;
 import java.util.HashMap;
 import java.util.Map;
@@ -24,6 +26,19 @@ public class Base {
 
   private final Airtable parent;
 
+  private RateLimiter limiter;
+
+  private double limiterRate;
+
+  private int limiterBurst;
+
+  private Retrier retrier;
+
+  private RetryPolicy retrierPolicy;
+
+  private RateLimiter retrierLimiter;
+
+  private RetryPolicy defaultPolicy;
 
   /**
    * Create Airtable Base with given base ID.
@@ -75,6 +90,70 @@ public class Base {
     return tableMap.get(name);
   }
 
+  /**
+   * Get the mapper of records to items of given class.
+   *
+   * <p>The mapper is created once and shared by all tables and the parser factory, see
+   * {@link EntityMappers#get(Class)}. Classes annotated with <code>@AirtableEntity</code> use the
+   * generated mapper.</p>
+   *
+   * @param clazz Class representing row of resultsets
+   * @return mapper of given class.
+   */
+  public <T> EntityMapper<T> mapper(Class<T> clazz) {
+
+    return EntityMappers.get(clazz);
+  }
+
+  /**
+   * Get the rate limiter of requests to this base, shared by all of its tables.
+   *
+   * <p>The limiter is created again when the rate limit or burst of the configuration changed,
+   * pending permits and pauses of the previous limiter are not carried over.</p>
+   *
+   * @return rate limiter configured by the configuration of the parent.
+   */
+  public synchronized RateLimiter limiter() {
+
+    Configuration config = parent.getConfig();
+    double rate = (config != null) ? config.getRateLimit() : Configuration.DEFAULT_RATE_LIMIT;
+    int burst = (config != null) ? config.getRateBurst() : Configuration.DEFAULT_RATE_BURST;
+
+    if (limiter == null || rate != limiterRate || burst != limiterBurst) {
+      limiter = new RateLimiter(rate, burst);
+      limiterRate = rate;
+      limiterBurst = burst;
+    }
+
+    return limiter;
+  }
+
+  /**
+   * Get the retrier of failed requests to this base, shared by all of its tables.
+   *
+   * <p>The retrier is created again when the retry policy of the configuration is replaced or
+   * the limiter is created again. Changes to the current policy apply at once.</p>
+   *
+   * @return retrier configured by the retry policy of the parent.
+   */
+  public synchronized Retrier retrier() {
+
+    Configuration config = parent.getConfig();
+    RateLimiter current = limiter();
+    if (config == null && defaultPolicy == null) {
+      defaultPolicy = new RetryPolicy();
+    }
+    RetryPolicy policy = (config != null) ? config.getRetryPolicy() : defaultPolicy;
+
+    if (retrier == null || policy != retrierPolicy || current != retrierLimiter) {
+      retrier = new Retrier(policy, current);
+      retrierPolicy = policy;
+      retrierLimiter = current;
+    }
+
+    return retrier;
+  }
+
   /**
    * Get base id of base.
    *
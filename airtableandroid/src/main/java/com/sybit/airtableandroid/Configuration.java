@@ -14,9 +14,36 @@ public class Configuration {
 
   public static final String ENDPOINT_URL = "https://api.airtable.com/v0";
 
+  /**
+   * Default number of batch requests running at the same time.
+   */
+  public static final int DEFAULT_BATCH_CONCURRENCY = 2;
+
+  /**
+   * Default number of requests per second sent to a base, the limit of Airtable.
+   */
+  public static final double DEFAULT_RATE_LIMIT = 5;
+
+  /**
+   * Default number of requests sent at once to a base.
+   */
+  public static final int DEFAULT_RATE_BURST = 1;
+
+  /**
+   * Default maximum number of ids looked up by a single request of batched finds.
+   */
+  public static final int DEFAULT_FIND_BATCH_SIZE = 50;
+
   private String endpointUrl;
   private String apiKey;
   private Long timeout;
+  private int scanPrefetch;
+  private int batchConcurrency = DEFAULT_BATCH_CONCURRENCY;
+  private double rateLimit = DEFAULT_RATE_LIMIT;
+  private int rateBurst = DEFAULT_RATE_BURST;
+  private RetryPolicy retryPolicy = new RetryPolicy();
+  private long findBatchWindow;
+  private int findBatchSize = DEFAULT_FIND_BATCH_SIZE;
 
   /**
    * Configure API using given API Key and default endpoint.
@@ -71,4 +98,120 @@ public class Configuration {
 
     this.timeout = timeout;
   }
+
+  /**
+   * Get number of pages loaded ahead while the records of table scans are emitted.
+   */
+  public int getScanPrefetch() {
+
+    return scanPrefetch;
+  }
+
+  /**
+   * Set number of pages loaded ahead while the records of table scans are emitted.
+   * With 0 (default) pages are loaded one after another on the subscribing thread.
+   */
+  public void setScanPrefetch(int scanPrefetch) {
+
+    this.scanPrefetch = scanPrefetch;
+  }
+
+  /**
+   * Get number of batch requests running at the same time.
+   */
+  public int getBatchConcurrency() {
+
+    return batchConcurrency;
+  }
+
+  /**
+   * Set number of batch requests running at the same time, see
+   * {@link Table#createAll(io.reactivex.Flowable, int)}.
+   */
+  public void setBatchConcurrency(int batchConcurrency) {
+
+    this.batchConcurrency = batchConcurrency;
+  }
+
+  /**
+   * Get number of requests per second sent to a base.
+   */
+  public double getRateLimit() {
+
+    return rateLimit;
+  }
+
+  /**
+   * Set number of requests per second sent to a base, shared by all of its tables.
+   * With 0 or less requests are not limited.
+   */
+  public void setRateLimit(double rateLimit) {
+
+    this.rateLimit = rateLimit;
+  }
+
+  /**
+   * Get number of requests sent at once to a base.
+   */
+  public int getRateBurst() {
+
+    return rateBurst;
+  }
+
+  /**
+   * Set number of requests sent at once to a base after no requests were sent for a while.
+   */
+  public void setRateBurst(int rateBurst) {
+
+    this.rateBurst = rateBurst;
+  }
+
+  /**
+   * Get settings of retrying failed requests.
+   */
+  public RetryPolicy getRetryPolicy() {
+
+    return retryPolicy;
+  }
+
+  /**
+   * Set settings of retrying failed requests.
+   */
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+
+    this.retryPolicy = retryPolicy;
+  }
+
+  /**
+   * Get milliseconds finds are collected to be looked up by a single request.
+   */
+  public long getFindBatchWindow() {
+
+    return findBatchWindow;
+  }
+
+  /**
+   * Set milliseconds finds are collected to be looked up by a single request, see
+   * {@link Table#find(String)}. With 0 or less every find sends its own request.
+   */
+  public void setFindBatchWindow(long findBatchWindow) {
+
+    this.findBatchWindow = findBatchWindow;
+  }
+
+  /**
+   * Get maximum number of ids looked up by a single request of batched finds.
+   */
+  public int getFindBatchSize() {
+
+    return findBatchSize;
+  }
+
+  /**
+   * Set maximum number of ids looked up by a single request of batched finds, at most 100.
+   */
+  public void setFindBatchSize(int findBatchSize) {
+
+    this.findBatchSize = findBatchSize;
+  }
 }
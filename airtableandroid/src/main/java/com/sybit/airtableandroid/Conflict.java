@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Update of a record whose fields were changed in Airtable since they were read.
+ *
+ * <p>A field conflicts if its value in Airtable differs from both the base, the value last read,
+ * and the local value to be sent. Fields changed only in Airtable are not sent by the update
+ * and don't conflict.</p>
+ *
+ * @see ConflictResolver
+ */
+public final class Conflict {
+
+  private final String recordId;
+  private final JsonObject local;
+  private final JsonObject base;
+  private final JsonObject server;
+  private final List<String> fields;
+
+  Conflict(String recordId, JsonObject local, JsonObject base, JsonObject server,
+      List<String> fields) {
+
+    this.recordId = recordId;
+    this.local = local;
+    this.base = base;
+    this.server = server;
+    this.fields = Collections.unmodifiableList(fields);
+  }
+
+  /**
+   * Get the conflicting fields of an update.
+   *
+   * @param local fields to send.
+   * @param base values of the fields last read, fields without base never conflict.
+   * @param server current values of the fields in Airtable.
+   * @return names of the conflicting fields, empty if there is no conflict.
+   */
+  static List<String> conflicts(JsonObject local, JsonObject base, JsonObject server) {
+
+    List<String> result = new ArrayList<>();
+    for (String name : local.keySet()) {
+      if (base.has(name)) {
+        JsonElement current = value(server, name);
+        if (!current.equals(value(base, name)) && !current.equals(value(local, name))) {
+          result.add(name);
+        }
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * @return id of the record.
+   */
+  public String getRecordId() {
+
+    return recordId;
+  }
+
+  /**
+   * @return fields to be sent by the update.
+   */
+  public JsonObject getLocal() {
+
+    return local;
+  }
+
+  /**
+   * @return values of the updated fields last read from Airtable.
+   */
+  public JsonObject getBase() {
+
+    return base;
+  }
+
+  /**
+   * @return current values of the updated fields in Airtable.
+   */
+  public JsonObject getServer() {
+
+    return server;
+  }
+
+  /**
+   * @return names of the conflicting fields.
+   */
+  public List<String> getFields() {
+
+    return fields;
+  }
+
+  /**
+   * @return fields to send without the conflicting fields, which keep the value of Airtable.
+   */
+  public JsonObject withoutConflicts() {
+
+    JsonObject result = local.deepCopy();
+    for (String name : fields) {
+      result.remove(name);
+    }
+
+    return result;
+  }
+
+  /**
+   * Merge the local and the current values field by field.
+   *
+   * <p>Fields without conflict are sent as they are. Conflicting lists, like linked records or
+   * multiple selects, get the elements added locally and lose the elements removed locally,
+   * keeping the changes made in Airtable. Other conflicting fields keep the value of
+   * Airtable.</p>
+   *
+   * @return fields to send.
+   */
+  public JsonObject merge() {
+
+    JsonObject merged = local.deepCopy();
+    for (String name : fields) {
+      JsonElement localValue = value(local, name);
+      JsonElement baseValue = value(base, name);
+      JsonElement serverValue = value(server, name);
+      if (localValue.isJsonArray() && serverValue.isJsonArray()
+          && (baseValue.isJsonArray() || baseValue.isJsonNull())) {
+        JsonArray baseArray = baseValue.isJsonArray()
+            ? baseValue.getAsJsonArray() : new JsonArray();
+        merged.add(name, mergeArrays(localValue.getAsJsonArray(), baseArray,
+            serverValue.getAsJsonArray()));
+      } else {
+        merged.remove(name);
+      }
+    }
+
+    return merged;
+  }
+
+  private static JsonArray mergeArrays(JsonArray local, JsonArray base, JsonArray server) {
+
+    JsonArray merged = new JsonArray();
+    for (JsonElement element : server) {
+      if (!base.contains(element) || local.contains(element)) {
+        merged.add(element);
+      }
+    }
+    for (JsonElement element : local) {
+      if (!base.contains(element) && !merged.contains(element)) {
+        merged.add(element);
+      }
+    }
+
+    return merged;
+  }
+
+  private static JsonElement value(JsonObject fields, String name) {
+
+    JsonElement value = fields.get(name);
+
+    return (value != null) ? value : JsonNull.INSTANCE;
+  }
+
+  @Override
+  public String toString() {
+
+    return "Conflict{recordId=" + recordId + ", fields=" + fields + "}";
+  }
+}
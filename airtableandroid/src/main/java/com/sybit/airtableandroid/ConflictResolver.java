@@ -0,0 +1,42 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Decides which fields of a conflicting update are sent.
+ *
+ * @see JournalReplayer#setConflictResolver(ConflictResolver)
+ */
+public interface ConflictResolver {
+
+  /**
+   * Send all local fields, overwriting the changes made in Airtable.
+   */
+  ConflictResolver CLIENT_WINS = Conflict::getLocal;
+
+  /**
+   * Send the fields without conflict only, keeping the changes made in Airtable.
+   *
+   * @see Conflict#withoutConflicts()
+   */
+  ConflictResolver SERVER_WINS = Conflict::withoutConflicts;
+
+  /**
+   * Send the fields merged by {@link Conflict#merge()}.
+   */
+  ConflictResolver FIELD_MERGE = Conflict::merge;
+
+  /**
+   * Resolve a conflict.
+   *
+   * @param conflict the conflicting update.
+   * @return fields to send, null or empty to drop the update.
+   */
+  JsonObject resolve(Conflict conflict);
+}
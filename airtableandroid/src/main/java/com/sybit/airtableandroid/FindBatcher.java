@@ -0,0 +1,205 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.MaybeSubject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects finds by id and looks them up by a single select.
+ *
+ * <p>Ids are collected until the window after the first id elapsed, the maximum number of ids
+ * is reached or the formula would exceed {@link #MAX_FORMULA_LENGTH}. The collected ids are then
+ * selected by the formula <code>OR(RECORD_ID()='a',RECORD_ID()='b',...)</code> and every record
+ * is emitted to the finds of its id. Finds of ids without record complete empty.</p>
+ *
+ * @param <T> class of items
+ */
+class FindBatcher<T> {
+
+  /**
+   * Maximum length of the formula, so the URL stays well below the limits of servers and
+   * proxies after encoding.
+   */
+  static final int MAX_FORMULA_LENGTH = 2000;
+
+  /**
+   * Length of <code>OR()</code>.
+   */
+  private static final int FORMULA_OVERHEAD = 4;
+
+  private final Function<String, Single<List<T>>> loader;
+  private final Function<T, String> idOf;
+  private final long window;
+  private final int maxSize;
+
+  private Map<String, List<MaybeSubject<T>>> pending = new LinkedHashMap<>();
+  private int formulaLength = FORMULA_OVERHEAD;
+  private Disposable timer;
+
+  /**
+   * @param loader selects the records of a formula, in a single page.
+   * @param idOf gets the id of an item.
+   * @param window milliseconds ids are collected.
+   * @param maxSize maximum number of ids per select, at most the maximum page size.
+   */
+  FindBatcher(Function<String, Single<List<T>>> loader, Function<T, String> idOf, long window,
+      int maxSize) {
+
+    this.loader = loader;
+    this.idOf = idOf;
+    this.window = window;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Find the record of an id, collected on subscription.
+   *
+   * @param id id of the record.
+   * @return the record, empty if no record has this id.
+   */
+  Maybe<T> find(String id) {
+
+    return Maybe.defer(() -> {
+      MaybeSubject<T> subject = MaybeSubject.create();
+      add(id, subject);
+
+      return subject;
+    });
+  }
+
+  private void add(String id, MaybeSubject<T> subject) {
+
+    List<Map<String, List<MaybeSubject<T>>>> batches = new ArrayList<>(2);
+
+    synchronized (this) {
+      List<MaybeSubject<T>> subjects = pending.get(id);
+      if (subjects == null) {
+        int length = clause(id).length() + 1;
+        if (!pending.isEmpty() && formulaLength + length > MAX_FORMULA_LENGTH) {
+          batches.add(take());
+        }
+        subjects = new ArrayList<>(1);
+        pending.put(id, subjects);
+        formulaLength += length;
+      }
+      subjects.add(subject);
+
+      if (pending.size() >= maxSize) {
+        batches.add(take());
+      } else if (timer == null) {
+        timer = Schedulers.io().scheduleDirect(this::flush, window, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    for (Map<String, List<MaybeSubject<T>>> batch : batches) {
+      send(batch);
+    }
+  }
+
+  private void flush() {
+
+    Map<String, List<MaybeSubject<T>>> batch;
+    synchronized (this) {
+      timer = null;
+      if (pending.isEmpty()) {
+        return;
+      }
+      batch = take();
+    }
+
+    send(batch);
+  }
+
+  /**
+   * Take the collected ids, must hold the lock.
+   */
+  private Map<String, List<MaybeSubject<T>>> take() {
+
+    Map<String, List<MaybeSubject<T>>> batch = pending;
+    pending = new LinkedHashMap<>();
+    formulaLength = FORMULA_OVERHEAD;
+    if (timer != null) {
+      timer.dispose();
+      timer = null;
+    }
+
+    return batch;
+  }
+
+  private void send(Map<String, List<MaybeSubject<T>>> batch) {
+
+    Single<List<T>> request;
+    try {
+      request = loader.apply(formula(batch.keySet()));
+    } catch (Exception ex) {
+      fail(batch, ex);
+      return;
+    }
+
+    //noinspection ResultOfMethodCallIgnored
+    request
+        .subscribeOn(Schedulers.io())
+        .subscribe(items -> {
+          Map<String, T> found = new HashMap<>();
+          for (T item : items) {
+            found.put(idOf.apply(item), item);
+          }
+
+          for (Map.Entry<String, List<MaybeSubject<T>>> entry : batch.entrySet()) {
+            T item = found.get(entry.getKey());
+            for (MaybeSubject<T> subject : entry.getValue()) {
+              if (item != null) {
+                subject.onSuccess(item);
+              } else {
+                subject.onComplete();
+              }
+            }
+          }
+        }, error -> fail(batch, error));
+  }
+
+  private static <T> void fail(Map<String, List<MaybeSubject<T>>> batch, Throwable error) {
+
+    for (List<MaybeSubject<T>> subjects : batch.values()) {
+      for (MaybeSubject<T> subject : subjects) {
+        subject.onError(error);
+      }
+    }
+  }
+
+  /**
+   * Get the formula selecting the records of given ids.
+   */
+  static String formula(Iterable<String> ids) {
+
+    StringBuilder formula = new StringBuilder("OR(");
+    for (String id : ids) {
+      if (formula.length() > 3) {
+        formula.append(',');
+      }
+      formula.append(clause(id));
+    }
+
+    return formula.append(')').toString();
+  }
+
+  private static String clause(String id) {
+
+    return "RECORD_ID()='" + id.replace("\\", "\\\\").replace("'", "\\'") + "'";
+  }
+}
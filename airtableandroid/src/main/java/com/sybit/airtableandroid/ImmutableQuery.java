@@ -0,0 +1,275 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import com.sybit.airtableandroid.cache.QueryCache;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Query validated and encoded once, to be reused for any number of requests.
+ *
+ * <p>The query parameters are encoded when the query is built, so requests of the query and
+ * every page of its scans only append the offset. Queries with the same parameters are equal,
+ * regardless of the order of their fields.</p>
+ *
+ * <pre>
+ * Query query = new ImmutableQuery.Builder()
+ *     .fields("Name", "Status")
+ *     .filterByFormula("{Status} = 'open'")
+ *     .sort(new Sort("Name"))
+ *     .build();
+ * </pre>
+ */
+public final class ImmutableQuery implements Query {
+
+  private final String[] fields;
+  private final Integer pageSize;
+  private final Integer maxRecords;
+  private final String view;
+  private final List<Sort> sort;
+  private final String formula;
+  private final String offset;
+
+  private final QueryParameters parameters;
+  private final String cacheKey;
+
+  private ImmutableQuery(Builder builder) {
+
+    this.fields = (builder.fields != null) ? builder.fields.clone() : null;
+    this.pageSize = builder.pageSize;
+    this.maxRecords = builder.maxRecords;
+    this.view = builder.view;
+    this.sort = (builder.sort != null)
+        ? Collections.unmodifiableList(new ArrayList<>(builder.sort)) : null;
+    this.formula = builder.formula;
+    this.offset = builder.offset;
+
+    this.parameters = QueryParameters.of(this, fields);
+    this.parameters.encode();
+    this.cacheKey = QueryCache.key(this) + ((offset != null) ? "o" + offset : "");
+  }
+
+  @Override
+  public String[] getFields() {
+
+    return (fields != null) ? fields.clone() : null;
+  }
+
+  @Override
+  public Integer getPageSize() {
+
+    return pageSize;
+  }
+
+  @Override
+  public Integer getMaxRecords() {
+
+    return maxRecords;
+  }
+
+  @Override
+  public String getView() {
+
+    return view;
+  }
+
+  @Override
+  public List<Sort> getSort() {
+
+    return sort;
+  }
+
+  @Override
+  public String filterByFormula() {
+
+    return formula;
+  }
+
+  /**
+   * @return offset of the first page to load, null to start at the first page.
+   */
+  public String getOffset() {
+
+    return offset;
+  }
+
+  /**
+   * @return canonical form of the query, used as key of the {@link QueryCache}.
+   */
+  public String getCacheKey() {
+
+    return cacheKey;
+  }
+
+  /**
+   * Get a copy of the parameters, without offset. The copy keeps the encoded parameters, so
+   * they are not encoded again.
+   */
+  QueryParameters parameters() {
+
+    return new QueryParameters(parameters);
+  }
+
+  /**
+   * @return a builder initialized with the values of this query.
+   */
+  public Builder toBuilder() {
+
+    Builder builder = new Builder()
+        .pageSize(pageSize)
+        .maxRecords(maxRecords)
+        .view(view)
+        .filterByFormula(formula)
+        .offset(offset);
+    builder.fields = fields;
+    builder.sort = sort;
+
+    return builder;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+
+    return this == o
+        || (o instanceof ImmutableQuery && cacheKey.equals(((ImmutableQuery) o).cacheKey));
+  }
+
+  @Override
+  public int hashCode() {
+
+    return cacheKey.hashCode();
+  }
+
+  @Override
+  public String toString() {
+
+    return "ImmutableQuery{" + parameters.encode()
+        + ((offset != null) ? ", offset=" + offset : "") + "}";
+  }
+
+  /**
+   * Builder of queries, validating the values when the query is built.
+   */
+  public static final class Builder {
+
+    private String[] fields;
+    private Integer pageSize;
+    private Integer maxRecords;
+    private String view;
+    private List<Sort> sort;
+    private String formula;
+    private String offset;
+
+    /**
+     * @param fields columns to load, null for all columns.
+     */
+    public Builder fields(String... fields) {
+
+      this.fields = fields;
+      return this;
+    }
+
+    /**
+     * @param pageSize number of records per page, 1 to 100, null for the default of Airtable.
+     */
+    public Builder pageSize(Integer pageSize) {
+
+      this.pageSize = pageSize;
+      return this;
+    }
+
+    /**
+     * @param maxRecords maximum number of records to load, null for all records.
+     */
+    public Builder maxRecords(Integer maxRecords) {
+
+      this.maxRecords = maxRecords;
+      return this;
+    }
+
+    /**
+     * @param view name of the view to load, null for all records of the table.
+     */
+    public Builder view(String view) {
+
+      this.view = view;
+      return this;
+    }
+
+    /**
+     * @param sort sortation of the records, null or empty for the order of the view.
+     */
+    public Builder sort(Sort... sort) {
+
+      this.sort = (sort != null) ? Arrays.asList(sort) : null;
+      return this;
+    }
+
+    /**
+     * @param sort sortation of the records, null or empty for the order of the view.
+     */
+    public Builder sort(List<Sort> sort) {
+
+      this.sort = sort;
+      return this;
+    }
+
+    /**
+     * @param formula formula filtering the records, null for all records.
+     */
+    public Builder filterByFormula(String formula) {
+
+      this.formula = formula;
+      return this;
+    }
+
+    /**
+     * @param offset offset of the first page to load, null for the first page.
+     */
+    public Builder offset(String offset) {
+
+      this.offset = offset;
+      return this;
+    }
+
+    /**
+     * Validate the values and encode the query.
+     *
+     * @return the query.
+     * @throws IllegalArgumentException if a value is invalid.
+     */
+    public ImmutableQuery build() {
+
+      if (fields != null) {
+        for (String field : fields) {
+          if (field == null) {
+            throw new IllegalArgumentException("Field must not be null");
+          }
+        }
+      }
+      if (pageSize != null && (pageSize < 1 || pageSize > Table.MAX_PAGE_SIZE)) {
+        throw new IllegalArgumentException(
+            "Page size must be between 1 and " + Table.MAX_PAGE_SIZE + ": " + pageSize);
+      }
+      if (maxRecords != null && maxRecords < 1) {
+        throw new IllegalArgumentException("Max records must be positive: " + maxRecords);
+      }
+      if (sort != null) {
+        for (Sort s : sort) {
+          if (s == null || s.getField() == null || s.getDirection() == null) {
+            throw new IllegalArgumentException("Sort must have a field and direction");
+          }
+        }
+      }
+
+      return new ImmutableQuery(this);
+    }
+  }
+}
@@ -0,0 +1,531 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import com.androidnetworking.error.ANError;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.sybit.airtableandroid.exception.AirtableException;
+import com.sybit.airtableandroid.journal.Journal;
+import com.sybit.airtableandroid.journal.JournalEntry;
+import com.sybit.airtableandroid.journal.JournalEntry.Op;
+import com.sybit.airtableandroid.vo.PostRecord;
+import com.sybit.airtableandroid.vo.UpdateRecord;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the writes of a table in a {@link Journal} and replays them once Airtable is
+ * reachable, so writes made offline are not lost.
+ *
+ * <p>Writes are durable when their completion signals, no request is sent. {@link #replay()}
+ * compacts the journal and sends the pending entries in order, consecutive entries of the same
+ * kind in batches of up to 10 records. A failed batch stops the replay, the remaining entries
+ * are sent by the next replay. Destroys of records that no longer exist count as applied, and
+ * updates of such records are dropped.</p>
+ *
+ * <p>A create may reach Airtable even though its response is lost, for example by a crash. If
+ * an idempotency field is set, the key of every create is written to this column, and before a
+ * create is sent again the record with its key is looked up instead. Without idempotency field
+ * such creates are sent again.</p>
+ *
+ * <p>Updates of records read while snapshots are cached, see
+ * {@link Table#setSnapshotCache(com.sybit.airtableandroid.cache.RecordCache)}, keep the values
+ * their fields had when read. If a {@link ConflictResolver} is set, the current values of these
+ * fields are loaded by one request per batch before it is sent, and updates of fields changed
+ * in Airtable meanwhile are passed to the resolver. Updates of records deleted meanwhile are
+ * dropped.</p>
+ *
+ * @param <T> class of items
+ */
+public class JournalReplayer<T> {
+
+  private static final String ROW_DOES_NOT_EXIST = "ROW_DOES_NOT_EXIST";
+
+  private final Table<T> table;
+  private final Journal journal;
+
+  private final SingleFlight singleFlight = new SingleFlight();
+
+  private volatile String idempotencyField;
+  private volatile ConflictResolver conflictResolver;
+
+  private final AtomicLong replayed = new AtomicLong();
+  private final AtomicLong recovered = new AtomicLong();
+  private final AtomicLong conflicts = new AtomicLong();
+
+  /**
+   * @param table table of the records.
+   * @param journal journal of the table, must not be shared with other tables.
+   */
+  public JournalReplayer(Table<T> table, Journal journal) {
+
+    this.table = table;
+    this.journal = journal;
+  }
+
+  /**
+   * Set the column receiving the idempotency key of created records, null for none.
+   */
+  public void setIdempotencyField(String column) {
+
+    this.idempotencyField = column;
+  }
+
+  /**
+   * Set the resolver of conflicting updates, null to send updates without checking for
+   * conflicts.
+   */
+  public void setConflictResolver(ConflictResolver resolver) {
+
+    this.conflictResolver = resolver;
+  }
+
+  /**
+   * Record the create of an item.
+   *
+   * @param item the item to be created.
+   * @return key of the create, emitted when it is durable. It may be used as id of the record
+   *     in later updates and destroys until the create is replayed, afterwards the id of the
+   *     record is resolved by {@link Journal#resolve(String)} until the next replay.
+   */
+  public Single<String> create(T item) {
+
+    JsonObject fields;
+    try {
+      fields = table.toJson(table.filterFields(item));
+    } catch (Exception ex) {
+      return Single.error(ex);
+    }
+
+    return journal.create(fields).map(JournalEntry::getKey);
+  }
+
+  /**
+   * Record the update of an item, only the changed fields if the table tracks snapshots.
+   *
+   * <p>The fields are compared with the snapshot overlaid with the pending updates of the
+   * record, so a field edited back to its snapshot value is recorded too.</p>
+   *
+   * @param item the item to be updated, with id or the key of its create.
+   * @return completes when the update is durable.
+   */
+  public Completable update(T item) {
+
+    JsonObject fields;
+    JsonObject base = null;
+    String id;
+    try {
+      id = table.getIdOfItem(item);
+      JsonObject snapshot = table.snapshotOf(id);
+      fields = table.toJson(table.changedFields(item, unapplied(id, snapshot)));
+      if (snapshot != null) {
+        base = new JsonObject();
+        for (String name : fields.keySet()) {
+          base.add(name, snapshot.has(name) ? snapshot.get(name) : JsonNull.INSTANCE);
+        }
+      }
+    } catch (Exception ex) {
+      return Completable.error(ex);
+    }
+
+    return journal.update(id, fields, base).ignoreElement();
+  }
+
+  /**
+   * Get the snapshot of a record overlaid with the fields of its pending updates, null if there
+   * is no snapshot.
+   */
+  private JsonObject unapplied(String id, JsonObject snapshot) {
+
+    if (snapshot == null) {
+      return null;
+    }
+
+    JsonObject overlaid = snapshot;
+    String recordId = journal.resolve(id);
+    for (JournalEntry entry : journal.pending()) {
+      if (entry.getOp() == Op.UPDATE && recordId.equals(journal.resolve(entry.getRecordId()))) {
+        if (overlaid == snapshot) {
+          overlaid = snapshot.deepCopy();
+        }
+        for (Map.Entry<String, JsonElement> field : entry.getFields().entrySet()) {
+          overlaid.add(field.getKey(), field.getValue());
+        }
+      }
+    }
+
+    return overlaid;
+  }
+
+  /**
+   * Record the destroy of a record.
+   *
+   * @param id id of the record, or the key of its create.
+   * @return completes when the destroy is durable.
+   */
+  public Completable destroy(String id) {
+
+    return journal.destroy(id).ignoreElement();
+  }
+
+  /**
+   * Send the pending entries of the journal. Concurrent calls share the same replay.
+   *
+   * @return completes when all entries pending at the start are applied, fails with the error
+   *     of the first failed batch.
+   */
+  public Completable replay() {
+
+    return singleFlight.share("replay", Completable.defer(() -> {
+      journal.compact();
+
+      return Flowable.fromIterable(batches(journal.pending()))
+          .concatMapCompletable(this::send);
+    }).toObservable()).ignoreElements();
+  }
+
+  /**
+   * @return number of entries applied.
+   */
+  public long getReplayed() {
+
+    return replayed.get();
+  }
+
+  /**
+   * @return number of sent creates found in Airtable by their idempotency key.
+   */
+  public long getRecovered() {
+
+    return recovered.get();
+  }
+
+  /**
+   * @return number of updates passed to the conflict resolver or dropped because their record
+   *     was deleted.
+   */
+  public long getConflicts() {
+
+    return conflicts.get();
+  }
+
+  @Override
+  public String toString() {
+
+    return "JournalReplayer{replayed=" + getReplayed()
+        + ", recovered=" + getRecovered()
+        + ", conflicts=" + getConflicts() + "}";
+  }
+
+  /**
+   * Split entries into batches of consecutive entries of the same kind, without two entries of
+   * the same record.
+   */
+  private List<List<JournalEntry>> batches(List<JournalEntry> entries) {
+
+    List<List<JournalEntry>> batches = new ArrayList<>();
+    List<JournalEntry> batch = new ArrayList<>();
+    Set<String> records = new HashSet<>();
+    for (JournalEntry entry : entries) {
+      String record = (entry.getOp() == Op.CREATE) ? entry.getKey() : entry.getRecordId();
+      if (!batch.isEmpty() && (batch.size() == Table.BATCH_SIZE
+          || batch.get(0).getOp() != entry.getOp() || records.contains(record))) {
+        batches.add(batch);
+        batch = new ArrayList<>();
+        records.clear();
+      }
+      batch.add(entry);
+      records.add(record);
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch);
+    }
+
+    return batches;
+  }
+
+  private Completable send(List<JournalEntry> batch) throws Exception {
+
+    switch (batch.get(0).getOp()) {
+      case CREATE:
+        return Flowable.fromIterable(batch)
+            .concatMapMaybe(this::unlessCreated)
+            .toList()
+            .flatMapCompletable(this::create);
+      case UPDATE:
+        return update(batch);
+      default:
+        return destroy(batch);
+    }
+  }
+
+  /**
+   * Emit a create unless it was sent before and its record is found by its idempotency key.
+   */
+  private Maybe<JournalEntry> unlessCreated(JournalEntry entry) {
+
+    String field = idempotencyField;
+    if (field == null || !journal.isSent(entry)) {
+      return Maybe.just(entry);
+    }
+
+    Query query = new ImmutableQuery.Builder()
+        .filterByFormula("{" + field + "}='" + entry.getKey() + "'")
+        .maxRecords(1)
+        .build();
+
+    return table.select(query)
+        .flatMapMaybe(found -> {
+          if (found.isEmpty()) {
+            return Maybe.just(entry);
+          }
+          journal.markDone(entry, table.getIdOfItem(found.get(0)));
+          recovered.incrementAndGet();
+          replayed.incrementAndGet();
+
+          return Maybe.empty();
+        });
+  }
+
+  private Completable create(List<JournalEntry> batch) throws Exception {
+
+    if (batch.isEmpty()) {
+      return Completable.complete();
+    }
+    journal.markSent(batch);
+
+    Map<T, JournalEntry> entries = new IdentityHashMap<>();
+    List<T> items = new ArrayList<>();
+    for (JournalEntry entry : batch) {
+      JsonObject record = new JsonObject();
+      record.add("fields", entry.getFields());
+      T item = table.fromRecord(record);
+      items.add(item);
+      entries.put(item, entry);
+    }
+
+    return table.postAll(items, item -> {
+      JournalEntry entry = entries.get(item);
+      PostRecord<Map<String, Object>> record = new PostRecord<>();
+      Map<String, Object> fields = fields(entry.getFields());
+      if (idempotencyField != null) {
+        fields.put(idempotencyField, entry.getKey());
+      }
+      record.setFields(fields);
+
+      return record;
+    })
+        .concatMapCompletable(result -> {
+          if (!result.isSuccess()) {
+            return Completable.error(result.getError());
+          }
+          journal.markDone(entries.get(result.getItem()), table.getIdOfItem(result.getResult()));
+          replayed.incrementAndGet();
+
+          return Completable.complete();
+        });
+  }
+
+  private Completable update(List<JournalEntry> batch) {
+
+    ConflictResolver resolver = conflictResolver;
+    Set<String> ids = new LinkedHashSet<>();
+    Set<String> fields = new LinkedHashSet<>();
+    if (resolver != null) {
+      for (JournalEntry entry : batch) {
+        if (entry.getBase() != null && entry.getBase().size() > 0) {
+          ids.add(journal.resolve(entry.getRecordId()));
+          fields.addAll(entry.getBase().keySet());
+        }
+      }
+    }
+    if (ids.isEmpty()) {
+      return Completable.defer(() -> patch(batch, Collections.emptyMap(), null));
+    }
+
+    Query query = new ImmutableQuery.Builder()
+        .filterByFormula(FindBatcher.formula(ids))
+        .fields(fields.toArray(new String[0]))
+        .pageSize(Table.MAX_PAGE_SIZE)
+        .build();
+
+    return table.selectAll(query)
+        .toMap(table::getIdOfItem, item -> table.toRecord(item).getAsJsonObject("fields"))
+        .flatMapCompletable(current -> patch(batch, current, resolver));
+  }
+
+  /**
+   * Send a batch of updates, resolving the conflicts with the current values of their records.
+   *
+   * @param current current fields of the records by id, of the checked records only.
+   */
+  private Completable patch(List<JournalEntry> batch, Map<String, JsonObject> current,
+      ConflictResolver resolver) throws Exception {
+
+    Map<JournalEntry, JsonObject> updates = new LinkedHashMap<>();
+    for (JournalEntry entry : batch) {
+      String id = journal.resolve(entry.getRecordId());
+      JsonObject base = entry.getBase();
+      if (resolver == null || base == null || base.size() == 0) {
+        updates.put(entry, entry.getFields());
+        continue;
+      }
+
+      JsonObject server = current.get(id);
+      if (server == null) {
+        conflicts.incrementAndGet();
+        journal.markDone(entry, null);
+        continue;
+      }
+      List<String> conflicting = Conflict.conflicts(entry.getFields(), base, server);
+      if (conflicting.isEmpty()) {
+        updates.put(entry, entry.getFields());
+        continue;
+      }
+
+      conflicts.incrementAndGet();
+      JsonObject resolved = resolver.resolve(
+          new Conflict(id, entry.getFields(), base, server, conflicting));
+      if (resolved == null || resolved.size() == 0) {
+        journal.markDone(entry, null);
+      } else {
+        updates.put(entry, resolved);
+      }
+    }
+
+    return patch(updates);
+  }
+
+  /**
+   * Send updates by a batch request.
+   *
+   * @param updates fields to send by entry.
+   */
+  private Completable patch(Map<JournalEntry, JsonObject> updates) throws Exception {
+
+    if (updates.isEmpty()) {
+      return Completable.complete();
+    }
+    journal.markSent(updates.keySet());
+
+    Map<T, JournalEntry> entries = new IdentityHashMap<>();
+    List<T> items = new ArrayList<>();
+    for (JournalEntry entry : updates.keySet()) {
+      T item = table.fromRecord(new JsonObject());
+      items.add(item);
+      entries.put(item, entry);
+    }
+
+    return table.patchAll(items, item -> {
+      JournalEntry entry = entries.get(item);
+      UpdateRecord<Map<String, Object>> record = new UpdateRecord<>();
+      record.setId(journal.resolve(entry.getRecordId()));
+      record.setFields(fields(updates.get(entry)));
+
+      return record;
+    })
+        .toList()
+        .flatMapCompletable(results -> {
+          if (results.size() > 1 && isNotFound(results.get(0).getError())) {
+            return Flowable.fromIterable(updates.entrySet())
+                .concatMapCompletable(update -> patch(
+                    Collections.singletonMap(update.getKey(), update.getValue())));
+          }
+          return done(results, entries);
+        });
+  }
+
+  private Completable destroy(List<JournalEntry> batch) throws Exception {
+
+    journal.markSent(batch);
+
+    Map<String, JournalEntry> entries = new LinkedHashMap<>();
+    for (JournalEntry entry : batch) {
+      entries.put(journal.resolve(entry.getRecordId()), entry);
+    }
+
+    return table.destroyAll(new ArrayList<>(entries.keySet()))
+        .toList()
+        .flatMapCompletable(results -> {
+          if (results.size() > 1 && isNotFound(results.get(0).getError())) {
+            return Flowable.fromIterable(batch)
+                .concatMapCompletable(entry -> destroy(Collections.singletonList(entry)));
+          }
+          return done(results, entries);
+        });
+  }
+
+  /**
+   * Mark the entries of a batch as done, up to the first failure.
+   *
+   * <p>A missing record fails the whole batch, so such batches are sent again record by record
+   * before. A destroy of a missing record is applied, it may have been applied before its
+   * completion was lost by a crash, and an update of a missing record is dropped.</p>
+   */
+  private <R> Completable done(List<RecordResult<R>> results, Map<R, JournalEntry> entries)
+      throws Exception {
+
+    for (RecordResult<R> result : results) {
+      JournalEntry entry = entries.get(result.getItem());
+      if (result.isSuccess() || (entry.getOp() == Op.DESTROY && isNotFound(result.getError()))) {
+        replayed.incrementAndGet();
+      } else if (isNotFound(result.getError())) {
+        conflicts.incrementAndGet();
+      } else {
+        return Completable.error(result.getError());
+      }
+      journal.markDone(entry, null);
+    }
+
+    return Completable.complete();
+  }
+
+  /**
+   * @return true if a request failed because a record doesn't exist in Airtable.
+   */
+  static boolean isNotFound(Throwable error) {
+
+    if (!(error instanceof AirtableException)) {
+      return false;
+    }
+    int status = ((AirtableException) error).getStatusCode();
+    if (status == 404) {
+      return true;
+    }
+    Throwable cause = error.getCause();
+
+    return status == 422 && cause instanceof ANError
+        && String.valueOf(((ANError) cause).getErrorBody()).contains(ROW_DOES_NOT_EXIST);
+  }
+
+  /**
+   * Get the fields to send, the values are written as they were recorded.
+   */
+  private static Map<String, Object> fields(JsonObject values) {
+
+    Map<String, Object> fields = new LinkedHashMap<>();
+    for (Map.Entry<String, JsonElement> field : values.entrySet()) {
+      fields.put(field.getKey(), field.getValue());
+    }
+
+    return fields;
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query parameters of a request, in order and with repeated names.
+ *
+ * <p>Airtable expects repeated parameters like <code>fields[]</code> and
+ * <code>records[]</code>, which a map of parameters can't hold. The parameters are encoded into
+ * the URL, so the networking library sends them as they are.</p>
+ */
+public class QueryParameters {
+
+  private final List<String> names = new ArrayList<>();
+  private final List<String> values = new ArrayList<>();
+
+  /**
+   * Encoded parameters, extended by every added parameter once encoded.
+   */
+  private String encoded;
+
+  public QueryParameters() {
+
+  }
+
+  /**
+   * Copy given parameters.
+   */
+  public QueryParameters(QueryParameters parameters) {
+
+    names.addAll(parameters.names);
+    values.addAll(parameters.values);
+    encoded = parameters.encoded;
+  }
+
+  /**
+   * Get the parameters of a query.
+   *
+   * @param query the query
+   * @param fields fields to load instead of the fields of the query
+   * @return the parameters
+   */
+  static QueryParameters of(Query query, String[] fields) {
+
+    QueryParameters params = new QueryParameters();
+    if (fields != null && fields.length > 0) {
+      for (String field : fields) {
+        params.add("fields[]", field);
+      }
+    }
+    if (query.getMaxRecords() != null) {
+      params.add("maxRecords", query.getMaxRecords().toString());
+    }
+    if (query.getView() != null) {
+      params.add("view", query.getView());
+    }
+    if (query.filterByFormula() != null) {
+      params.add("filterByFormula", query.filterByFormula());
+    }
+    if (query.getPageSize() != null) {
+      if (query.getPageSize() > Table.MAX_PAGE_SIZE) {
+        params.add("pageSize", String.valueOf(Table.MAX_PAGE_SIZE));
+      } else {
+        params.add("pageSize", query.getPageSize().toString());
+      }
+    }
+    if (query.getSort() != null) {
+      int i = 0;
+      for (Sort sort : query.getSort()) {
+        params.add("sort[" + i + "][field]", sort.getField());
+        params.add("sort[" + i + "][direction]", sort.getDirection().toString());
+        i++;
+      }
+    }
+
+    return params;
+  }
+
+  /**
+   * Add a parameter, keeping parameters of the same name.
+   *
+   * @param name name of the parameter
+   * @param value value of the parameter
+   * @return this
+   */
+  public QueryParameters add(String name, String value) {
+
+    names.add(name);
+    values.add(value);
+    if (encoded != null) {
+      String pair = encode(name) + '=' + encode(value);
+      encoded = encoded.isEmpty() ? pair : encoded + '&' + pair;
+    }
+
+    return this;
+  }
+
+  /**
+   * @return values of the parameters of given name, in order.
+   */
+  public List<String> getAll(String name) {
+
+    List<String> result = new ArrayList<>();
+    for (int i = 0; i < names.size(); i++) {
+      if (names.get(i).equals(name)) {
+        result.add(values.get(i));
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * @return number of parameters.
+   */
+  public int size() {
+
+    return names.size();
+  }
+
+  /**
+   * Encode the parameters, percent encoding names and values.
+   *
+   * <p>The parameters are encoded once, parameters added later are appended to the encoded
+   * query.</p>
+   *
+   * @return the query without leading <code>?</code>, empty if there are no parameters.
+   */
+  public String encode() {
+
+    if (encoded == null) {
+      StringBuilder query = new StringBuilder();
+      for (int i = 0; i < names.size(); i++) {
+        if (i > 0) {
+          query.append('&');
+        }
+        query.append(encode(names.get(i))).append('=').append(encode(values.get(i)));
+      }
+      encoded = query.toString();
+    }
+
+    return encoded;
+  }
+
+  /**
+   * Append the parameters to an URL without query.
+   *
+   * @param url the URL
+   * @return the URL with the encoded parameters.
+   */
+  public String appendTo(String url) {
+
+    return names.isEmpty() ? url : url + '?' + encode();
+  }
+
+  private static String encode(String value) {
+
+    try {
+      return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  @Override
+  public String toString() {
+
+    return encode();
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import io.reactivex.Completable;
+import io.reactivex.schedulers.Schedulers;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting the requests sent to a base.
+ *
+ * <p>Permits are added at a fixed rate, up to <code>burst</code> permits are stored while no
+ * requests are sent. A permit is reserved on subscription: the caller doesn't block, the
+ * <code>Completable</code> completes when the reserved permit is available. Callers
+ * delayed by the limiter continue on the io scheduler.</p>
+ *
+ * <p>Every {@link Base} owns a limiter shared by all of its tables, configured by
+ * {@link Configuration#setRateLimit(double)} and {@link Configuration#setRateBurst(int)}.</p>
+ */
+public class RateLimiter {
+
+  private final long intervalNanos;
+  private final int maxStored;
+
+  /**
+   * Permits stored while no requests were sent.
+   */
+  private double stored;
+
+  /**
+   * Time the next permit is available.
+   */
+  private long nextFreeNanos;
+
+  private final AtomicLong permits = new AtomicLong();
+  private final AtomicLong delayed = new AtomicLong();
+  private final AtomicLong waitNanos = new AtomicLong();
+  private final AtomicInteger queueDepth = new AtomicInteger();
+  private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+  /**
+   * @param rate permits per second, 0 or less to grant permits at once unless paused.
+   * @param burst permits available at once after no requests were sent.
+   */
+  public RateLimiter(double rate, int burst) {
+
+    this.intervalNanos = (rate > 0) ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+    this.maxStored = Math.max(0, burst - 1);
+    this.stored = maxStored;
+    this.nextFreeNanos = System.nanoTime();
+  }
+
+  /**
+   * Acquire a permit, reserved when the returned <code>Completable</code> is subscribed.
+   *
+   * @return completes when the permit is available.
+   */
+  public Completable acquire() {
+
+    return Completable.defer(() -> {
+      permits.incrementAndGet();
+
+      long wait = reserve(System.nanoTime());
+      if (wait <= 0) {
+        return Completable.complete();
+      }
+
+      delayed.incrementAndGet();
+      waitNanos.addAndGet(wait);
+
+      int depth = queueDepth.incrementAndGet();
+      int max = maxQueueDepth.get();
+      while (depth > max && !maxQueueDepth.compareAndSet(max, depth)) {
+        max = maxQueueDepth.get();
+      }
+
+      return Completable.timer(wait, TimeUnit.NANOSECONDS, Schedulers.io())
+          .doFinally(queueDepth::decrementAndGet);
+    });
+  }
+
+  /**
+   * Reserve the next permit.
+   *
+   * @return time to wait for the permit in nanoseconds.
+   */
+  synchronized long reserve(long now) {
+
+    if (intervalNanos == 0) {
+      // Not limited, but pauses still apply
+      return nextFreeNanos - now;
+    }
+
+    if (now > nextFreeNanos) {
+      stored = Math.min(maxStored, stored + (double) (now - nextFreeNanos) / intervalNanos);
+      nextFreeNanos = now;
+    }
+
+    long wait = nextFreeNanos - now;
+    double fromStored = Math.min(1, stored);
+    stored -= fromStored;
+    nextFreeNanos += (long) ((1 - fromStored) * intervalNanos);
+
+    return wait;
+  }
+
+  /**
+   * Grant no permits for the given time, e.g. while Airtable locks out the base.
+   *
+   * @param nanos time to pause in nanoseconds.
+   */
+  public synchronized void pause(long nanos) {
+
+    long until = System.nanoTime() + nanos;
+    if (until > nextFreeNanos) {
+      nextFreeNanos = until;
+    }
+    stored = 0;
+  }
+
+  /**
+   * @return number of permits acquired.
+   */
+  public long getPermits() {
+
+    return permits.get();
+  }
+
+  /**
+   * @return number of permits that were not available at once.
+   */
+  public long getDelayed() {
+
+    return delayed.get();
+  }
+
+  /**
+   * @return total time callers waited for permits.
+   */
+  public long getWaitTime(TimeUnit unit) {
+
+    return unit.convert(waitNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return number of callers currently waiting for a permit.
+   */
+  public int getQueueDepth() {
+
+    return queueDepth.get();
+  }
+
+  /**
+   * @return highest number of callers waiting for a permit at the same time.
+   */
+  public int getMaxQueueDepth() {
+
+    return maxQueueDepth.get();
+  }
+
+  @Override
+  public String toString() {
+
+    return "RateLimiter{permits=" + getPermits()
+        + ", delayed=" + getDelayed()
+        + ", wait=" + getWaitTime(TimeUnit.MILLISECONDS) + "ms"
+        + ", queueDepth=" + getQueueDepth()
+        + ", maxQueueDepth=" + getMaxQueueDepth() + "}";
+  }
+}
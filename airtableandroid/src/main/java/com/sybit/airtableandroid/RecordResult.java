@@ -0,0 +1,75 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+/**
+ * Outcome of writing a single record as part of a batch.
+ *
+ * <p>Either the record returned by Airtable or the error of the request is set. If a request
+ * fails, all records of the same request get the error.</p>
+ *
+ * @param <T> class of items
+ */
+public class RecordResult<T> {
+
+  private final T item;
+  private final T result;
+  private final Throwable error;
+
+  private RecordResult(T item, T result, Throwable error) {
+
+    this.item = item;
+    this.result = result;
+    this.error = error;
+  }
+
+  static <T> RecordResult<T> success(T item, T result) {
+
+    return new RecordResult<>(item, result, null);
+  }
+
+  static <T> RecordResult<T> failure(T item, Throwable error) {
+
+    return new RecordResult<>(item, null, error);
+  }
+
+  /**
+   * @return the item as passed to the batch.
+   */
+  public T getItem() {
+
+    return item;
+  }
+
+  /**
+   * @return the record as returned by Airtable, null if it failed.
+   */
+  public T getResult() {
+
+    return result;
+  }
+
+  /**
+   * @return the error of the request, null if it succeeded.
+   */
+  public Throwable getError() {
+
+    return error;
+  }
+
+  public boolean isSuccess() {
+
+    return error == null;
+  }
+
+  @Override
+  public String toString() {
+
+    return "RecordResult{item=" + item
+        + (isSuccess() ? ", result=" + result : ", error=" + error) + "}";
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import com.androidnetworking.error.ANError;
+import com.sybit.airtableandroid.exception.AirtableException;
+import io.reactivex.Observable;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.schedulers.Schedulers;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Response;
+import timber.log.Timber;
+
+/**
+ * Retries failed requests of a base as configured by a {@link RetryPolicy}.
+ *
+ * <p>Every {@link Base} owns a retrier shared by all of its tables. After a 429 the rate limiter
+ * of the base is paused, so the other requests of the base wait for the lockout too.</p>
+ */
+public class Retrier {
+
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final String CONNECTION_ERROR = "connectionError";
+  private static final String RETRY_AFTER = "Retry-After";
+
+  private final RetryPolicy policy;
+  private final RateLimiter limiter;
+  private final Random random = new Random();
+
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong lockouts = new AtomicLong();
+  private final AtomicLong giveUps = new AtomicLong();
+  private final AtomicLong backoffNanos = new AtomicLong();
+
+  /**
+   * @param policy settings of retries.
+   * @param limiter rate limiter paused after a 429.
+   */
+  public Retrier(RetryPolicy policy, RateLimiter limiter) {
+
+    this.policy = policy;
+    this.limiter = limiter;
+  }
+
+  /**
+   * Retry the request as configured.
+   *
+   * @param write true if the request writes records.
+   * @return transformer resubscribing the request after a retryable error.
+   */
+  public <R> ObservableTransformer<R, R> retry(final boolean write) {
+
+    return request -> Observable.defer(() -> {
+      final long start = System.nanoTime();
+      final int[] attempt = {0};
+
+      return request.retryWhen(errors -> errors.flatMap(error -> {
+        long delay = delay(error, write, attempt[0]++, System.nanoTime() - start);
+        if (delay < 0) {
+          return Observable.error(error);
+        }
+
+        retries.incrementAndGet();
+        backoffNanos.addAndGet(delay);
+        Timber.d("Retry " + attempt[0] + " in " + TimeUnit.NANOSECONDS.toMillis(delay)
+            + "ms after " + error);
+
+        return Observable.timer(delay, TimeUnit.NANOSECONDS, Schedulers.io());
+      }));
+    });
+  }
+
+  /**
+   * Get the delay before the next retry.
+   *
+   * @return delay in nanoseconds, negative if the request is not retried.
+   */
+  long delay(Throwable error, boolean write, int attempt, long elapsed) {
+
+    ANError anError = anError(error);
+    if (anError == null || attempt >= policy.getMaxRetries()) {
+      return giveUp(anError);
+    }
+
+    int status = anError.getErrorCode();
+    long delay;
+
+    if (status == TOO_MANY_REQUESTS) {
+      delay = Math.max(TimeUnit.MILLISECONDS.toNanos(policy.getLockout()), retryAfter(anError));
+      lockouts.incrementAndGet();
+      limiter.pause(delay);
+    } else if (isTransient(anError) && (!write || policy.isRetryWrites())) {
+      long cap = Math.min(policy.getMaxBackoff(),
+          policy.getInitialBackoff() << Math.min(attempt, 30));
+      delay = TimeUnit.MILLISECONDS.toNanos((long) (random.nextDouble() * cap));
+    } else {
+      return giveUp(anError);
+    }
+
+    if (elapsed + delay > TimeUnit.MILLISECONDS.toNanos(policy.getDeadline())) {
+      return giveUp(anError);
+    }
+
+    return delay;
+  }
+
+  private long giveUp(ANError anError) {
+
+    if (anError != null && (anError.getErrorCode() == TOO_MANY_REQUESTS || isTransient(anError))) {
+      giveUps.incrementAndGet();
+    }
+
+    return -1;
+  }
+
+  /**
+   * @return true for server errors and failed connections.
+   */
+  private static boolean isTransient(ANError anError) {
+
+    int status = anError.getErrorCode();
+
+    return status >= 500 || (status == 0 && CONNECTION_ERROR.equals(anError.getErrorDetail()));
+  }
+
+  /**
+   * @return delay requested by the Retry-After header in nanoseconds, 0 if there is none.
+   */
+  private static long retryAfter(ANError anError) {
+
+    Response response = anError.getResponse();
+    String value = (response != null) ? response.header(RETRY_AFTER) : null;
+    if (value != null) {
+      try {
+        return TimeUnit.SECONDS.toNanos(Long.parseLong(value.trim()));
+      } catch (NumberFormatException ex) {
+        Timber.w("Ignore invalid " + RETRY_AFTER + " header: " + value);
+      }
+    }
+
+    return 0;
+  }
+
+  private static ANError anError(Throwable error) {
+
+    if (error instanceof AirtableException) {
+      error = error.getCause();
+    }
+
+    return (error instanceof ANError) ? (ANError) error : null;
+  }
+
+  /**
+   * @return number of retries.
+   */
+  public long getRetries() {
+
+    return retries.get();
+  }
+
+  /**
+   * @return number of lockouts after a 429.
+   */
+  public long getLockouts() {
+
+    return lockouts.get();
+  }
+
+  /**
+   * @return number of requests failing with a retryable error after all retries.
+   */
+  public long getGiveUps() {
+
+    return giveUps.get();
+  }
+
+  /**
+   * @return total time waited before retries.
+   */
+  public long getBackoffTime(TimeUnit unit) {
+
+    return unit.convert(backoffNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+
+    return "Retrier{retries=" + getRetries()
+        + ", lockouts=" + getLockouts()
+        + ", giveUps=" + getGiveUps()
+        + ", backoff=" + getBackoffTime(TimeUnit.MILLISECONDS) + "ms}";
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+/**
+ * Settings of retrying failed requests, used by {@link Configuration}.
+ *
+ * <p>Requests failing with 429 (too many requests), 5xx or a connection error are retried up to
+ * <code>maxRetries</code> times. The delay before the n-th retry is random between 0 and
+ * <code>min(maxBackoff, initialBackoff * 2^n)</code> ("full jitter"). After a 429 all requests
+ * of the base wait for the lockout of Airtable, or the time of a <code>Retry-After</code>
+ * header. Retries stop as soon as the next one would start after the deadline.</p>
+ *
+ * <p>Writes are retried after a 429 only, because the request was rejected before it was
+ * processed. Set <code>retryWrites</code> to retry writes on all errors as well.</p>
+ */
+public class RetryPolicy {
+
+  public static final int DEFAULT_MAX_RETRIES = 3;
+  public static final long DEFAULT_INITIAL_BACKOFF = 500;
+  public static final long DEFAULT_MAX_BACKOFF = 10000;
+  public static final long DEFAULT_LOCKOUT = 30000;
+  public static final long DEFAULT_DEADLINE = 120000;
+
+  private int maxRetries = DEFAULT_MAX_RETRIES;
+  private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+  private long maxBackoff = DEFAULT_MAX_BACKOFF;
+  private long lockout = DEFAULT_LOCKOUT;
+  private long deadline = DEFAULT_DEADLINE;
+  private boolean retryWrites;
+
+  /**
+   * Get maximum number of retries of a request, 0 disables retries.
+   */
+  public int getMaxRetries() {
+
+    return maxRetries;
+  }
+
+  public void setMaxRetries(int maxRetries) {
+
+    this.maxRetries = maxRetries;
+  }
+
+  /**
+   * Get upper bound of the delay before the first retry in milliseconds.
+   */
+  public long getInitialBackoff() {
+
+    return initialBackoff;
+  }
+
+  public void setInitialBackoff(long initialBackoff) {
+
+    this.initialBackoff = initialBackoff;
+  }
+
+  /**
+   * Get upper bound of the delay before any retry in milliseconds.
+   */
+  public long getMaxBackoff() {
+
+    return maxBackoff;
+  }
+
+  public void setMaxBackoff(long maxBackoff) {
+
+    this.maxBackoff = maxBackoff;
+  }
+
+  /**
+   * Get time Airtable locks out a base after a 429 in milliseconds.
+   */
+  public long getLockout() {
+
+    return lockout;
+  }
+
+  public void setLockout(long lockout) {
+
+    this.lockout = lockout;
+  }
+
+  /**
+   * Get time after the first attempt when no more retries are started, in milliseconds.
+   */
+  public long getDeadline() {
+
+    return deadline;
+  }
+
+  public void setDeadline(long deadline) {
+
+    this.deadline = deadline;
+  }
+
+  /**
+   * Get if writes are retried on all errors, not only after a 429.
+   */
+  public boolean isRetryWrites() {
+
+    return retryWrites;
+  }
+
+  public void setRetryWrites(boolean retryWrites) {
+
+    this.retryWrites = retryWrites;
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of a single table scan.
+ *
+ * <p>Records are mapped while the response is read, so the time spent loading a page contains
+ * the mapping of its records. The time the subscriber spends processing the records is summed up
+ * separately. If pages are prefetched, they are loaded while the subscriber processes the
+ * records of previous pages, so the sum of both is bigger than the elapsed time of the scan and
+ * the difference is the time hidden by the overlap.</p>
+ *
+ * @see Table#selectAll(Query, int, ScanStats)
+ */
+public class ScanStats {
+
+  private final AtomicLong pages = new AtomicLong();
+  private final AtomicLong records = new AtomicLong();
+  private final AtomicLong fetchNanos = new AtomicLong();
+  private final AtomicLong mapNanos = new AtomicLong();
+
+  private volatile long startNanos;
+  private volatile long endNanos;
+
+  void start() {
+
+    startNanos = System.nanoTime();
+    endNanos = 0;
+  }
+
+  void finish() {
+
+    endNanos = System.nanoTime();
+  }
+
+  void addPage(long nanos) {
+
+    pages.incrementAndGet();
+    fetchNanos.addAndGet(nanos);
+  }
+
+  void addRecords(int count) {
+
+    records.addAndGet(count);
+  }
+
+  /**
+   * Wrap the records of a page to measure the time from emitting the first record until the
+   * subscriber processed the last one.
+   */
+  <R> Iterable<R> timed(List<R> items) {
+
+    return () -> new Iterator<R>() {
+
+      private final Iterator<R> iterator = items.iterator();
+      private long start;
+      private boolean finished;
+
+      @Override
+      public boolean hasNext() {
+
+        if (start == 0) {
+          start = System.nanoTime();
+        }
+        boolean hasNext = iterator.hasNext();
+        if (!hasNext && !finished) {
+          finished = true;
+          mapNanos.addAndGet(System.nanoTime() - start);
+        }
+
+        return hasNext;
+      }
+
+      @Override
+      public R next() {
+
+        return iterator.next();
+      }
+    };
+  }
+
+  /**
+   * @return number of pages loaded.
+   */
+  public long getPages() {
+
+    return pages.get();
+  }
+
+  /**
+   * @return number of records mapped.
+   */
+  public long getRecords() {
+
+    return records.get();
+  }
+
+  /**
+   * @return time spent loading pages and mapping their records.
+   */
+  public long getFetchTime(TimeUnit unit) {
+
+    return unit.convert(fetchNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return time spent emitting the mapped records, including their processing by the
+   *     subscriber.
+   */
+  public long getMapTime(TimeUnit unit) {
+
+    return unit.convert(mapNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return time from subscription until the scan terminated, or until now if it is running.
+   */
+  public long getElapsedTime(TimeUnit unit) {
+
+    if (startNanos == 0) {
+      return 0;
+    }
+    long end = (endNanos != 0) ? endNanos : System.nanoTime();
+
+    return unit.convert(end - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return time hidden by loading pages while the records of previous pages are processed.
+   */
+  public long getOverlapTime(TimeUnit unit) {
+
+    long overlap = fetchNanos.get() + mapNanos.get() - getElapsedTime(TimeUnit.NANOSECONDS);
+
+    return unit.convert(Math.max(0, overlap), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+
+    return "ScanStats{pages=" + getPages()
+        + ", records=" + getRecords()
+        + ", fetch=" + getFetchTime(TimeUnit.MILLISECONDS) + "ms"
+        + ", map=" + getMapTime(TimeUnit.MILLISECONDS) + "ms"
+        + ", elapsed=" + getElapsedTime(TimeUnit.MILLISECONDS) + "ms"
+        + ", overlap=" + getOverlapTime(TimeUnit.MILLISECONDS) + "ms}";
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import java.io.IOException;
+import java.util.Date;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Estimates the clock of Airtable by the <code>Date</code> header of its responses.
+ *
+ * <p>The header has a resolution of one second and is read after the response was sent, so the
+ * estimated time is never after the time of Airtable. Until the first response with the header
+ * the clock of the device is used. Instances are thread safe.</p>
+ */
+public final class ServerClock implements Interceptor {
+
+  /**
+   * Time of Airtable minus time of the device in ms.
+   */
+  private volatile long offset;
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+
+    Response response = chain.proceed(chain.request());
+
+    Date date = response.headers().getDate("Date");
+    if (date != null) {
+      offset = date.getTime() - System.currentTimeMillis();
+    }
+
+    return response;
+  }
+
+  /**
+   * Convert a time of the device to the time of Airtable.
+   *
+   * @param deviceTime time of the device in ms.
+   * @return estimated time of Airtable in ms.
+   */
+  public long toServerTime(long deviceTime) {
+
+    return deviceTime + offset;
+  }
+
+  /**
+   * @return difference of the time of Airtable to the time of the device in ms.
+   */
+  public long getOffset() {
+
+    return offset;
+  }
+}
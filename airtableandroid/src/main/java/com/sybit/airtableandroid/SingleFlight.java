@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import io.reactivex.Observable;
+import io.reactivex.functions.Function;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces identical reads running at the same time.
+ *
+ * <p>While a request is in flight, subscribers of a request with the same key attach to it and
+ * get its result instead of sending a new request. Attached subscribers get the result passed
+ * through the copier of the request, if any, so mutable items are not shared. The request is
+ * forgotten when it terminates, so a later subscriber sends a new one. A request is not
+ * cancelled when its subscribers dispose.</p>
+ *
+ * <p>Every {@link Table} owns an instance for its <code>select</code> and <code>find</code>
+ * requests, see {@link Table#getSingleFlight()}.</p>
+ */
+public class SingleFlight {
+
+  private final Map<String, Observable<?>> flights = new HashMap<>();
+
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+
+  /**
+   * Share the request of given key with all subscribers until it terminates.
+   *
+   * @param key endpoint and parameters of the request.
+   * @param source the request.
+   * @param <R> type of result
+   * @return the request, subscribed once for all concurrent subscribers.
+   */
+  public <R> Observable<R> share(final String key, final Observable<R> source) {
+
+    return share(key, source, null);
+  }
+
+  /**
+   * Share the request of given key with all subscribers until it terminates, attached
+   * subscribers get copies of the results.
+   *
+   * @param key endpoint and parameters of the request.
+   * @param source the request.
+   * @param copier copies a result for an attached subscriber, null to share the results.
+   * @param <R> type of result
+   * @return the request, subscribed once for all concurrent subscribers.
+   */
+  @SuppressWarnings("unchecked")
+  public <R> Observable<R> share(final String key, final Observable<R> source,
+      final Function<R, R> copier) {
+
+    return Observable.defer(() -> {
+      calls.incrementAndGet();
+
+      synchronized (flights) {
+        Observable<?> flight = flights.get(key);
+        if (flight != null) {
+          coalesced.incrementAndGet();
+          return (copier != null) ? ((Observable<R>) flight).map(copier) : (Observable<R>) flight;
+        }
+
+        // the key maps to this flight until it terminates, no other flight can replace it
+        Observable<R> shared = source
+            .doFinally(() -> forget(key))
+            .cache();
+        flights.put(key, shared);
+
+        return shared;
+      }
+    });
+  }
+
+  private void forget(String key) {
+
+    synchronized (flights) {
+      flights.remove(key);
+    }
+  }
+
+  /**
+   * @return number of subscribed requests.
+   */
+  public long getCalls() {
+
+    return calls.get();
+  }
+
+  /**
+   * @return number of requests attached to a request in flight.
+   */
+  public long getCoalesced() {
+
+    return coalesced.get();
+  }
+
+  /**
+   * @return ratio of requests attached to a request in flight, 0 if none were subscribed.
+   */
+  public double getCoalescingRatio() {
+
+    long total = calls.get();
+
+    return (total == 0) ? 0 : (double) coalesced.get() / total;
+  }
+
+  @Override
+  public String toString() {
+
+    return "SingleFlight{calls=" + getCalls()
+        + ", coalesced=" + getCoalesced()
+        + ", ratio=" + getCoalescingRatio() + "}";
+  }
+}
@@ -0,0 +1,398 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import com.google.gson.JsonObject;
+import com.sybit.airtableandroid.store.TableSnapshot;
+import com.sybit.airtableandroid.store.TableStore;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import timber.log.Timber;
+
+/**
+ * Keeps a local snapshot of a table up to date by loading only the records changed since the
+ * previous sync.
+ *
+ * <p>The first sync loads all records. Later syncs load the records whose
+ * <code>LAST_MODIFIED_TIME()</code> is after the watermark, the start time of the previous
+ * successful sync, and merge them by id. The watermark is the time of Airtable estimated by
+ * the {@link ServerClock}, so a wrong clock of the device doesn't skip changes. It is moved back
+ * by an overlap to absorb the error of the estimate and records modified while the previous
+ * sync was running, so records of the overlap may be loaded twice.</p>
+ *
+ * <p>Deleted records are not returned by delta syncs. Every n-th sync also scans the ids of all
+ * records, without their fields, removes the records of the snapshot that no longer exist and
+ * loads the records missing in the snapshot. Concurrent syncs share the same requests.
+ * Instances are thread safe.</p>
+ *
+ * <p>If a {@link TableStore} is set, the snapshot and its watermark are saved after every sync.
+ * On the next start {@link #restore()} loads them without any request, so the records can be
+ * shown immediately while a delta sync runs in the background.</p>
+ *
+ * @param <T> class of items
+ */
+public class SyncEngine<T> {
+
+  private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+
+  private static final long DEFAULT_OVERLAP = TimeUnit.MINUTES.toMillis(1);
+  private static final int DEFAULT_RECONCILE_INTERVAL = 10;
+
+  private final Table<T> table;
+  private final Query query;
+
+  private final SingleFlight singleFlight = new SingleFlight();
+
+  private final Map<String, T> records = new LinkedHashMap<>();
+
+  private long overlap = DEFAULT_OVERLAP;
+  private int reconcileInterval = DEFAULT_RECONCILE_INTERVAL;
+  private TableStore store;
+
+  /**
+   * Start time of the last successful sync in ms of Airtable, 0 before the first sync.
+   */
+  private long watermark;
+  private int syncs;
+
+  /**
+   * @param table table to synchronize.
+   */
+  public SyncEngine(Table<T> table) {
+
+    this(table, Table.ALL_RECORDS);
+  }
+
+  /**
+   * @param table table to synchronize.
+   * @param query records to synchronize, only its fields, view and formula are used, its
+   *     maximum number of records is ignored.
+   */
+  public SyncEngine(Table<T> table, Query query) {
+
+    this.table = table;
+    this.query = query;
+  }
+
+  /**
+   * Set the time the watermark is moved back for delta syncs, 1 minute by default.
+   */
+  public synchronized void setOverlap(long overlap, TimeUnit unit) {
+
+    this.overlap = unit.toMillis(overlap);
+  }
+
+  /**
+   * Set how often deletions are detected, 10 by default.
+   *
+   * @param syncs number of syncs between two scans of all ids, 0 to never scan.
+   */
+  public synchronized void setReconcileInterval(int syncs) {
+
+    this.reconcileInterval = syncs;
+  }
+
+  /**
+   * Set the store the snapshot is saved to after every sync, null to keep it in memory only.
+   */
+  public synchronized void setStore(TableStore store) {
+
+    this.store = store;
+  }
+
+  /**
+   * Load the snapshot saved by a previous instance from the store.
+   *
+   * <p>The snapshot is only restored if this instance didn't sync yet, the next sync then loads
+   * the changes since the saved watermark.</p>
+   *
+   * @return the records of the snapshot, empty if there is no store or no saved snapshot.
+   */
+  public Single<List<T>> restore() {
+
+    return Single.fromCallable(() -> {
+      TableStore store = getStore();
+      TableSnapshot snapshot = (store != null)
+          ? store.load(table.base().name(), table.name()) : null;
+      if (snapshot == null) {
+        return getRecords();
+      }
+
+      Map<String, T> restored = new LinkedHashMap<>();
+      for (JsonObject record : snapshot.getRecords()) {
+        T item = table.fromRecord(record);
+        restored.put(table.getIdOfItem(item), item);
+      }
+      synchronized (this) {
+        if (watermark == 0) {
+          records.putAll(restored);
+          watermark = snapshot.getWatermark();
+        }
+      }
+
+      return getRecords();
+    });
+  }
+
+  /**
+   * Load the changes since the previous sync and merge them into the snapshot.
+   *
+   * <p>If the sync fails, the snapshot and the watermark are left unchanged and the next sync
+   * loads the same changes again.</p>
+   *
+   * @return the changes merged.
+   */
+  public Single<Result> sync() {
+
+    return singleFlight.share("sync", Single.defer(this::run).toObservable()).singleOrError();
+  }
+
+  /**
+   * @return copy of the records of the snapshot, in order of their first load.
+   */
+  public synchronized List<T> getRecords() {
+
+    return Collections.unmodifiableList(new ArrayList<>(records.values()));
+  }
+
+  /**
+   * @return start time of the last successful sync in ms of Airtable, 0 before the first
+   *     sync.
+   */
+  public synchronized long getWatermark() {
+
+    return watermark;
+  }
+
+  /**
+   * Current time of the device in ms, converted to the time of Airtable for the watermark of a
+   * sync starting now.
+   */
+  protected long now() {
+
+    return System.currentTimeMillis();
+  }
+
+  private Single<Result> run() {
+
+    final long start = now();
+    final boolean full;
+    final boolean reconcile;
+    final long since;
+    synchronized (this) {
+      syncs++;
+      full = watermark == 0;
+      reconcile = !full && reconcileInterval > 0 && syncs % reconcileInterval == 0;
+      since = watermark - overlap;
+    }
+
+    ImmutableQuery.Builder builder = new ImmutableQuery.Builder()
+        .fields(query.getFields())
+        .view(query.getView())
+        .pageSize(Table.MAX_PAGE_SIZE);
+    if (full) {
+      builder.filterByFormula(query.filterByFormula());
+    } else {
+      builder.filterByFormula(deltaFormula(query.filterByFormula(), since));
+    }
+
+    return table.selectAll(builder.build())
+        .toList()
+        .flatMap(changes -> {
+          if (!reconcile) {
+            return Single.fromCallable(() -> merge(changes, null, full, start));
+          }
+          return table.scanIds(new ImmutableQuery.Builder()
+              .view(query.getView())
+              .filterByFormula(query.filterByFormula())
+              .build())
+              .collect(HashSet<String>::new, Set::add)
+              .flatMap(ids -> loadMissing(changes, ids)
+                  .map(loaded -> merge(loaded, ids, full, start)));
+        })
+        .doOnSuccess(result -> save());
+  }
+
+  private synchronized Result merge(List<T> changes, Set<String> ids, boolean full, long start)
+      throws Exception {
+
+    if (full) {
+      records.clear();
+    }
+    for (T item : changes) {
+      records.put(table.getIdOfItem(item), item);
+    }
+
+    int deleted = 0;
+    if (ids != null) {
+      Iterator<String> iterator = records.keySet().iterator();
+      while (iterator.hasNext()) {
+        if (!ids.contains(iterator.next())) {
+          iterator.remove();
+          deleted++;
+        }
+      }
+    }
+    watermark = table.base().airtable().getServerClock().toServerTime(start);
+
+    return new Result(full, changes.size(), deleted);
+  }
+
+  /**
+   * Add the records whose ids were scanned but are neither in the snapshot nor changed, e.g.
+   * because a change was missed, to the changes.
+   */
+  private Single<List<T>> loadMissing(List<T> changes, Set<String> ids) throws Exception {
+
+    Set<String> missing = new LinkedHashSet<>(ids);
+    for (T item : changes) {
+      missing.remove(table.getIdOfItem(item));
+    }
+    synchronized (this) {
+      missing.removeAll(records.keySet());
+    }
+    if (missing.isEmpty()) {
+      return Single.just(changes);
+    }
+
+    List<List<String>> batches = new ArrayList<>();
+    List<String> batch = null;
+    for (String id : missing) {
+      if (batch == null || batch.size() == Table.MAX_PAGE_SIZE) {
+        batch = new ArrayList<>();
+        batches.add(batch);
+      }
+      batch.add(id);
+    }
+
+    return Flowable.fromIterable(batches)
+        .concatMap(chunk -> table.selectAll(new ImmutableQuery.Builder()
+            .fields(query.getFields())
+            .filterByFormula(FindBatcher.formula(chunk))
+            .pageSize(Table.MAX_PAGE_SIZE)
+            .build()))
+        .collect(() -> (List<T>) new ArrayList<>(changes), List::add);
+  }
+
+  private synchronized TableStore getStore() {
+
+    return store;
+  }
+
+  /**
+   * Save the snapshot to the store, if set. A failure is logged, the next sync saves again.
+   */
+  private void save() {
+
+    TableStore store;
+    List<T> items;
+    long mark;
+    synchronized (this) {
+      store = this.store;
+      items = new ArrayList<>(records.values());
+      mark = watermark;
+    }
+    if (store == null) {
+      return;
+    }
+
+    try {
+      List<JsonObject> saved = new ArrayList<>(items.size());
+      for (T item : items) {
+        saved.add(table.toRecord(item));
+      }
+      store.save(table.base().name(), table.name(), new TableSnapshot(mark, saved));
+    } catch (IOException ex) {
+      Timber.w(ex, "Saving snapshot of table [" + table.name() + "] failed");
+    } catch (Exception ex) {
+      Timber.w(ex, "Converting snapshot of table [" + table.name() + "] failed");
+    }
+  }
+
+  /**
+   * Formula selecting the records modified after a time, within the records of the query.
+   */
+  static String deltaFormula(String formula, long since) {
+
+    SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT, Locale.ROOT);
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    String modified = "IS_AFTER(LAST_MODIFIED_TIME(),DATETIME_PARSE('"
+        + format.format(new Date(since)) + "'))";
+
+    return (formula == null || formula.isEmpty())
+        ? modified : "AND(" + formula + "," + modified + ")";
+  }
+
+  @Override
+  public String toString() {
+
+    return "SyncEngine{records=" + getRecords().size()
+        + ", watermark=" + getWatermark() + "}";
+  }
+
+  /**
+   * Changes merged by a sync.
+   */
+  public static final class Result {
+
+    private final boolean full;
+    private final int updated;
+    private final int deleted;
+
+    Result(boolean full, int updated, int deleted) {
+
+      this.full = full;
+      this.updated = updated;
+      this.deleted = deleted;
+    }
+
+    /**
+     * @return true if all records were loaded, replacing the snapshot.
+     */
+    public boolean isFull() {
+
+      return full;
+    }
+
+    /**
+     * @return number of records loaded and merged.
+     */
+    public int getUpdated() {
+
+      return updated;
+    }
+
+    /**
+     * @return number of records removed because they no longer exist.
+     */
+    public int getDeleted() {
+
+      return deleted;
+    }
+
+    @Override
+    public String toString() {
+
+      return "Result{full=" + full + ", updated=" + updated + ", deleted=" + deleted + "}";
+    }
+  }
+}
@@ -9,25 +9,43 @@ package com.sybit.airtableandroid;
 import com.androidnetworking.common.Priority;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import com.rx2androidnetworking.Rx2ANRequest;
 import com.rx2androidnetworking.Rx2AndroidNetworking;
+import com.sybit.airtableandroid.cache.QueryCache;
+import com.sybit.airtableandroid.cache.RecordCache;
 import com.sybit.airtableandroid.exception.AirtableException;
+import com.sybit.airtableandroid.formula.Filter;
+import com.sybit.airtableandroid.formula.FormulaCompiler;
+import com.sybit.airtableandroid.mapper.EntityMapper;
+import com.sybit.airtableandroid.mapper.EntityMappers;
+import com.sybit.airtableandroid.mapper.RecordWriter;
 import com.sybit.airtableandroid.vo.Attachment;
 import com.sybit.airtableandroid.vo.Delete;
+import com.sybit.airtableandroid.vo.Deletes;
 import com.sybit.airtableandroid.vo.PostRecord;
 import com.sybit.airtableandroid.vo.RecordItem;
-import com.sybit.airtableandroid.vo.Records;
+import com.sybit.airtableandroid.vo.RecordPage;
+import com.sybit.airtableandroid.vo.UpdateRecord;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Observable;
+import io.reactivex.ObservableTransformer;
 import io.reactivex.Single;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import io.reactivex.functions.Function;
+import io.reactivex.processors.UnicastProcessor;
+import io.reactivex.schedulers.Schedulers;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import jodd.bean.BeanUtil;
-import org.json.JSONObject;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import timber.log.Timber;
 
 /**
@@ -39,20 +57,85 @@ public class Table<T> {
 
   private static final String DATE_FORMAT = "yyyy-MM-dd";
 
+  /**
+   * Writes the bodies of all write requests.
+   */
+  private static final RecordWriter WRITER = new RecordWriter(DATE_FORMAT);
+
+  /**
+   * Serializes the fields of snapshots the way they are sent.
+   */
+  private static final Gson SNAPSHOT_GSON = new GsonBuilder()
+      .setDateFormat(DATE_FORMAT)
+      .serializeNulls()
+      .create();
+
+  /**
+   * Offset used to request the first page of a scan.
+   */
+  private static final String FIRST_PAGE = "";
+
+  /**
+   * Maximum number of records written by a single request.
+   */
+  static final int BATCH_SIZE = 10;
+
+  /**
+   * Projection requesting no fields, Airtable returns the ids only.
+   */
+  private static final String[] NO_FIELDS = {""};
+
+  static final int MAX_PAGE_SIZE = 100;
+
+  /**
+   * Type of pages read for their ids only.
+   */
+  private static final TypeToken<RecordPage<RecordItem>> ID_PAGE =
+      new TypeToken<RecordPage<RecordItem>>() {
+      };
+
+  /**
+   * Query without any restriction.
+   */
+  static final Query ALL_RECORDS = new ImmutableQuery.Builder().build();
+
   private final String name;
   private final Class<T> type;
 
+  /**
+   * Type of response pages, read by the {@link AirtableParserFactory}.
+   */
+  private final TypeToken<RecordPage<T>> pageType;
+
   private Base parent;
 
+  private EntityMapper<T> mapper;
+
+  private RecordCache<T> recordCache;
+
+  private QueryCache<T> queryCache;
+
+  private RecordCache<JsonObject> snapshotCache;
+
+  private final SingleFlight singleFlight = new SingleFlight();
+
+  private FindBatcher<T> findBatcher;
+
+  private boolean projection;
+
+  private FormulaCompiler formulaCompiler;
+
   /**
    *
    * @param name
    * @param type
    */
+  @SuppressWarnings("unchecked")
   public Table(String name, Class<T> type) {
 
     this.type = type;
     this.name = name;
+    this.pageType = (TypeToken<RecordPage<T>>) TypeToken.getParameterized(RecordPage.class, type);
   }
 
   /**
@@ -75,50 +158,125 @@ public class Table<T> {
   public void setParent(Base parent) {
 
     this.parent = parent;
+    this.mapper = null;
+    this.findBatcher = null;
+    this.formulaCompiler = null;
   }
 
   /**
-   * If no Parameter ser all querys to null.
+   * Get the name of the table.
+   *
+   * @return name of the table
    */
-  public Single<List<T>> select() {
+  public String name() {
 
-    return select(new Query() {
-      @Override
-      public Integer getMaxRecords() {
+    return name;
+  }
 
-        return null;
-      }
+  /**
+   * Get the cache of records, null if records are not cached.
+   */
+  public RecordCache<T> getRecordCache() {
 
-      @Override
-      public String getView() {
+    return recordCache;
+  }
 
-        return null;
-      }
+  /**
+   * Set the cache of records.
+   *
+   * <p>The cache is filled by the records read or written by this table and records are removed
+   * when they are deleted. {@link #find(String)} returns cached records without request.</p>
+   *
+   * @param recordCache cache of records, null to disable caching.
+   */
+  public void setRecordCache(RecordCache<T> recordCache) {
 
-      @Override
-      public List<Sort> getSort() {
+    this.recordCache = recordCache;
+  }
 
-        return null;
-      }
+  /**
+   * Get the cache of query results, null if results are not cached.
+   */
+  public QueryCache<T> getQueryCache() {
 
-      @Override
-      public String filterByFormula() {
+    return queryCache;
+  }
 
-        return null;
-      }
+  /**
+   * Set the cache of query results.
+   *
+   * <p>{@link #select(Query)} returns the cached result of an identical query without request.
+   * All results are invalidated when records are created, updated or deleted by this table;
+   * changes made by other clients are seen once the results expire.</p>
+   *
+   * @param queryCache cache of query results, null to disable caching.
+   */
+  public void setQueryCache(QueryCache<T> queryCache) {
 
-      @Override
-      public String[] getFields() {
+    this.queryCache = queryCache;
+  }
 
-        return null;
-      }
+  /**
+   * @return true if queries without fields request the columns of the entity class only.
+   */
+  public boolean isProjection() {
 
-      @Override
-      public Integer getPageSize() {
+    return projection;
+  }
 
-        return null;
-      }
-    });
+  /**
+   * Set if queries without fields request the columns of the entity class only.
+   *
+   * <p>The columns are the ones written from the items: the <code>@SerializedName</code> values
+   * and the names of properties without annotation. Columns not mapped by the class are not
+   * downloaded.</p>
+   *
+   * @param projection true to request the columns of the entity class, false for all columns.
+   */
+  public void setProjection(boolean projection) {
+
+    this.projection = projection;
+  }
+
+  /**
+   * Get the cache of snapshots, null if changed fields are not tracked.
+   */
+  public RecordCache<JsonObject> getSnapshotCache() {
+
+    return snapshotCache;
+  }
+
+  /**
+   * Set the cache of snapshots, the fields of records as last read or written.
+   *
+   * <p>{@link #update(Object)} and the batch updates send only the fields changed since the
+   * snapshot of the record, an update without changes sends no request. Records without snapshot
+   * are sent with all fields.</p>
+   *
+   * @param snapshotCache cache of snapshots, null to send all fields.
+   */
+  public void setSnapshotCache(RecordCache<JsonObject> snapshotCache) {
+
+    this.snapshotCache = snapshotCache;
+  }
+
+  /**
+   * Get the coalescer of identical concurrent reads, with its statistics.
+   *
+   * <p>{@link #select(Query)} and {@link #find(String)} share the request of the same endpoint
+   * and parameters while it is in flight.</p>
+   */
+  public SingleFlight getSingleFlight() {
+
+    return singleFlight;
+  }
+
+  /**
+   * If no Parameter ser all querys to null.
+   */
+  public Single<List<T>> select() {
+
+    return select(ALL_RECORDS);
   }
 
   /**
@@ -127,138 +285,310 @@ public class Table<T> {
   @SuppressWarnings("WeakerAccess")
   public Single<List<T>> select(Query query) {
 
-    Map<String, String> params = new HashMap<>();
-    if (query.getFields() != null && query.getFields().length > 0) {
-      String[] fields = query.getFields();
-      for (String field : fields) {
-        params.put("fields[]", field);
-      }
-    }
-    if (query.getMaxRecords() != null) {
-      params.put("maxRecords", query.getMaxRecords().toString());
+    final QueryCache<T> cache = queryCache;
+    if (cache == null) {
+      return selectFirstPage(query);
     }
-    if (query.getView() != null) {
-      params.put("view", query.getView());
-    }
-    if (query.filterByFormula() != null) {
-      params.put("filterByFormula", query.filterByFormula());
-    }
-    if (query.getPageSize() != null) {
-      if (query.getPageSize() > 100) {
-        params.put("pageSize", "100");
-      } else {
-        params.put("pageSize", query.getPageSize().toString());
-      }
-    }
-    if (query.getSort() != null) {
-      int i = 0;
-      for (Sort sort : query.getSort()) {
-        params.put("sort[" + i + "][field]", sort.getField());
-        params.put("sort[" + i + "][direction]", sort.getDirection().toString());
+
+    final String key = (query instanceof ImmutableQuery && !isProjected(query))
+        ? ((ImmutableQuery) query).getCacheKey() : QueryCache.key(query, fieldsOf(query));
+
+    return Single.defer(() -> {
+      List<T> cached = cache.get(key);
+      if (cached != null) {
+        return Single.just(copyAll(cached));
       }
+
+      long generation = cache.generation();
+
+      return selectFirstPage(query).map(items -> {
+        cache.put(key, copyAll(items), generation);
+        return items;
+      });
+    });
+  }
+
+  /**
+   * Request the first page of a query.
+   */
+  private Single<List<T>> selectFirstPage(Query query) {
+
+    QueryParameters params = getParameters(query);
+    String offset = offsetOf(query);
+    if (!FIRST_PAGE.equals(offset)) {
+      params = new QueryParameters(params).add("offset", offset);
     }
 
-    final String BASE_URL = getTableEndpointUrl();
+    final String URL = params.appendTo(getTableEndpointUrl());
 
-    return Rx2AndroidNetworking.get(BASE_URL)
-        .addQueryParameter(params)
+    Observable<List<T>> request = Rx2AndroidNetworking.get(URL)
         .setPriority(Priority.MEDIUM)
         .build()
-        .getObjectObservable(Records.class)
+        .getParseObservable(pageType)
+        .compose(throttled(false))
         .onErrorResumeNext(throwable -> {
 
           return Observable.error(new AirtableException(throwable));
         })
-        .map(this::getList)
+        .map(RecordPage::getItems)
+        .doOnNext(this::cacheAll);
+
+    return singleFlight.share(URL, request, this::copyAll)
         .single(new ArrayList<>());
   }
 
   /**
-   * select with Parameter maxRecords
+   * Select all records of table, following the offset of every page.
+   *
+   * @return records of all pages.
+   * @see #selectAll(Query)
    */
-  public Single<List<T>> select(final Integer maxRecords) {
+  public Flowable<T> selectAll() {
 
-    return select(new Query() {
-      @Override
-      public Integer getMaxRecords() {
+    return selectAll(ALL_RECORDS);
+  }
 
-        return maxRecords;
-      }
+  /**
+   * Select all records of table with defined Query Parameters.
+   *
+   * <p>Pages are requested one after another following the offset returned by Airtable, so the
+   * records of the first page are emitted while the following pages are still loading. Only a
+   * bounded number of pages is loaded ahead of the records requested by the subscriber, so the
+   * memory used is bounded by the page size and not by the size of the table.</p>
+   *
+   * <p>The number of pages loaded ahead is taken from {@link Configuration#getScanPrefetch()}.</p>
+   *
+   * @param query query parameters, the page size is applied to every page.
+   * @return records of all pages.
+   */
+  public Flowable<T> selectAll(Query query) {
 
-      @Override
-      public String getView() {
+    return selectAll(query, base().airtable().getConfig().getScanPrefetch(), new ScanStats());
+  }
 
-        return null;
-      }
+  /**
+   * Select all records of table with defined Query Parameters, loading pages ahead.
+   *
+   * <p>The records are mapped while the response is read. With a prefetch greater than 0 the
+   * pages are loaded on the io scheduler and the records are emitted on the computation
+   * scheduler. The next page is requested as soon as the offset of the previous one is known,
+   * while up to <code>prefetch</code> loaded pages wait to be emitted. The order of the records is
+   * kept.</p>
+   *
+   * @param query query parameters, the page size is applied to every page.
+   * @param prefetch number of pages loaded ahead, 0 to load on the subscribing thread.
+   * @param stats statistics updated while the scan is running.
+   * @return records of all pages.
+   */
+  public Flowable<T> selectAll(Query query, final int prefetch, final ScanStats stats) {
 
-      @Override
-      public List<Sort> getSort() {
+    return scan(getParameters(query), offsetOf(query), pageType, prefetch, stats)
+        .doOnNext(this::cache);
+  }
 
-        return null;
-      }
+  /**
+   * Get the offset of the first page of a query, FIRST_PAGE to start at the first page.
+   */
+  private static String offsetOf(Query query) {
 
-      @Override
-      public String filterByFormula() {
+    String offset = (query instanceof ImmutableQuery) ? ((ImmutableQuery) query).getOffset() : null;
 
-        return null;
-      }
+    return (offset != null) ? offset : FIRST_PAGE;
+  }
 
-      @Override
-      public String[] getFields() {
+  /**
+   * Scan all pages of the table, reading the records by given page type.
+   *
+   * @param params query parameters of the scan.
+   * @param firstOffset offset of the first page, FIRST_PAGE to start at the first page.
+   * @param type type of pages, read by the {@link AirtableParserFactory}.
+   * @param prefetch number of pages loaded ahead, 0 to load on the subscribing thread.
+   * @param stats statistics updated while the scan is running.
+   * @return records of all pages.
+   */
+  private <R> Flowable<R> scan(final QueryParameters params, final String firstOffset,
+      final TypeToken<RecordPage<R>> type, final int prefetch, final ScanStats stats) {
+
+    return Flowable.defer(() -> {
+      UnicastProcessor<String> offsets = UnicastProcessor.create();
+      offsets.onNext(firstOffset);
+
+      Flowable<RecordPage<R>> pages = offsets
+          .concatMap(offset -> {
+            Single<RecordPage<R>> page = selectPage(params, type, offset, stats);
+
+            return (prefetch > 0)
+                ? page.subscribeOn(Schedulers.io()).toFlowable()
+                : page.toFlowable();
+          }, 1)
+          .doOnNext(page -> {
+            if (page.getOffset() != null) {
+              offsets.onNext(page.getOffset());
+            } else {
+              offsets.onComplete();
+            }
+          });
 
-        return null;
+      if (prefetch > 0) {
+        pages = pages.observeOn(Schedulers.computation(), false, prefetch);
       }
 
-      @Override
-      public Integer getPageSize() {
+      return pages
+          .concatMapIterable(page -> {
+            stats.addRecords(page.getItems().size());
+
+            return stats.timed(page.getItems());
+          }, 1);
+    })
+        .doOnSubscribe(subscription -> stats.start())
+        .doFinally(() -> {
+          stats.finish();
+          Timber.d("Scan of table [" + name + "] finished: " + stats);
+        });
+  }
 
-        return null;
-      }
-    });
+  /**
+   * Request a single page of records.
+   *
+   * @param params query parameters of the scan.
+   * @param type type of the page.
+   * @param offset offset of the page, FIRST_PAGE for the first one.
+   * @param stats statistics of the scan.
+   * @return the page.
+   */
+  private <R> Single<RecordPage<R>> selectPage(QueryParameters params,
+      TypeToken<RecordPage<R>> type, String offset, ScanStats stats) {
+
+    QueryParameters pageParams = new QueryParameters(params);
+    if (!FIRST_PAGE.equals(offset)) {
+      pageParams.add("offset", offset);
+    }
+
+    final String URL = pageParams.appendTo(getTableEndpointUrl());
+
+    return Single.defer(() -> {
+      final long start = System.nanoTime();
+
+      return Rx2AndroidNetworking.get(URL)
+          .setPriority(Priority.MEDIUM)
+          .build()
+          .getParseObservable(type)
+          .onErrorResumeNext(throwable -> {
+
+            return Observable.error(new AirtableException(throwable));
+          })
+          .singleOrError()
+          .doOnSuccess(page -> stats.addPage(System.nanoTime() - start));
+    })
+        .toObservable()
+        .compose(throttled(false))
+        .singleOrError();
   }
 
   /**
-   * Select data of table by definied view.
+   * Convert the Query into request parameters.
    */
-  public Single<List<T>> select(final String view) {
+  private QueryParameters getParameters(Query query) {
 
-    return select(new Query() {
-      @Override
-      public Integer getMaxRecords() {
+    if (query instanceof ImmutableQuery && !isProjected(query)) {
+      return ((ImmutableQuery) query).parameters();
+    }
 
-        return null;
-      }
+    return QueryParameters.of(query, fieldsOf(query));
+  }
 
-      @Override
-      public String getView() {
+  /**
+   * @return true if the query requests the columns of the entity class instead of its fields.
+   */
+  private boolean isProjected(Query query) {
 
-        return view;
-      }
+    return query.getFields() == null && projection;
+  }
 
-      @Override
-      public List<Sort> getSort() {
+  /**
+   * Get the fields requested for a query, null for all columns.
+   */
+  private String[] fieldsOf(Query query) {
 
-        return null;
-      }
+    return isProjected(query)
+        ? mapper().getColumns().toArray(new String[0]) : query.getFields();
+  }
 
-      @Override
-      public String filterByFormula() {
+  /**
+   * select with Parameter maxRecords
+   */
+  public Single<List<T>> select(final Integer maxRecords) {
 
-        return null;
-      }
+    try {
+      return select(new ImmutableQuery.Builder().maxRecords(maxRecords).build());
+    } catch (IllegalArgumentException ex) {
+      return Single.error(ex);
+    }
+  }
 
-      @Override
-      public String[] getFields() {
+  /**
+   * Select the records matching a filter, compiled to a formula.
+   *
+   * @param filter the filter, validated against the columns of the entity class.
+   * @return records of the first page.
+   * @see #compile(Filter)
+   */
+  public Single<List<T>> select(Filter filter) {
 
-        return null;
-      }
+    try {
+      return select(new ImmutableQuery.Builder().filterByFormula(compile(filter)).build());
+    } catch (IllegalArgumentException ex) {
+      return Single.error(ex);
+    }
+  }
 
-      @Override
-      public Integer getPageSize() {
+  /**
+   * Select all records matching a filter, compiled to a formula.
+   *
+   * @param filter the filter, validated against the columns of the entity class.
+   * @return records of all pages.
+   * @see #compile(Filter)
+   */
+  public Flowable<T> selectAll(Filter filter) {
 
-        return null;
+    try {
+      return selectAll(new ImmutableQuery.Builder().filterByFormula(compile(filter)).build());
+    } catch (IllegalArgumentException ex) {
+      return Flowable.error(ex);
+    }
+  }
+
+  /**
+   * Compile a filter to a formula of <code>filterByFormula</code>.
+   *
+   * @param filter the filter
+   * @return the formula
+   * @throws IllegalArgumentException if the filter refers to a column not mapped by the entity
+   *     class
+   */
+  public String compile(Filter filter) {
+
+    FormulaCompiler compiler;
+    synchronized (this) {
+      if (formulaCompiler == null) {
+        formulaCompiler = new FormulaCompiler(mapper());
       }
-    });
+      compiler = formulaCompiler;
+    }
+
+    return compiler.compile(filter);
+  }
+
+  /**
+   * Select data of table by definied view.
+   */
+  public Single<List<T>> select(final String view) {
+
+    try {
+      return select(new ImmutableQuery.Builder().view(view).build());
+    } catch (IllegalArgumentException ex) {
+      return Single.error(ex);
+    }
   }
 
   /**
@@ -267,285 +597,710 @@ public class Table<T> {
    */
   public Single<List<T>> select(final String view, final String filterByFormula) {
 
-    return select(new Query() {
-      @Override
-      public Integer getMaxRecords() {
+    try {
+      return select(new ImmutableQuery.Builder()
+          .view(view)
+          .filterByFormula(filterByFormula)
+          .build());
+    } catch (IllegalArgumentException ex) {
+      return Single.error(ex);
+    }
+  }
 
-        return null;
-      }
+  /**
+   * select Table data with defined sortation
+   */
+  public Single<List<T>> select(Sort sortation) {
 
-      @Override
-      public String getView() {
+    try {
+      return select(new ImmutableQuery.Builder().sort(sortation).build());
+    } catch (IllegalArgumentException ex) {
+      return Single.error(ex);
+    }
+  }
 
-        return view;
-      }
+  /**
+   * select only Table data with defined Fields
+   */
+  public Single<List<T>> select(final String[] fields) {
 
-      @Override
-      public List<Sort> getSort() {
+    try {
+      return select(new ImmutableQuery.Builder().fields(fields).build());
+    } catch (IllegalArgumentException ex) {
+      return Single.error(ex);
+    }
+  }
 
-        return null;
-      }
+  /**
+   * Find record by given id.
+   *
+   * <p>If {@link Configuration#getFindBatchWindow()} is set, finds are collected for this time
+   * and the records of all ids are selected by a single request. Finds of batches complete
+   * empty if no record has the id.</p>
+   *
+   * @param id id of record.
+   * @return searched record.
+   */
+  public Maybe<T> find(String id) {
+
+    final String BASE_URL = getTableEndpointUrl() + "/{id}";
+
+    Observable<T> response = Rx2AndroidNetworking.get(BASE_URL)
+        .addPathParameter("id", id)
+        .setPriority(Priority.MEDIUM)
+        .build()
+        .getObjectObservable(RecordItem.class)
+        .compose(throttled(false))
+        .onErrorResumeNext(throwable -> {
+
+          return Observable.error(new AirtableException(throwable));
+        })
+        .map(record -> transform(record, mapper().newInstance()))
+        .doOnNext(this::cache);
+
+    Maybe<T> request = singleFlight.share(getTableEndpointUrl() + "/" + id, response, this::copy)
+        .singleElement();
 
-      @Override
-      public String filterByFormula() {
+    return Maybe.defer(() -> {
+      T cached = (recordCache != null) ? recordCache.get(id) : null;
 
-        return filterByFormula;
+      if (cached != null) {
+        return Maybe.just(copy(cached));
       }
+      FindBatcher<T> batcher = findBatcher();
+
+      return (batcher != null) ? batcher.find(id) : request;
+    });
+  }
+
+  /**
+   * Get the batcher of finds, null if finds are not batched.
+   */
+  private synchronized FindBatcher<T> findBatcher() {
+
+    Configuration config = base().airtable().getConfig();
+    if (findBatcher == null && config != null && config.getFindBatchWindow() > 0) {
+      int maxSize = Math.min(Math.max(config.getFindBatchSize(), 1), MAX_PAGE_SIZE);
+      findBatcher = new FindBatcher<>(this::selectFormula,
+          item -> String.valueOf(mapper().get(item, "id")), config.getFindBatchWindow(),
+          maxSize);
+    }
+
+    return findBatcher;
+  }
+
+  /**
+   * Select the first page of records matching a formula, with the maximum page size.
+   */
+  private Single<List<T>> selectFormula(final String formula) {
+
+    return selectFirstPage(new ImmutableQuery.Builder()
+        .filterByFormula(formula)
+        .pageSize(MAX_PAGE_SIZE)
+        .build());
+  }
+
+  /**
+   * Create Record of given Item
+   *
+   * @param item the item to be created
+   * @return the created item
+   */
+  public Maybe<T> create(T item) {
+
+    byte[] body;
+    try {
+      checkProperties(item);
+
+      PostRecord<Map<String, Object>> record = new PostRecord<>();
+      record.setFields(mapper().getFields(item));
+
+      body = WRITER.writeRecord(record, false);
 
-      @Override
-      public String[] getFields() {
+    } catch (Exception ex) {
+      return Maybe.create(subscriber -> subscriber.onError(ex));
+    }
+
+    final String BASE_URL = getTableEndpointUrl();
+
+    return Rx2AndroidNetworking.post(BASE_URL)
+        .addByteBody(body)
+        .setContentType("application/json; charset=utf-8")
+        .setPriority(Priority.MEDIUM)
+        .build()
+        .getObjectObservable(RecordItem.class)
+        .compose(throttled(true))
+        .onErrorResumeNext(throwable -> {
+
+          return Observable.error(new AirtableException(throwable));
+        })
+        .map(record -> transform(record, mapper().newInstance()))
+        .doOnNext(this::cache)
+        .doFinally(this::invalidateQueries)
+        .singleElement();
+  }
+
+  /**
+   * Create records of given items.
+   *
+   * @param items the items to be created
+   * @return result of every item, in the order the requests complete.
+   * @see #createAll(Flowable, int)
+   */
+  public Flowable<RecordResult<T>> createAll(List<T> items) {
+
+    return createAll(Flowable.fromIterable(items));
+  }
+
+  /**
+   * Create records of given items.
+   *
+   * <p>The number of concurrent requests is taken from
+   * {@link Configuration#getBatchConcurrency()}.</p>
+   *
+   * @param items the items to be created
+   * @return result of every item, in the order the requests complete.
+   * @see #createAll(Flowable, int)
+   */
+  public Flowable<RecordResult<T>> createAll(Flowable<T> items) {
+
+    return createAll(items, base().airtable().getConfig().getBatchConcurrency());
+  }
+
+  /**
+   * Create records of given items, up to 10 records per request.
+   *
+   * <p>Items are requested from the source only as far as batches can be sent, so at most
+   * <code>maxConcurrency</code> batches are held in memory. The result of every item is emitted as
+   * soon as its request completes; if a request fails, all items of the batch get the error and
+   * the remaining batches are still sent.</p>
+   *
+   * @param items the items to be created
+   * @param maxConcurrency maximum number of requests running at the same time.
+   * @return result of every item, in the order the requests complete.
+   */
+  public Flowable<RecordResult<T>> createAll(Flowable<T> items, int maxConcurrency) {
+
+    final String BASE_URL = getTableEndpointUrl();
+
+    return writeAll(items, maxConcurrency, () -> Rx2AndroidNetworking.post(BASE_URL), item -> {
+      checkProperties(item);
+
+      PostRecord<Map<String, Object>> record = new PostRecord<>();
+      record.setFields(mapper().getFields(item));
+
+      return record;
+    }, false);
+  }
+
+  public Maybe<T> update(T item) {
 
-        return null;
+    String id;
+    byte[] body;
+    try {
+      id = getIdOfItem(item);
+
+      Map<String, Object> fields = changedFields(item, id);
+      if (fields.isEmpty()) {
+        return Maybe.just(item);
       }
 
-      @Override
-      public Integer getPageSize() {
+      PostRecord<Map<String, Object>> record = new PostRecord<>();
+      record.setFields(fields);
+
+      body = WRITER.writeRecord(record, true);
+
+    } catch (Exception ex) {
+      return Maybe.create(subscriber -> subscriber.onError(ex));
+    }
+
+    final String BASE_URL = getTableEndpointUrl() + "/{id}";
+
+    return Rx2AndroidNetworking.patch(BASE_URL)
+        .addPathParameter("id", id)
+        .addByteBody(body)
+        .setContentType("application/json; charset=utf-8")
+        .setPriority(Priority.MEDIUM)
+        .build()
+        .getObjectObservable(RecordItem.class)
+        .compose(throttled(true))
+        .onErrorResumeNext(throwable -> {
+
+          return Observable.error(new AirtableException(throwable));
+        })
+        .map(record -> transform(record, mapper().newInstance()))
+        .doOnNext(this::cache)
+        .doFinally(this::invalidateQueries)
+        .singleElement();
+  }
+
+  /**
+   * Update records of given items.
+   *
+   * @param items the items to be updated
+   * @return result of every item, in the order the requests complete.
+   * @see #updateAll(Flowable, int)
+   */
+  public Flowable<RecordResult<T>> updateAll(List<T> items) {
+
+    return updateAll(Flowable.fromIterable(items));
+  }
+
+  /**
+   * Update records of given items.
+   *
+   * <p>The number of concurrent requests is taken from
+   * {@link Configuration#getBatchConcurrency()}.</p>
+   *
+   * @param items the items to be updated
+   * @return result of every item, in the order the requests complete.
+   * @see #updateAll(Flowable, int)
+   */
+  public Flowable<RecordResult<T>> updateAll(Flowable<T> items) {
+
+    return updateAll(items, base().airtable().getConfig().getBatchConcurrency());
+  }
+
+  /**
+   * Update records of given items by PATCH, up to 10 records per request.
+   *
+   * <p>Only the fields of the items are changed, including fields set to null. Items without id
+   * fail without being sent. Batches are sent as by {@link #createAll(Flowable, int)}.</p>
+   *
+   * @param items the items to be updated
+   * @param maxConcurrency maximum number of requests running at the same time.
+   * @return result of every item, in the order the requests complete.
+   */
+  public Flowable<RecordResult<T>> updateAll(Flowable<T> items, int maxConcurrency) {
+
+    final String BASE_URL = getTableEndpointUrl();
 
-        return null;
-      }
-    });
+    return writeAll(items, maxConcurrency, () -> Rx2AndroidNetworking.patch(BASE_URL),
+        this::toUpdateRecord, true);
   }
 
   /**
-   * select Table data with defined sortation
+   * Replace records of given items.
+   *
+   * @param items the items to be replaced
+   * @return result of every item, in the order the requests complete.
+   * @see #replaceAll(Flowable, int)
    */
-  public Single<List<T>> select(Sort sortation) {
-
-    final List<Sort> sortList = new ArrayList<>();
-    sortList.add(sortation);
+  public Flowable<RecordResult<T>> replaceAll(List<T> items) {
 
-    return select(new Query() {
-      @Override
-      public Integer getMaxRecords() {
+    return replaceAll(Flowable.fromIterable(items));
+  }
 
-        return null;
-      }
+  /**
+   * Replace records of given items.
+   *
+   * <p>The number of concurrent requests is taken from
+   * {@link Configuration#getBatchConcurrency()}.</p>
+   *
+   * @param items the items to be replaced
+   * @return result of every item, in the order the requests complete.
+   * @see #replaceAll(Flowable, int)
+   */
+  public Flowable<RecordResult<T>> replaceAll(Flowable<T> items) {
 
-      @Override
-      public String getView() {
+    return replaceAll(items, base().airtable().getConfig().getBatchConcurrency());
+  }
 
-        return null;
-      }
+  /**
+   * Replace records of given items by PUT, up to 10 records per request.
+   *
+   * <p>Fields not contained in the items are cleared by Airtable. Items without id fail without
+   * being sent. Batches are sent as by {@link #createAll(Flowable, int)}.</p>
+   *
+   * @param items the items to be replaced
+   * @param maxConcurrency maximum number of requests running at the same time.
+   * @return result of every item, in the order the requests complete.
+   */
+  public Flowable<RecordResult<T>> replaceAll(Flowable<T> items, int maxConcurrency) {
 
-      @Override
-      public List<Sort> getSort() {
+    final String BASE_URL = getTableEndpointUrl();
 
-        return sortList;
-      }
+    return writeAll(items, maxConcurrency, () -> Rx2AndroidNetworking.put(BASE_URL),
+        this::toUpdateRecord, true);
+  }
 
-      @Override
-      public String filterByFormula() {
+  /**
+   * Create records of given items by batch POST, sending the record given for every item.
+   *
+   * @param items the items to be created
+   * @param toRecord converts an item to the record to send.
+   * @return result of every item, in the order the requests complete.
+   * @see JournalReplayer
+   */
+  Flowable<RecordResult<T>> postAll(List<T> items,
+      Function<T, PostRecord<Map<String, Object>>> toRecord) {
 
-        return null;
-      }
+    final String BASE_URL = getTableEndpointUrl();
 
-      @Override
-      public String[] getFields() {
+    return writeAll(Flowable.fromIterable(items),
+        base().airtable().getConfig().getBatchConcurrency(),
+        () -> Rx2AndroidNetworking.post(BASE_URL), toRecord, false);
+  }
 
-        return null;
-      }
+  /**
+   * Update records of given items by batch PATCH, sending the record given for every item.
+   *
+   * @param items the items to be updated
+   * @param toRecord converts an item to the update record to send.
+   * @return result of every item, in the order the requests complete.
+   * @see WriteBehind
+   */
+  Flowable<RecordResult<T>> patchAll(List<T> items,
+      Function<T, PostRecord<Map<String, Object>>> toRecord) {
 
-      @Override
-      public Integer getPageSize() {
+    final String BASE_URL = getTableEndpointUrl();
 
-        return null;
-      }
-    });
+    return writeAll(Flowable.fromIterable(items),
+        base().airtable().getConfig().getBatchConcurrency(),
+        () -> Rx2AndroidNetworking.patch(BASE_URL), toRecord, true);
   }
 
   /**
-   * select only Table data with defined Fields
+   * Replace the record of given item by PUT.
+   *
+   * <p>Fields not contained in the item are cleared by Airtable. The record is sent as a batch of
+   * one record, the same way as by {@link #replaceAll(Flowable, int)}.</p>
+   *
+   * @param item the item to be replaced
+   * @return the replaced item as returned by Airtable.
    */
-  public Single<List<T>> select(final String[] fields) {
-
-    return select(new Query() {
-      @Override
-      public Integer getMaxRecords() {
-
-        return null;
-      }
+  public Maybe<T> replace(T item) {
 
-      @Override
-      public String getView() {
+    return replaceAll(Flowable.just(item), 1)
+        .firstElement()
+        .flatMap(result -> result.isSuccess()
+            ? Maybe.just(result.getResult())
+            : Maybe.error(result.getError()));
+  }
 
-        return null;
-      }
+  /**
+   * Delete Record by given id
+   */
 
-      @Override
-      public List<Sort> getSort() {
+  public Maybe<Boolean> destroy(final String id) {
 
-        return null;
-      }
+    final String BASE_URL = getTableEndpointUrl() + "/{id}";
 
-      @Override
-      public String filterByFormula() {
+    return Rx2AndroidNetworking.delete(BASE_URL)
+        .addPathParameter("id", id)
+        .setPriority(Priority.MEDIUM)
+        .build()
+        .getObjectObservable(Delete.class)
+        .compose(throttled(true))
+        .onErrorResumeNext(throwable -> {
 
-        return null;
-      }
+          return Observable.error(new AirtableException(throwable));
+        })
+        .map(Delete::isDeleted)
+        .doOnNext(deleted -> uncache(id))
+        .doFinally(this::invalidateQueries)
+        .singleElement();
+  }
 
-      @Override
-      public String[] getFields() {
+  /**
+   * Delete records of given ids.
+   *
+   * @param ids ids of the records to be deleted
+   * @return result of every id, in the order the requests complete.
+   * @see #destroyAll(Flowable, int)
+   */
+  public Flowable<RecordResult<String>> destroyAll(Collection<String> ids) {
 
-        return fields;
-      }
+    return destroyAll(Flowable.fromIterable(ids));
+  }
 
-      @Override
-      public Integer getPageSize() {
+  /**
+   * Delete records of given ids.
+   *
+   * <p>The number of concurrent requests is taken from
+   * {@link Configuration#getBatchConcurrency()}.</p>
+   *
+   * @param ids ids of the records to be deleted
+   * @return result of every id, in the order the requests complete.
+   * @see #destroyAll(Flowable, int)
+   */
+  public Flowable<RecordResult<String>> destroyAll(Flowable<String> ids) {
 
-        return null;
-      }
-    });
+    return destroyAll(ids, base().airtable().getConfig().getBatchConcurrency());
   }
 
   /**
-   * Get List of records of response.
+   * Delete records of given ids, up to 10 records per request.
+   *
+   * <p>Ids are requested from the source only as far as batches can be sent. The result of every
+   * id is emitted as soon as its request completes, with the id as item and result. If a request
+   * fails, all ids of the batch get the error and the remaining batches are still sent.</p>
+   *
+   * @param ids ids of the records to be deleted
+   * @param maxConcurrency maximum number of requests running at the same time.
+   * @return result of every id, in the order the requests complete.
    */
-  private List<T> getList(Records records) {
+  public Flowable<RecordResult<String>> destroyAll(Flowable<String> ids, int maxConcurrency) {
 
-    final List<T> list = new ArrayList<>();
+    return ids
+        .buffer(BATCH_SIZE)
+        .flatMap(batch -> destroyBatch(batch).subscribeOn(Schedulers.io()), maxConcurrency);
+  }
 
-    for (Map<String, Object> record : records.getRecords()) {
-      T item = null;
-      try {
-        item = transform(record, this.type.newInstance());
-      } catch (InstantiationException | IllegalAccessException e) {
-        Timber.e(e, e.getMessage());
-      }
-      list.add(item);
-    }
+  /**
+   * Delete all records matching the query.
+   *
+   * <p>The ids are read by a scan without fields, which is consumed while the records are deleted
+   * batch by batch, so the ids are never held in memory at once. Fields, sort and page size of the
+   * query are ignored.</p>
+   *
+   * @param query query selecting the records to be deleted
+   * @return result of every deleted id.
+   * @see #destroyAll(Flowable, int)
+   */
+  public Flowable<RecordResult<String>> destroyWhere(final Query query) {
 
-    return list;
+    return destroyAll(scanIds(query));
   }
 
   /**
-   * Find record by given id.
+   * Scan the ids of the records matching a query, without their fields.
    *
-   * @param id id of record.
-   * @return searched record.
+   * @param query the query, its fields, sort and page size are ignored.
+   * @return ids of all pages.
    */
-  public Maybe<T> find(String id) {
+  Flowable<String> scanIds(Query query) {
+
+    Query idQuery = new ImmutableQuery.Builder()
+        .maxRecords(query.getMaxRecords())
+        .view(query.getView())
+        .filterByFormula(query.filterByFormula())
+        .fields(NO_FIELDS)
+        .pageSize(MAX_PAGE_SIZE)
+        .build();
+
+    return scan(getParameters(idQuery), FIRST_PAGE, ID_PAGE, 0, new ScanStats())
+        .map(RecordItem::getId);
+  }
 
-    final String BASE_URL = getTableEndpointUrl() + "/{id}";
+  /**
+   * Send a batch of deletes and emit the result of every id.
+   */
+  private Flowable<RecordResult<String>> destroyBatch(List<String> ids) {
 
-    return Rx2AndroidNetworking.get(BASE_URL)
-        .addPathParameter("id", id)
+    QueryParameters params = new QueryParameters();
+    for (String id : ids) {
+      params.add("records[]", id);
+    }
+
+    return Rx2AndroidNetworking.delete(params.appendTo(getTableEndpointUrl()))
         .setPriority(Priority.MEDIUM)
         .build()
-        .getObjectObservable(RecordItem.class)
+        .getObjectObservable(Deletes.class)
+        .compose(throttled(true))
+        .flatMapIterable(deletes -> {
+          Set<String> deleted = new HashSet<>();
+          for (Delete delete : deletes.getRecords()) {
+            if (delete.isDeleted()) {
+              deleted.add(delete.getId());
+            }
+          }
+
+          List<RecordResult<String>> results = new ArrayList<>();
+          for (String id : ids) {
+            if (deleted.contains(id)) {
+              uncache(id);
+              results.add(RecordResult.success(id, id));
+            } else {
+              results.add(RecordResult.failure(id,
+                  new AirtableException("Record not deleted: " + id)));
+            }
+          }
+
+          return results;
+        })
         .onErrorResumeNext(throwable -> {
 
-          return Observable.error(new AirtableException(throwable));
+          return Observable.fromIterable(failures(ids, new AirtableException(throwable)));
         })
-        .map(record -> transform(record, type.newInstance()))
-        .singleElement();
+        .doFinally(this::invalidateQueries)
+        .toFlowable(BackpressureStrategy.BUFFER);
   }
 
   /**
-   * Create Record of given Item
+   * Write items in batches of up to 10 records per request.
    *
-   * @param item the item to be created
-   * @return the created item
+   * @param items the items to be written
+   * @param maxConcurrency maximum number of requests running at the same time.
+   * @param request creates the request of a batch.
+   * @param toRecord converts an item to the record to send, fails for invalid items.
+   * @param serializeNulls true to send null values, to clear the fields.
+   * @return result of every item, in the order the requests complete.
    */
-  public Maybe<T> create(T item) {
+  private Flowable<RecordResult<T>> writeAll(Flowable<T> items, int maxConcurrency,
+      Callable<Rx2ANRequest.PostRequestBuilder> request,
+      Function<T, PostRecord<Map<String, Object>>> toRecord, boolean serializeNulls) {
+
+    return items
+        .buffer(BATCH_SIZE)
+        .flatMap(batch -> {
+          List<T> valid = new ArrayList<>();
+          List<PostRecord<Map<String, Object>>> records = new ArrayList<>();
+          List<RecordResult<T>> invalid = new ArrayList<>();
+
+          for (T item : batch) {
+            try {
+              records.add(toRecord.apply(item));
+              valid.add(item);
+            } catch (Exception ex) {
+              invalid.add(RecordResult.failure(item, ex));
+            }
+          }
 
-    JSONObject jsonObject;
-    try {
-      checkProperties(item);
+          Flowable<RecordResult<T>> results = Flowable.fromIterable(invalid);
+          if (valid.isEmpty()) {
+            return results;
+          }
 
-      PostRecord body = new PostRecord<>();
-      body.setFields(item);
+          return results.concatWith(
+              writeBatch(request.call(), valid, records, serializeNulls)
+                  .subscribeOn(Schedulers.io()));
+        }, maxConcurrency);
+  }
 
-      Gson gson = new GsonBuilder().setDateFormat(DATE_FORMAT).create();
-      jsonObject = new JSONObject(gson.toJson(body));
+  /**
+   * Send a batch of records and emit the result of every item.
+   *
+   * @param request request to send the batch with.
+   * @param items items of the batch.
+   * @param records records to send, in the order of the items.
+   * @param serializeNulls true to send null values, to clear the fields.
+   * @return result of every item.
+   */
+  private Flowable<RecordResult<T>> writeBatch(Rx2ANRequest.PostRequestBuilder request,
+      List<T> items, List<PostRecord<Map<String, Object>>> records, boolean serializeNulls) {
 
+    byte[] body;
+    try {
+      body = WRITER.writeRecords(records, serializeNulls);
     } catch (Exception ex) {
-      return Maybe.create(subscriber -> subscriber.onError(ex));
+      return Flowable.fromIterable(failures(items, ex));
     }
 
-    final String BASE_URL = getTableEndpointUrl();
-
-    return Rx2AndroidNetworking.post(BASE_URL)
-        .addJSONObjectBody(jsonObject)
+    return request
+        .addByteBody(body)
         .setContentType("application/json; charset=utf-8")
         .setPriority(Priority.MEDIUM)
         .build()
-        .getObjectObservable(RecordItem.class)
+        .getParseObservable(pageType)
+        .compose(throttled(true))
+        .flatMapIterable(page -> {
+          List<T> written = page.getItems();
+          List<RecordResult<T>> results = new ArrayList<>();
+
+          for (int i = 0; i < items.size(); i++) {
+            if (i < written.size()) {
+              cache(written.get(i));
+              results.add(RecordResult.success(items.get(i), written.get(i)));
+            } else {
+              results.add(RecordResult.failure(items.get(i),
+                  new AirtableException("Record missing in response")));
+            }
+          }
+
+          return results;
+        })
         .onErrorResumeNext(throwable -> {
 
-          return Observable.error(new AirtableException(throwable));
+          return Observable.fromIterable(failures(items, new AirtableException(throwable)));
         })
-        .map(record -> transform(record, type.newInstance()))
-        .singleElement();
+        .doFinally(this::invalidateQueries)
+        .toFlowable(BackpressureStrategy.BUFFER);
   }
 
-  public Maybe<T> update(T item) {
+  /**
+   * Get a failed result of every item.
+   */
+  private static <T> List<RecordResult<T>> failures(List<T> items, Throwable error) {
 
-    String id;
-    JSONObject jsonObject;
-    try {
-      id = getIdOfItem(item);
+    List<RecordResult<T>> results = new ArrayList<>();
+    for (T item : items) {
+      results.add(RecordResult.failure(item, error));
+    }
 
-      PostRecord body = new PostRecord<T>();
-      body.setFields(filterFields(item));
+    return results;
+  }
 
-      Gson gson = new GsonBuilder()
-          .setDateFormat(DATE_FORMAT)
-          .serializeNulls()
-          .create();
-      jsonObject = new JSONObject(gson.toJson(body));
+  /**
+   * Put a copy of the item to the record cache and its snapshot to the snapshot cache, if
+   * enabled.
+   */
+  private void cache(T item) throws Exception {
 
-    } catch (Exception ex) {
-      return Maybe.create(subscriber -> subscriber.onError(ex));
+    if (recordCache != null || snapshotCache != null) {
+      Object id = mapper().get(item, "id");
+      if (id == null) {
+        return;
+      }
+      if (recordCache != null) {
+        recordCache.put(id.toString(), copy(item));
+      }
+      if (snapshotCache != null) {
+        snapshotCache.put(id.toString(),
+            SNAPSHOT_GSON.toJsonTree(filterFields(item)).getAsJsonObject());
+      }
     }
+  }
 
-    final String BASE_URL = getTableEndpointUrl() + "/{id}";
-
-    return Rx2AndroidNetworking.patch(BASE_URL)
-        .addPathParameter("id", id)
-        .addJSONObjectBody(jsonObject)
-        .setContentType("application/json; charset=utf-8")
-        .setPriority(Priority.MEDIUM)
-        .build()
-        .getObjectObservable(RecordItem.class)
-        .onErrorResumeNext(throwable -> {
+  private void cacheAll(List<T> items) throws Exception {
 
-          return Observable.error(new AirtableException(throwable));
-        })
-        .map(record -> transform(record, type.newInstance()))
-        .singleElement();
+    if (recordCache != null || snapshotCache != null) {
+      for (T item : items) {
+        cache(item);
+      }
+    }
   }
 
-  public T replace(T item) {
+  /**
+   * Remove the record from the record and snapshot caches, if enabled.
+   */
+  private void uncache(String id) {
 
-    throw new UnsupportedOperationException("not yet implemented");
+    if (recordCache != null) {
+      recordCache.remove(id);
+    }
+    if (snapshotCache != null) {
+      snapshotCache.remove(id);
+    }
   }
 
   /**
-   * Delete Record by given id
+   * Invalidate the cached query results after a write, if enabled.
    */
+  private void invalidateQueries() {
 
-  public Maybe<Boolean> destroy(final String id) {
-
-    final String BASE_URL = getTableEndpointUrl() + "/{id}";
+    if (queryCache != null) {
+      queryCache.invalidate();
+    }
+  }
 
-    return Rx2AndroidNetworking.delete(BASE_URL)
-        .addPathParameter("id", id)
-        .setPriority(Priority.MEDIUM)
-        .build()
-        .getObjectObservable(Delete.class)
-        .onErrorResumeNext(throwable -> {
+  /**
+   * Delay the request until the rate limiter of the base grants a permit and retry it as
+   * configured by the retry policy, acquiring a new permit for every attempt.
+   *
+   * @param write true if the request writes records.
+   */
+  private <R> ObservableTransformer<R, R> throttled(boolean write) {
 
-          return Observable.error(new AirtableException(throwable));
-        })
-        .map(Delete::isDeleted)
-        .singleElement();
+    return request -> base().limiter().acquire().andThen(request)
+        .compose(base().retrier().retry(write));
   }
 
   /**
    *
    * @return
    */
-  private Base base() {
+  Base base() {
 
     return parent;
   }
@@ -561,171 +1316,197 @@ public class Table<T> {
   }
 
   /**
-   * @throws IllegalAccessException
-   * @throws InstantiationException
+   * Get the mapper of records to items, shared by all tables.
    */
-  private T transform(Map<String, Object> record, T retval) {
+  private EntityMapper<T> mapper() {
 
-    for (String key : record.keySet()) {
-      if ("fields".equals(key)) {
-        //noinspection unchecked
-        retval = transform((Map<String, Object>) record.get("fields"), retval);
-      } else {
-        setProperty(retval, key, record.get(key));
-      }
+    if (mapper == null) {
+      mapper = (parent != null) ? parent.mapper(type) : EntityMappers.get(type);
     }
 
-    return retval;
+    return mapper;
   }
 
   /**
-   * @throws InvocationTargetException
-   * @throws IllegalAccessException
+   * Set the values of the record to the item.
    */
   private T transform(RecordItem record, T retval) {
 
-    setProperty(retval, "id", record.getId());
-    setProperty(retval, "createdTime", record.getCreatedTime());
-
-    retval = transform(record.getFields(), retval);
-
-    return retval;
+    return mapper().map(record, retval);
   }
 
   /**
-   * @throws IllegalAccessException
-   * @throws InvocationTargetException
+   * Checks if the Property Values of the item are valid for the Request.
    */
-  private void setProperty(T retval, String key, Object value) {
+  @SuppressWarnings("unchecked")
+  private void checkProperties(T item)
+      throws AirtableException {
+
+    for (String name : new String[]{"id", "createdTime"}) {
+      if (mapper().get(item, name) != null) {
+        throw new AirtableException("Property " + name + " should be null!");
+      }
+    }
 
-    String property = key2property(key);
+    Object photos = mapper().get(item, "photos");
+    if (photos instanceof List) {
+      checkPropertiesOfAttachement((List<Attachment>) photos);
+    }
+  }
 
-    for (Field f : this.type.getDeclaredFields()) {
-      final SerializedName annotation = f.getAnnotation(SerializedName.class);
+  private void checkPropertiesOfAttachement(List<Attachment> attachements)
+      throws AirtableException {
 
-      if (annotation != null && property.equalsIgnoreCase(annotation.value())) {
-        property = f.getName();
-        break;
+    if (attachements != null) {
+      EntityMapper<Attachment> attachmentMapper = base().mapper(Attachment.class);
+      for (Attachment attachement : attachements) {
+        for (String name : new String[]{"id", "size", "type", "filename"}) {
+          if (attachement != null && attachmentMapper.get(attachement, name) != null) {
+            throw new AirtableException("Property " + name + " should be null!");
+          }
+        }
       }
     }
+  }
+
+  /**
+   * Get the String Id from the item.
+   */
+
+  String getIdOfItem(T item)
+      throws AirtableException {
 
-    if (propertyExists(retval, property)) {
-      BeanUtil.pojo.setProperty(retval, property, value);
-    } else {
-      Timber.w(
-          retval.getClass() + " does not support public setter for existing property [" + property
-              + "]");
+    Object id = mapper().get(item, "id");
+    if (id != null) {
+      return id.toString();
     }
+    throw new AirtableException("Id of " + item + " not Found!");
+  }
+
+  /**
+   * Convert the item to the record of an update or replace request.
+   */
+  private PostRecord<Map<String, Object>> toUpdateRecord(T item) throws AirtableException {
+
+    String id = getIdOfItem(item);
+
+    UpdateRecord<Map<String, Object>> record = new UpdateRecord<>();
+    record.setId(id);
+    record.setFields(changedFields(item, id));
+
+    return record;
+  }
+
+  /**
+   * Filter the Fields of the item for the PostRecord Object. Id and created Time are not contained
+   * so the Object Mapper doesn't convert them to JSON. The item is not modified.
+   */
+  Map<String, Object> filterFields(T item) {
+
+    return mapper().getFields(item);
   }
 
   /**
-   * Convert AirTable ColumnName to Java PropertyName.
+   * Convert an item to a record as returned by Airtable, with its id and fields.
    */
-  private String key2property(String key) {
+  JsonObject toRecord(T item) throws Exception {
 
-    if (key.contains(" ") || key.contains("-")) {
-      Timber.w("Annotate columns having special characters by using @SerializedName for property: ["
-          + key + "]");
+    JsonObject record = new JsonObject();
+    record.addProperty("id", getIdOfItem(item));
+    Object createdTime = mapper().get(item, "createdTime");
+    if (createdTime != null) {
+      record.add("createdTime", SNAPSHOT_GSON.toJsonTree(createdTime));
     }
-    String property = key.trim();
-    property = property.substring(0, 1).toLowerCase() + property.substring(1, property.length());
+    record.add("fields", toJson(filterFields(item)));
 
-    return property;
+    return record;
   }
 
   /**
-   * Check if writable property exists.
-   *
-   * @param bean bean to inspect
-   * @param property name of property
-   * @return true if writable property exists.
+   * Convert fields to JSON the way they are sent.
    */
-  private static boolean propertyExists(Object bean, String property) {
+  JsonObject toJson(Map<String, Object> fields) {
 
-    return BeanUtil.pojo.hasProperty(bean, property);
+    return SNAPSHOT_GSON.toJsonTree(fields).getAsJsonObject();
   }
 
   /**
-   * Checks if the Property Values of the item are valid for the Request.
+   * Convert a record written by {@link #toRecord(Object)} back to an item.
    */
-  private void checkProperties(T item)
-      throws AirtableException {
+  T fromRecord(JsonObject record) throws Exception {
 
-    if (propertyExists(item, "id") || propertyExists(item, "createdTime")) {
-      Field[] attributes = item.getClass().getDeclaredFields();
-      for (Field attribute : attributes) {
-        String name = attribute.getName();
-        if (name.equals("id") || name.equals("createdTime")) {
-          if (BeanUtil.pojo.getProperty(item, attribute.getName()) != null) {
-            throw new AirtableException("Property " + name + " should be null!");
-          }
-        } else if (name.equals("photos")) {
+    return transform(SNAPSHOT_GSON.fromJson(record, RecordItem.class), mapper().newInstance());
+  }
 
-          List<Attachment> obj = BeanUtil.pojo.getProperty(item, "photos");
-          checkPropertiesOfAttachement(obj);
-        }
-      }
-    }
+  /**
+   * Copy an item through its record, so items cached or shared with other callers are not
+   * changed when a caller modifies its item.
+   */
+  T copy(T item) throws Exception {
+
+    return fromRecord(toRecord(item));
   }
 
-  private void checkPropertiesOfAttachement(List<Attachment> attachements)
-      throws AirtableException {
+  /**
+   * Copy items, see {@link #copy(Object)}.
+   */
+  List<T> copyAll(List<T> items) throws Exception {
 
-    if (attachements != null) {
-      for (int i = 0; i < attachements.size(); i++) {
-        if (propertyExists(attachements.get(i), "id")
-            || propertyExists(attachements.get(i), "size")
-            || propertyExists(attachements.get(i), "type")
-            || propertyExists(attachements.get(i), "filename")) {
-          Field[] attributesPhotos = attachements.getClass().getDeclaredFields();
-          for (Field attributePhoto : attributesPhotos) {
-            String namePhotoAttribute = attributePhoto.getName();
-            if (namePhotoAttribute.equals("id") || namePhotoAttribute.equals("size")
-                || namePhotoAttribute.equals("Tpye") || namePhotoAttribute.equals("filename")) {
-              if (BeanUtil.pojo.getProperty(attachements.get(i), namePhotoAttribute) != null) {
-                throw new AirtableException("Property " + namePhotoAttribute + " should be null!");
-              }
-            }
-          }
-        }
-      }
+    List<T> copies = new ArrayList<>(items.size());
+    for (T item : items) {
+      copies.add(copy(item));
     }
+
+    return copies;
   }
 
   /**
-   * Get the String Id from the item.
+   * Get the fields changed since the snapshot of the record, all fields if there is no snapshot.
    */
+  Map<String, Object> changedFields(T item, String id) {
 
-  private String getIdOfItem(T item)
-      throws AirtableException {
+    return changedFields(item, snapshotOf(id));
+  }
 
-    if (propertyExists(item, "id")) {
-      String id = BeanUtil.pojo.getProperty(item, "id");
-      if (id != null) {
-        return id;
-      }
-    }
-    throw new AirtableException("Id of " + item + " not Found!");
+  /**
+   * Get the snapshot of a record, null if snapshots are not cached or the record is not cached.
+   */
+  JsonObject snapshotOf(String id) {
+
+    return (snapshotCache != null) ? snapshotCache.get(id) : null;
   }
 
   /**
-   * Filter the Fields of the PostRecord Object. Id and created Time are set to null so Object
-   * Mapper doesent convert them to JSON.
+   * Get a copy of a snapshot with the given fields set, as if they were written.
    */
-  private T filterFields(T item) {
+  JsonObject withFields(JsonObject snapshot, Map<String, Object> fields) {
+
+    JsonObject copy = snapshot.deepCopy();
+    for (Map.Entry<String, Object> field : fields.entrySet()) {
+      copy.add(field.getKey(), SNAPSHOT_GSON.toJsonTree(field.getValue()));
+    }
+
+    return copy;
+  }
 
-    System.out.println(item);
+  /**
+   * Get the fields changed since the given snapshot, all fields if the snapshot is null.
+   */
+  Map<String, Object> changedFields(T item, JsonObject snapshot) {
 
-    Field[] attributes = item.getClass().getDeclaredFields();
+    Map<String, Object> fields = filterFields(item);
+    if (snapshot == null) {
+      return fields;
+    }
 
-    for (Field attribute : attributes) {
-      String name = attribute.getName();
-      if ((name.equals("id") || name.equals("createdTime")) && (
-          BeanUtil.pojo.getProperty(item, name) != null)) {
-        BeanUtil.pojo.setProperty(item, name, null);
+    Map<String, Object> changed = new LinkedHashMap<>();
+    for (Map.Entry<String, Object> field : fields.entrySet()) {
+      JsonElement value = SNAPSHOT_GSON.toJsonTree(field.getValue());
+      if (!value.equals(snapshot.get(field.getKey()))) {
+        changed.put(field.getKey(), field.getValue());
       }
     }
 
-    return item;
+    return changed;
   }
 }
@@ -0,0 +1,388 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid;
+
+import com.google.gson.JsonObject;
+import com.sybit.airtableandroid.vo.UpdateRecord;
+import io.reactivex.Completable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.CompletableSubject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import timber.log.Timber;
+
+/**
+ * Buffers updates of a table and sends them by batch PATCH requests.
+ *
+ * <p>The fields of an update are read when it is buffered. If the table tracks snapshots, only
+ * the fields changed since the snapshot and the updates buffered or being sent are read, so a
+ * field edited back to its snapshot value is sent too. Successive updates of the same record
+ * are merged field by field, the last value of a field wins. Buffered records are sent when the
+ * window after the first buffered update elapsed, as soon as a full batch of 10 records is
+ * buffered, or when {@link #flush()} is called. A record is not sent again before its previous
+ * request completed, so updates of a record are applied in order.</p>
+ *
+ * <p>Updates without changed fields complete immediately. Failed updates are not sent again, the
+ * retry policy of the base applies to every request. The ids of records whose updates failed
+ * are kept by {@link #getFailedIds()} until a later update of the record succeeds. Instances
+ * are thread safe.</p>
+ *
+ * @param <T> class of items
+ */
+public class WriteBehind<T> {
+
+  private final Table<T> table;
+  private final long windowNanos;
+
+  private final Map<String, Pending<T>> pending = new LinkedHashMap<>();
+
+  /**
+   * Records being sent by id.
+   */
+  private final Map<String, Pending<T>> inFlight = new HashMap<>();
+
+  /**
+   * Completions of all updates buffered or sent.
+   */
+  private final List<CompletableSubject> unfinished = new ArrayList<>();
+
+  /**
+   * Ids of the records whose last sent update failed, in order of failure.
+   */
+  private final Set<String> failedIds = new LinkedHashSet<>();
+
+  private Disposable timer;
+
+  /**
+   * True while a flush waits for records being sent, to send their next updates at once.
+   */
+  private boolean flushing;
+
+  private final AtomicLong updates = new AtomicLong();
+  private final AtomicLong merges = new AtomicLong();
+  private final AtomicLong sent = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
+  /**
+   * @param table table of the records.
+   * @param window time updates are buffered before they are sent.
+   * @param unit unit of <code>window</code>.
+   */
+  public WriteBehind(Table<T> table, long window, TimeUnit unit) {
+
+    this.table = table;
+    this.windowNanos = unit.toNanos(window);
+  }
+
+  /**
+   * Buffer the update of an item.
+   *
+   * <p>The update is buffered immediately, subscribing is only needed to observe its
+   * completion.</p>
+   *
+   * @param item the item to be updated, with id.
+   * @return completes when the request containing the update succeeded, fails with the error of
+   *     the request.
+   */
+  public Completable update(T item) {
+
+    CompletableSubject completion = CompletableSubject.create();
+    String id;
+    JsonObject snapshot;
+    try {
+      id = table.getIdOfItem(item);
+      snapshot = table.snapshotOf(id);
+    } catch (Exception ex) {
+      completion.onError(ex);
+      return completion;
+    }
+
+    boolean full;
+    synchronized (this) {
+      Map<String, Object> fields;
+      try {
+        fields = table.changedFields(item, unsent(id, snapshot));
+      } catch (Exception ex) {
+        completion.onError(ex);
+        return completion;
+      }
+      if (fields.isEmpty()) {
+        return Completable.complete();
+      }
+
+      updates.incrementAndGet();
+
+      Pending<T> record = pending.get(id);
+      if (record == null) {
+        record = new Pending<>(id);
+        pending.put(id, record);
+      } else {
+        merges.incrementAndGet();
+      }
+      record.item = item;
+      record.fields.putAll(fields);
+      record.completions.add(completion);
+      unfinished.add(completion);
+
+      full = sendable() >= Table.BATCH_SIZE;
+      if (!full && timer == null) {
+        timer = Schedulers.io().scheduleDirect(this::send, windowNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    if (full) {
+      send();
+    }
+
+    return completion;
+  }
+
+  /**
+   * Send all buffered updates now.
+   *
+   * <p>Updates of records being sent are sent as soon as their previous request completed.</p>
+   *
+   * @return completes when all updates buffered or sent before the call are completed, fails
+   *     with the first error if any of them failed.
+   */
+  public Completable flush() {
+
+    List<CompletableSubject> completions;
+    synchronized (this) {
+      completions = new ArrayList<>(unfinished);
+      flushing = !pending.isEmpty() || !inFlight.isEmpty();
+    }
+
+    send();
+
+    return Completable.mergeDelayError(completions);
+  }
+
+  /**
+   * @return number of records with buffered updates.
+   */
+  public synchronized int getPendingCount() {
+
+    return pending.size();
+  }
+
+  /**
+   * @return number of buffered updates.
+   */
+  public long getUpdates() {
+
+    return updates.get();
+  }
+
+  /**
+   * @return number of updates merged into the buffered update of the same record.
+   */
+  public long getMerges() {
+
+    return merges.get();
+  }
+
+  /**
+   * @return number of records sent successfully.
+   */
+  public long getSent() {
+
+    return sent.get();
+  }
+
+  /**
+   * @return number of records failed to be sent.
+   */
+  public long getFailed() {
+
+    return failed.get();
+  }
+
+  /**
+   * @return ids of the records whose updates were lost because their request failed, and were
+   *     not updated successfully since.
+   */
+  public synchronized List<String> getFailedIds() {
+
+    return new ArrayList<>(failedIds);
+  }
+
+  /**
+   * Get the snapshot of a record overlaid with the fields being sent and buffered, so an update
+   * reverting a field to its snapshot value is buffered too. Must hold the lock.
+   */
+  private JsonObject unsent(String id, JsonObject snapshot) {
+
+    if (snapshot == null) {
+      return null;
+    }
+
+    Pending<T> sending = inFlight.get(id);
+    if (sending != null) {
+      snapshot = table.withFields(snapshot, sending.fields);
+    }
+    Pending<T> buffered = pending.get(id);
+    if (buffered != null) {
+      snapshot = table.withFields(snapshot, buffered.fields);
+    }
+
+    return snapshot;
+  }
+
+  /**
+   * Number of buffered records not being sent, must hold the lock.
+   */
+  private int sendable() {
+
+    int count = 0;
+    for (String id : pending.keySet()) {
+      if (!inFlight.containsKey(id)) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Send the buffered records not being sent.
+   */
+  private void send() {
+
+    List<T> items = new ArrayList<>();
+    Map<T, Pending<T>> batch = new IdentityHashMap<>();
+    synchronized (this) {
+      if (timer != null) {
+        timer.dispose();
+        timer = null;
+      }
+
+      Iterator<Pending<T>> iterator = pending.values().iterator();
+      while (iterator.hasNext()) {
+        Pending<T> record = iterator.next();
+        if (!inFlight.containsKey(record.id)) {
+          iterator.remove();
+          inFlight.put(record.id, record);
+          items.add(record.item);
+          batch.put(record.item, record);
+        }
+      }
+    }
+
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    //noinspection ResultOfMethodCallIgnored
+    table.patchAll(items, item -> {
+      Pending<T> record = batch.get(item);
+      UpdateRecord<Map<String, Object>> body = new UpdateRecord<>();
+      body.setId(record.id);
+      body.setFields(record.fields);
+
+      return body;
+    })
+        .doOnNext(result -> complete(batch.get(result.getItem()), result.getError()))
+        .ignoreElements()
+        .subscribe(this::requestCompleted, error -> {
+          for (Pending<T> record : batch.values()) {
+            complete(record, error);
+          }
+          requestCompleted();
+        });
+  }
+
+  private void complete(Pending<T> record, Throwable error) {
+
+    synchronized (this) {
+      if (inFlight.remove(record.id) == null) {
+        return;
+      }
+      unfinished.removeAll(record.completions);
+      failedIds.remove(record.id);
+      if (error != null) {
+        failedIds.add(record.id);
+      }
+    }
+
+    if (error == null) {
+      sent.incrementAndGet();
+    } else {
+      failed.incrementAndGet();
+      Timber.w(error, "Update of record [" + record.id + "] in table [" + table.name()
+          + "] failed, fields lost: " + record.fields.keySet());
+    }
+    for (CompletableSubject completion : record.completions) {
+      if (error == null) {
+        completion.onComplete();
+      } else {
+        completion.onError(error);
+      }
+    }
+  }
+
+  /**
+   * Continue after a request completed: send updates buffered meanwhile at once if a flush
+   * waits for them, or when the window elapsed.
+   */
+  private void requestCompleted() {
+
+    boolean now;
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        if (inFlight.isEmpty()) {
+          flushing = false;
+        }
+        return;
+      }
+      now = flushing || sendable() >= Table.BATCH_SIZE;
+      if (!now && timer == null) {
+        timer = Schedulers.io().scheduleDirect(this::send, windowNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    if (now) {
+      send();
+    }
+  }
+
+  @Override
+  public String toString() {
+
+    return "WriteBehind{pending=" + getPendingCount()
+        + ", updates=" + getUpdates()
+        + ", merges=" + getMerges()
+        + ", sent=" + getSent()
+        + ", failed=" + getFailed() + "}";
+  }
+
+  /**
+   * Buffered update of a record.
+   */
+  private static final class Pending<T> {
+
+    private final String id;
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+    private final List<CompletableSubject> completions = new ArrayList<>();
+    private T item;
+
+    Pending(String id) {
+
+      this.id = id;
+    }
+  }
+}
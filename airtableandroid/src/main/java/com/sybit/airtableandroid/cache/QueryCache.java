@@ -0,0 +1,255 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.cache;
+
+import com.sybit.airtableandroid.Query;
+import com.sybit.airtableandroid.Sort;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of query results of a table, bounded in size and age.
+ *
+ * <p>Results are cached by the canonical form of the query, see {@link #key(Query)}. The table
+ * invalidates all results when it writes records. A result loaded while the cache was
+ * invalidated is not cached, so a select running concurrently with a write never caches the
+ * state before the write.</p>
+ *
+ * <p>Cached lists are unmodifiable. A table caches copies of the items and returns copies of
+ * every hit, so callers may modify their items. Instances are thread safe.</p>
+ *
+ * @param <T> class of items
+ */
+public class QueryCache<T> {
+
+  private final int maxSize;
+  private final long ttlNanos;
+
+  private final LinkedHashMap<String, Entry<T>> entries;
+
+  /**
+   * Incremented by every invalidation.
+   */
+  private long generation;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /**
+   * @param maxSize maximum number of cached results.
+   * @param ttl time to live of cached results.
+   * @param unit unit of <code>ttl</code>.
+   */
+  public QueryCache(int maxSize, long ttl, TimeUnit unit) {
+
+    this.maxSize = maxSize;
+    this.ttlNanos = unit.toNanos(ttl);
+    this.entries = new LinkedHashMap<String, Entry<T>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+
+        return size() > QueryCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * Get the canonical form of a query.
+   *
+   * <p>Queries with the same fields, in any order, and the same view, formula, sort, maximum
+   * number of records and page size get the same key.</p>
+   *
+   * @param query the query.
+   * @return key of the query.
+   */
+  public static String key(Query query) {
+
+    return key(query, query.getFields());
+  }
+
+  /**
+   * Get the canonical form of a query requesting the given fields.
+   *
+   * @param query the query.
+   * @param fields fields requested for the query, e.g. the columns of the entity class when the
+   *     table projects queries without fields; null for all columns.
+   * @return key of the query.
+   */
+  public static String key(Query query, String[] fields) {
+
+    StringBuilder key = new StringBuilder();
+
+    if (fields != null) {
+      String[] sorted = Arrays.copyOf(fields, fields.length);
+      Arrays.sort(sorted);
+      key.append('f').append(sorted.length);
+      for (String field : sorted) {
+        append(key, field);
+      }
+    }
+    key.append('v');
+    append(key, query.getView());
+    key.append('w');
+    append(key, query.filterByFormula());
+    key.append('m');
+    append(key, query.getMaxRecords());
+    key.append('p');
+    append(key, query.getPageSize());
+
+    List<Sort> sorts = query.getSort();
+    if (sorts != null) {
+      key.append('s').append(sorts.size());
+      for (Sort sort : sorts) {
+        append(key, sort.getField());
+        append(key, sort.getDirection());
+      }
+    }
+
+    return key.toString();
+  }
+
+  /**
+   * Append a value with its length, so different queries never get the same key.
+   */
+  private static void append(StringBuilder key, Object value) {
+
+    if (value == null) {
+      key.append('-');
+    } else {
+      String string = value.toString();
+      key.append(string.length()).append(':').append(string);
+    }
+  }
+
+  /**
+   * Get a cached result.
+   *
+   * @param key key of the query.
+   * @return the result, null if it is not cached or expired.
+   */
+  public synchronized List<T> get(String key) {
+
+    Entry<T> entry = entries.get(key);
+    if (entry != null && entry.expires - now() <= 0) {
+      entries.remove(key);
+      entry = null;
+    }
+
+    if (entry == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+
+    hits.incrementAndGet();
+
+    return entry.items;
+  }
+
+  /**
+   * @return current generation, to be passed to {@link #put(String, List, long)}.
+   */
+  public synchronized long generation() {
+
+    return generation;
+  }
+
+  /**
+   * Cache a result, unless the cache was invalidated since the query was started.
+   *
+   * @param key key of the query.
+   * @param items result of the query.
+   * @param generation generation when the query was started.
+   * @return the cached, unmodifiable result.
+   */
+  public synchronized List<T> put(String key, List<T> items, long generation) {
+
+    List<T> result = Collections.unmodifiableList(new ArrayList<>(items));
+    if (generation == this.generation) {
+      entries.put(key, new Entry<>(result, now() + ttlNanos));
+    }
+
+    return result;
+  }
+
+  /**
+   * Remove all results.
+   */
+  public synchronized void invalidate() {
+
+    generation++;
+    entries.clear();
+    invalidations.incrementAndGet();
+  }
+
+  /**
+   * @return number of cached results, including expired ones not yet removed.
+   */
+  public synchronized int size() {
+
+    return entries.size();
+  }
+
+  /**
+   * @return number of results found in the cache.
+   */
+  public long getHits() {
+
+    return hits.get();
+  }
+
+  /**
+   * @return number of results not found in the cache.
+   */
+  public long getMisses() {
+
+    return misses.get();
+  }
+
+  /**
+   * @return number of invalidations by writes.
+   */
+  public long getInvalidations() {
+
+    return invalidations.get();
+  }
+
+  /**
+   * @return current time in nanoseconds.
+   */
+  protected long now() {
+
+    return System.nanoTime();
+  }
+
+  @Override
+  public String toString() {
+
+    return "QueryCache{size=" + size()
+        + ", hits=" + getHits()
+        + ", misses=" + getMisses()
+        + ", invalidations=" + getInvalidations() + "}";
+  }
+
+  private static final class Entry<T> {
+
+    private final List<T> items;
+    private final long expires;
+
+    Entry(List<T> items, long expires) {
+
+      this.items = items;
+      this.expires = expires;
+    }
+  }
+}
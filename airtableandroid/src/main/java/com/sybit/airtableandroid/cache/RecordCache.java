@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of records by id, bounded in size and age.
+ *
+ * <p>If the cache is full the least recently used record is evicted. Records older than the
+ * time to live are not returned anymore. The cached instances are returned as they are. A table
+ * puts a copy of every record to its record cache and returns a copy of every hit, so callers
+ * may modify their items. Instances are thread safe.</p>
+ *
+ * @param <T> class of items
+ */
+public class RecordCache<T> {
+
+  private final int maxSize;
+  private final long ttlNanos;
+
+  private final LinkedHashMap<String, Entry<T>> entries;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong expirations = new AtomicLong();
+
+  /**
+   * @param maxSize maximum number of cached records.
+   * @param ttl time to live of cached records.
+   * @param unit unit of <code>ttl</code>.
+   */
+  public RecordCache(int maxSize, long ttl, TimeUnit unit) {
+
+    this.maxSize = maxSize;
+    this.ttlNanos = unit.toNanos(ttl);
+    this.entries = new LinkedHashMap<String, Entry<T>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+
+        if (size() > RecordCache.this.maxSize) {
+          evictions.incrementAndGet();
+          return true;
+        }
+
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Get a cached record.
+   *
+   * @param id id of the record.
+   * @return the record, null if it is not cached or expired.
+   */
+  public synchronized T get(String id) {
+
+    Entry<T> entry = entries.get(id);
+    if (entry != null && entry.expires - now() <= 0) {
+      entries.remove(id);
+      expirations.incrementAndGet();
+      entry = null;
+    }
+
+    if (entry == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+
+    hits.incrementAndGet();
+
+    return entry.item;
+  }
+
+  /**
+   * Cache a record.
+   *
+   * @param id id of the record.
+   * @param item the record.
+   */
+  public synchronized void put(String id, T item) {
+
+    entries.put(id, new Entry<>(item, now() + ttlNanos));
+  }
+
+  /**
+   * Remove a record.
+   *
+   * @param id id of the record.
+   */
+  public synchronized void remove(String id) {
+
+    entries.remove(id);
+  }
+
+  /**
+   * Remove all records.
+   */
+  public synchronized void clear() {
+
+    entries.clear();
+  }
+
+  /**
+   * Remove expired records.
+   */
+  public synchronized void cleanUp() {
+
+    long now = now();
+    for (Iterator<Entry<T>> it = entries.values().iterator(); it.hasNext(); ) {
+      if (it.next().expires - now <= 0) {
+        it.remove();
+        expirations.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * @return number of cached records, including expired ones not yet removed.
+   */
+  public synchronized int size() {
+
+    return entries.size();
+  }
+
+  /**
+   * @return number of records found in the cache.
+   */
+  public long getHits() {
+
+    return hits.get();
+  }
+
+  /**
+   * @return number of records not found in the cache.
+   */
+  public long getMisses() {
+
+    return misses.get();
+  }
+
+  /**
+   * @return number of records evicted because the cache was full.
+   */
+  public long getEvictions() {
+
+    return evictions.get();
+  }
+
+  /**
+   * @return number of records removed because they were expired.
+   */
+  public long getExpirations() {
+
+    return expirations.get();
+  }
+
+  /**
+   * @return current time in nanoseconds.
+   */
+  protected long now() {
+
+    return System.nanoTime();
+  }
+
+  @Override
+  public String toString() {
+
+    return "RecordCache{size=" + size()
+        + ", hits=" + getHits()
+        + ", misses=" + getMisses()
+        + ", evictions=" + getEvictions()
+        + ", expirations=" + getExpirations() + "}";
+  }
+
+  private static final class Entry<T> {
+
+    private final T item;
+    private final long expires;
+
+    Entry(T item, long expires) {
+
+      this.item = item;
+      this.expires = expires;
+    }
+  }
+}
@@ -5,10 +5,10 @@
  */
 package com.sybit.airtableandroid.converter;
 
-import com.google.gson.internal.LinkedTreeMap;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import jodd.bean.BeanUtil;
 import org.apache.commons.beanutils.converters.AbstractConverter;
 
@@ -61,10 +61,10 @@ public class ListConverter extends AbstractConverter {
 
     if (value instanceof List) {
       for (T item : ((List<T>) value)) {
-        if (item instanceof LinkedTreeMap) {
+        if (item instanceof Map) {
           Object instanz = this.listClass.newInstance();
-          for (String key : ((LinkedTreeMap<String, Object>) item).keySet()) {
-            Object val = ((LinkedTreeMap) item).get(key);
+          for (String key : ((Map<String, Object>) item).keySet()) {
+            Object val = ((Map) item).get(key);
             BeanUtil.pojo.setProperty(instanz, key, val);
             //BeanUtils.setProperty(instanz,key,val);
           }
@@ -123,7 +123,7 @@ public class ListConverter extends AbstractConverter {
    */
   private List toClassList(final Class type, final Object value, List returnList) {
 
-    if (type.equals(LinkedTreeMap.class)) {
+    if (Map.class.isAssignableFrom(type)) {
       returnList.add(value);
       return returnList;
     }
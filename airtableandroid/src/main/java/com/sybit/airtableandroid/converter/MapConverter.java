@@ -5,7 +5,6 @@
  */
 package com.sybit.airtableandroid.converter;
 
-import com.google.gson.internal.LinkedTreeMap;
 import com.sybit.airtableandroid.vo.Thumbnail;
 import java.util.HashMap;
 import java.util.Map;
@@ -38,13 +37,13 @@ public class MapConverter extends AbstractConverter {
     Class<T> sourceType = (Class<T>) value.getClass();
     Map<String, Object> returnMap = new HashMap<>();
 
-    if (value instanceof LinkedTreeMap) {
-      for (String key : ((LinkedTreeMap<String, Object>) value).keySet()) {
+    if (value instanceof Map) {
+      for (String key : ((Map<String, Object>) value).keySet()) {
         Object instanz = this.mapClass.newInstance();
-        Object val = ((LinkedTreeMap) value).get(key);
+        Object val = ((Map) value).get(key);
         BeanUtils.setProperty(instanz, "name", key);
-        for (String key2 : ((LinkedTreeMap<String, Object>) val).keySet()) {
-          Object val2 = ((LinkedTreeMap) val).get(key2);
+        for (String key2 : ((Map<String, Object>) val).keySet()) {
+          Object val2 = ((Map) val).get(key2);
           BeanUtils.setProperty(instanz, key2, val2);
         }
         returnMap = toClassMap(sourceType, instanz, returnMap);
@@ -75,7 +74,7 @@ public class MapConverter extends AbstractConverter {
   private Map<String, Object> toClassMap(final Class type, final Object value,
       Map<String, Object> returnMap) {
 
-    if (type.equals(LinkedTreeMap.class)) {
+    if (Map.class.isAssignableFrom(type)) {
       if (value.getClass().equals(Thumbnail.class)) {
         returnMap.put(((Thumbnail) value).getName(), value);
       }
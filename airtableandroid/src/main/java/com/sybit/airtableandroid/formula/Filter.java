@@ -0,0 +1,446 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.formula;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Predicate on the fields of records, compiled to a formula of <code>filterByFormula</code>.
+ *
+ * <pre>
+ * Filter filter = Filter.and(
+ *     Filter.eq("Status", "open"),
+ *     Filter.between("Number", 1, 10),
+ *     Filter.not(Filter.contains("Text", "draft")));
+ * </pre>
+ *
+ * <p>Values may be strings, numbers, booleans, dates or null. Strings are quoted and escaped.
+ * Dates are compared by their day in UTC, the time of day is ignored: <code>lt</code> matches
+ * the days before the day of the value, <code>le</code> also the day itself. Filters are
+ * immutable, see {@link FormulaCompiler} to compile them.</p>
+ */
+public abstract class Filter {
+
+  /**
+   * Placeholder of a value in the template of a filter.
+   */
+  static final char VALUE = '\u0000';
+
+  Filter() {
+
+  }
+
+  /**
+   * @return filter of records whose field equals the value, or is empty if the value is null.
+   */
+  public static Filter eq(String field, Object value) {
+
+    return new Comparison(Operator.EQ, field, value);
+  }
+
+  /**
+   * @return filter of records whose field doesn't equal the value, or is not empty if the value
+   *     is null.
+   */
+  public static Filter ne(String field, Object value) {
+
+    return new Comparison(Operator.NE, field, value);
+  }
+
+  /**
+   * @return filter of records whose field is less than the value.
+   */
+  public static Filter lt(String field, Object value) {
+
+    return new Comparison(Operator.LT, field, checkNotNull(value));
+  }
+
+  /**
+   * @return filter of records whose field is less than or equal to the value.
+   */
+  public static Filter le(String field, Object value) {
+
+    return new Comparison(Operator.LE, field, checkNotNull(value));
+  }
+
+  /**
+   * @return filter of records whose field is greater than the value.
+   */
+  public static Filter gt(String field, Object value) {
+
+    return new Comparison(Operator.GT, field, checkNotNull(value));
+  }
+
+  /**
+   * @return filter of records whose field is greater than or equal to the value.
+   */
+  public static Filter ge(String field, Object value) {
+
+    return new Comparison(Operator.GE, field, checkNotNull(value));
+  }
+
+  /**
+   * @return filter of records whose field is between the values, inclusive.
+   */
+  public static Filter between(String field, Object from, Object to) {
+
+    return and(ge(field, from), le(field, to));
+  }
+
+  /**
+   * @return filter of records whose field equals any of the values, matching no records if
+   *     there are no values.
+   */
+  public static Filter in(String field, Object... values) {
+
+    return in(field, Arrays.asList(values));
+  }
+
+  /**
+   * @return filter of records whose field equals any of the values, matching no records if
+   *     there are no values.
+   */
+  public static Filter in(String field, Collection<?> values) {
+
+    List<Filter> filters = new ArrayList<>();
+    for (Object value : values) {
+      filters.add(eq(field, value));
+    }
+
+    return new Logical("OR", filters);
+  }
+
+  /**
+   * @return filter of records whose field contains the text, case sensitive.
+   */
+  public static Filter contains(String field, String text) {
+
+    return new Contains(field, checkNotNull(text));
+  }
+
+  /**
+   * @return filter of records matching all filters, all records if there are none.
+   */
+  public static Filter and(Filter... filters) {
+
+    return new Logical("AND", Arrays.asList(filters));
+  }
+
+  /**
+   * @return filter of records matching any of the filters, no records if there are none.
+   */
+  public static Filter or(Filter... filters) {
+
+    return new Logical("OR", Arrays.asList(filters));
+  }
+
+  /**
+   * @return filter of records not matching the filter.
+   */
+  public static Filter not(Filter filter) {
+
+    return new Not(checkNotNull(filter));
+  }
+
+  /**
+   * Append the shape of the filter: its structure, fields and kinds of values.
+   */
+  abstract void appendShape(StringBuilder shape);
+
+  /**
+   * Append the formula with a {@link #VALUE} placeholder for every value.
+   */
+  abstract void appendTemplate(StringBuilder template);
+
+  /**
+   * Add the values in the order of their placeholders.
+   */
+  abstract void addValues(List<Object> values);
+
+  /**
+   * Add the fields the filter refers to.
+   */
+  abstract void addFields(Collection<String> fields);
+
+  @Override
+  public String toString() {
+
+    StringBuilder shape = new StringBuilder();
+    appendShape(shape);
+    List<Object> values = new ArrayList<>();
+    addValues(values);
+
+    return "Filter{" + shape + ", values=" + values + "}";
+  }
+
+  private static <V> V checkNotNull(V value) {
+
+    if (value == null) {
+      throw new IllegalArgumentException("Value must not be null");
+    }
+
+    return value;
+  }
+
+  /**
+   * Kind of a value, deciding how it is written and compared.
+   */
+  static char kind(Object value) {
+
+    if (value == null) {
+      return 'z';
+    } else if (value instanceof String) {
+      return 's';
+    } else if (value instanceof Number) {
+      return 'n';
+    } else if (value instanceof Boolean) {
+      return 'b';
+    } else if (value instanceof Date) {
+      return 'd';
+    }
+    throw new IllegalArgumentException("Unsupported value: " + value.getClass());
+  }
+
+  private static void appendField(StringBuilder template, String field) {
+
+    template.append('{').append(field).append('}');
+  }
+
+  private enum Operator {
+    EQ("=", null), NE("!=", null), LT("<", "IS_BEFORE"), LE("<=", "IS_BEFORE"),
+    GT(">", "IS_AFTER"), GE(">=", "IS_AFTER");
+
+    private final String symbol;
+
+    /**
+     * Date function comparing the instants, combined with the same day for the ordering
+     * operators.
+     */
+    private final String dateFunction;
+
+    Operator(String symbol, String dateFunction) {
+
+      this.symbol = symbol;
+      this.dateFunction = dateFunction;
+    }
+
+    /**
+     * @return true if the value itself matches.
+     */
+    private boolean inclusive() {
+
+      return this == EQ || this == LE || this == GE;
+    }
+  }
+
+  private static final class Comparison extends Filter {
+
+    private final Operator operator;
+    private final String field;
+    private final Object value;
+    private final char kind;
+
+    Comparison(Operator operator, String field, Object value) {
+
+      this.operator = operator;
+      this.field = field;
+      this.value = value;
+      this.kind = kind(value);
+    }
+
+    @Override
+    void appendShape(StringBuilder shape) {
+
+      shape.append(operator).append('{').append(field).append('}').append(kind);
+    }
+
+    @Override
+    void appendTemplate(StringBuilder template) {
+
+      if (kind == 'z') {
+        template.append(operator == Operator.NE ? "NOT({" : "({")
+            .append(field).append("}=BLANK())");
+      } else if (kind == 'd') {
+        if (operator.dateFunction != null) {
+          // before or after the instant, and not or also on the same day
+          template.append(operator.inclusive() ? "OR(" : "AND(")
+              .append(operator.dateFunction).append('(');
+          appendField(template, field);
+          template.append(',').append(VALUE).append("),");
+        }
+        template.append(operator.inclusive() ? "IS_SAME(" : "NOT(IS_SAME(");
+        appendField(template, field);
+        template.append(',').append(VALUE).append(",'day')");
+        if (!operator.inclusive()) {
+          template.append(')');
+        }
+        if (operator.dateFunction != null) {
+          template.append(')');
+        }
+      } else {
+        appendField(template, field);
+        template.append(operator.symbol).append(VALUE);
+      }
+    }
+
+    @Override
+    void addValues(List<Object> values) {
+
+      if (kind != 'z') {
+        values.add(value);
+      }
+      if (kind == 'd' && operator.dateFunction != null) {
+        values.add(value);
+      }
+    }
+
+    @Override
+    void addFields(Collection<String> fields) {
+
+      fields.add(field);
+    }
+  }
+
+  private static final class Contains extends Filter {
+
+    private final String field;
+    private final String text;
+
+    Contains(String field, String text) {
+
+      this.field = field;
+      this.text = text;
+    }
+
+    @Override
+    void appendShape(StringBuilder shape) {
+
+      shape.append("CONTAINS{").append(field).append('}');
+    }
+
+    @Override
+    void appendTemplate(StringBuilder template) {
+
+      template.append("FIND(").append(VALUE).append(",{").append(field).append("})>0");
+    }
+
+    @Override
+    void addValues(List<Object> values) {
+
+      values.add(text);
+    }
+
+    @Override
+    void addFields(Collection<String> fields) {
+
+      fields.add(field);
+    }
+  }
+
+  private static final class Logical extends Filter {
+
+    private final String function;
+    private final List<Filter> filters;
+
+    Logical(String function, List<Filter> filters) {
+
+      for (Filter filter : filters) {
+        checkNotNull(filter);
+      }
+      this.function = function;
+      this.filters = Collections.unmodifiableList(new ArrayList<>(filters));
+    }
+
+    @Override
+    void appendShape(StringBuilder shape) {
+
+      shape.append(function).append('(');
+      for (Filter filter : filters) {
+        filter.appendShape(shape);
+        shape.append(',');
+      }
+      shape.append(')');
+    }
+
+    @Override
+    void appendTemplate(StringBuilder template) {
+
+      if (filters.isEmpty()) {
+        template.append("AND".equals(function) ? "TRUE()" : "FALSE()");
+        return;
+      }
+
+      template.append(function).append('(');
+      for (int i = 0; i < filters.size(); i++) {
+        if (i > 0) {
+          template.append(',');
+        }
+        filters.get(i).appendTemplate(template);
+      }
+      template.append(')');
+    }
+
+    @Override
+    void addValues(List<Object> values) {
+
+      for (Filter filter : filters) {
+        filter.addValues(values);
+      }
+    }
+
+    @Override
+    void addFields(Collection<String> fields) {
+
+      for (Filter filter : filters) {
+        filter.addFields(fields);
+      }
+    }
+  }
+
+  private static final class Not extends Filter {
+
+    private final Filter filter;
+
+    Not(Filter filter) {
+
+      this.filter = filter;
+    }
+
+    @Override
+    void appendShape(StringBuilder shape) {
+
+      shape.append("NOT(");
+      filter.appendShape(shape);
+      shape.append(')');
+    }
+
+    @Override
+    void appendTemplate(StringBuilder template) {
+
+      template.append("NOT(");
+      filter.appendTemplate(template);
+      template.append(')');
+    }
+
+    @Override
+    void addValues(List<Object> values) {
+
+      filter.addValues(values);
+    }
+
+    @Override
+    void addFields(Collection<String> fields) {
+
+      filter.addFields(fields);
+    }
+  }
+}
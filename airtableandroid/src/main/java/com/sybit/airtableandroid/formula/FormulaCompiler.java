@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.formula;
+
+import com.sybit.airtableandroid.mapper.EntityMapper;
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Compiles filters to formulas, validating their fields against the columns of an entity class.
+ *
+ * <p>Filters of the same shape, that is the same structure, fields and kinds of values, share a
+ * template: the fields are validated and the formula is built once per shape, later filters of
+ * the shape only insert their escaped values. The least recently used templates are dropped
+ * beyond {@link #MAX_TEMPLATES} shapes, e.g. of <code>in</code> filters with many different
+ * numbers of values. Instances are thread safe.</p>
+ */
+public class FormulaCompiler {
+
+  /**
+   * Maximum number of templates kept.
+   */
+  public static final int MAX_TEMPLATES = 64;
+
+  private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+
+  private final EntityMapper<?> mapper;
+
+  private final LinkedHashMap<String, String[]> templates =
+      new LinkedHashMap<String, String[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+
+          return size() > MAX_TEMPLATES;
+        }
+      };
+
+  /**
+   * @param mapper mapper of the entity class, whose columns the filters may refer to.
+   */
+  public FormulaCompiler(EntityMapper<?> mapper) {
+
+    this.mapper = mapper;
+  }
+
+  /**
+   * Compile a filter.
+   *
+   * @param filter the filter
+   * @return the formula
+   * @throws IllegalArgumentException if the filter refers to an empty field or to a column not
+   *     mapped by the entity class
+   */
+  public String compile(Filter filter) {
+
+    StringBuilder shape = new StringBuilder();
+    filter.appendShape(shape);
+
+    String[] parts;
+    synchronized (templates) {
+      parts = templates.get(shape.toString());
+    }
+    if (parts == null) {
+      parts = template(filter);
+      synchronized (templates) {
+        templates.put(shape.toString(), parts);
+      }
+    }
+
+    List<Object> values = new ArrayList<>();
+    filter.addValues(values);
+
+    StringBuilder formula = new StringBuilder(parts[0]);
+    for (int i = 1; i < parts.length; i++) {
+      appendValue(formula, values.get(i - 1));
+      formula.append(parts[i]);
+    }
+
+    return formula.toString();
+  }
+
+  /**
+   * @return number of shapes compiled.
+   */
+  public int getTemplateCount() {
+
+    synchronized (templates) {
+      return templates.size();
+    }
+  }
+
+  /**
+   * Validate the fields of a filter and split its template at the values.
+   */
+  private String[] template(Filter filter) {
+
+    Set<String> fields = new LinkedHashSet<>();
+    filter.addFields(fields);
+    for (String field : fields) {
+      if (field == null || field.trim().isEmpty() || field.indexOf('}') >= 0) {
+        throw new IllegalArgumentException("Invalid field: " + field);
+      }
+      if (!mapper.getColumns().contains(field) && !mapper.isMapped(field)) {
+        throw new IllegalArgumentException(
+            "Field [" + field + "] is not mapped by " + mapper.getType().getName());
+      }
+    }
+
+    StringBuilder template = new StringBuilder();
+    filter.appendTemplate(template);
+
+    return template.toString().split(String.valueOf(Filter.VALUE), -1);
+  }
+
+  private static void appendValue(StringBuilder formula, Object value) {
+
+    switch (Filter.kind(value)) {
+      case 's':
+        appendString(formula, (String) value);
+        break;
+      case 'n':
+        appendNumber(formula, (Number) value);
+        break;
+      case 'b':
+        formula.append((Boolean) value ? "TRUE()" : "FALSE()");
+        break;
+      case 'd':
+        SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT, Locale.ROOT);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        formula.append("DATETIME_PARSE(");
+        appendString(formula, format.format((Date) value));
+        formula.append(')');
+        break;
+      default:
+        throw new IllegalStateException("No value expected: " + value);
+    }
+  }
+
+  private static void appendString(StringBuilder formula, String value) {
+
+    formula.append('\'');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\'' || c == '\\') {
+        formula.append('\\');
+      }
+      formula.append(c);
+    }
+    formula.append('\'');
+  }
+
+  private static void appendNumber(StringBuilder formula, Number value) {
+
+    if (value instanceof Double || value instanceof Float) {
+      double d = value.doubleValue();
+      if (Double.isNaN(d) || Double.isInfinite(d)) {
+        throw new IllegalArgumentException("Invalid number: " + value);
+      }
+      formula.append(BigDecimal.valueOf(d).stripTrailingZeros().toPlainString());
+    } else if (value instanceof BigDecimal) {
+      formula.append(((BigDecimal) value).toPlainString());
+    } else {
+      formula.append(value.toString());
+    }
+  }
+}
@@ -0,0 +1,662 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.journal;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sybit.airtableandroid.journal.JournalEntry.Op;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.CompletableSubject;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of pending mutations, written before they are sent to Airtable.
+ *
+ * <p>Every mutation, marker and completion is appended as a frame with length and checksum. When
+ * the journal is opened, the frames are read up to the first incomplete or corrupt frame, which
+ * is cut off, so a crash while appending loses at most the frame being written.</p>
+ *
+ * <p>Appends write to the file immediately, but the file is synced by group commit: all appends
+ * and completions made until the sync runs share a single <code>fsync</code>, delayed by the
+ * sync window. The completion of an append signals that the entry is durable.</p>
+ *
+ * <p>Entries are sent by a {@link com.sybit.airtableandroid.JournalReplayer}, which marks them
+ * as sent before and done after their request. {@link #compact()} merges superseded entries and
+ * rewrites the file with the pending entries only. Instances are thread safe.</p>
+ */
+public class Journal implements Closeable {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  /**
+   * Frame header: length and checksum of the payload.
+   */
+  private static final int HEADER_SIZE = 8;
+
+  private static final String CREATE = "C";
+  private static final String UPDATE = "U";
+  private static final String DESTROY = "D";
+  private static final String SENT = "S";
+  private static final String DONE = "X";
+  private static final String ALIAS = "A";
+
+  private static final Gson GSON = new GsonBuilder().serializeNulls().create();
+
+  private final File file;
+
+  private RandomAccessFile output;
+  private FileChannel channel;
+
+  private final Map<Long, JournalEntry> pending = new LinkedHashMap<>();
+  private final Set<Long> sent = new HashSet<>();
+
+  /**
+   * Ids of created records by the key of their create.
+   */
+  private final Map<String, String> aliases = new HashMap<>();
+
+  private long nextSeq = 1;
+  private long syncWindowNanos;
+
+  private List<CompletableSubject> unsynced = new ArrayList<>();
+  private boolean syncScheduled;
+
+  private final AtomicLong appends = new AtomicLong();
+  private final AtomicLong syncs = new AtomicLong();
+
+  private Journal(File file) {
+
+    this.file = file;
+  }
+
+  /**
+   * Open a journal, creating the file if it doesn't exist.
+   *
+   * @param file the file of the journal.
+   * @return the journal with the pending entries of the file.
+   * @throws IOException if the file can't be read or written.
+   */
+  public static Journal open(File file) throws IOException {
+
+    Journal journal = new Journal(file);
+    journal.recover();
+
+    return journal;
+  }
+
+  /**
+   * Set the time appends wait for other appends to share their sync, 0 by default.
+   */
+  public synchronized void setSyncWindow(long window, TimeUnit unit) {
+
+    this.syncWindowNanos = unit.toNanos(window);
+  }
+
+  /**
+   * Record the create of a record.
+   *
+   * <p>The entry is appended immediately, subscribing is only needed to wait until it is
+   * durable.</p>
+   *
+   * @param fields fields of the record.
+   * @return the entry, emitted when it is durable.
+   */
+  public Single<JournalEntry> create(JsonObject fields) {
+
+    return append(Op.CREATE, null, fields, null);
+  }
+
+  /**
+   * Record the update of a record.
+   *
+   * @param recordId id of the record, or the key of its create.
+   * @param fields fields to update.
+   * @return the entry, emitted when it is durable.
+   * @see #create(JsonObject)
+   */
+  public Single<JournalEntry> update(String recordId, JsonObject fields) {
+
+    return update(recordId, fields, null);
+  }
+
+  /**
+   * Record the update of a record with the base values of its fields.
+   *
+   * @param recordId id of the record, or the key of its create.
+   * @param fields fields to update.
+   * @param base values of the fields last read from Airtable, null if unknown.
+   * @return the entry, emitted when it is durable.
+   * @see #create(JsonObject)
+   */
+  public Single<JournalEntry> update(String recordId, JsonObject fields, JsonObject base) {
+
+    return append(Op.UPDATE, recordId, fields, base);
+  }
+
+  /**
+   * Record the destroy of a record.
+   *
+   * @param recordId id of the record, or the key of its create.
+   * @return the entry, emitted when it is durable.
+   * @see #create(JsonObject)
+   */
+  public Single<JournalEntry> destroy(String recordId) {
+
+    return append(Op.DESTROY, recordId, null, null);
+  }
+
+  /**
+   * @return the pending entries, in order.
+   */
+  public synchronized List<JournalEntry> pending() {
+
+    return new ArrayList<>(pending.values());
+  }
+
+  /**
+   * @return true if the entry was sent before, so it may have been applied.
+   */
+  public synchronized boolean isSent(JournalEntry entry) {
+
+    return sent.contains(entry.getSeq());
+  }
+
+  /**
+   * Get the id of a record, resolving the key of a completed create.
+   *
+   * <p>Keys are resolved until the first compaction after their create completed, which
+   * replaces the key in the pending entries by the id of the record.</p>
+   *
+   * @param recordId id of the record, or the key of its create.
+   * @return the id of the created record, or <code>recordId</code> if it isn't a completed
+   *     create.
+   */
+  public synchronized String resolve(String recordId) {
+
+    String id = aliases.get(recordId);
+
+    return (id != null) ? id : recordId;
+  }
+
+  /**
+   * Mark entries as sent before their request is sent, synced immediately.
+   *
+   * @param entries entries to be sent.
+   * @throws IOException if the markers can't be written.
+   */
+  public void markSent(Collection<JournalEntry> entries) throws IOException {
+
+    synchronized (this) {
+      for (JournalEntry entry : entries) {
+        JsonObject frame = new JsonObject();
+        frame.addProperty("t", SENT);
+        frame.addProperty("s", entry.getSeq());
+        write(frame);
+        sent.add(entry.getSeq());
+      }
+    }
+    channel().force(false);
+    syncs.incrementAndGet();
+  }
+
+  /**
+   * Mark an entry as applied, removing it from the pending entries.
+   *
+   * <p>The completion is synced by group commit with the appends and completions of the sync
+   * window. If it is lost by a crash the entry is sent again, creates only if the replayer can't
+   * find the created record.</p>
+   *
+   * @param entry the applied entry.
+   * @param recordId id of the created record for creates, else null.
+   * @throws IOException if the completion can't be written.
+   */
+  public void markDone(JournalEntry entry, String recordId) throws IOException {
+
+    long delay;
+    synchronized (this) {
+      JsonObject frame = new JsonObject();
+      frame.addProperty("t", DONE);
+      frame.addProperty("s", entry.getSeq());
+      frame.addProperty("i", recordId);
+      write(frame);
+      done(entry.getSeq(), recordId);
+      delay = scheduleSync();
+    }
+    if (delay >= 0) {
+      Schedulers.io().scheduleDirect(this::sync, delay, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Merge superseded pending entries and rewrite the file with the pending entries only.
+   *
+   * <p>Updates of a record are merged into its previous unsent create or update, a destroy
+   * drops the previous unsent updates, and with an unsent create both are dropped. Entries sent
+   * before are kept as they are, they may have been applied. Keys of completed creates are
+   * replaced by the ids of their records, and the ids are only kept for keys still used by
+   * pending entries.</p>
+   *
+   * @throws IOException if the file can't be written, the journal is left unchanged.
+   */
+  public void compact() throws IOException {
+
+    List<CompletableSubject> durable;
+    synchronized (this) {
+      durable = rewrite();
+    }
+    // the rewritten file is synced, so are the appends waiting for a sync
+    for (CompletableSubject completion : durable) {
+      completion.onComplete();
+    }
+  }
+
+  /**
+   * Compact the pending entries and rewrite the file, must hold the lock.
+   *
+   * @return completions of the appends waiting for a sync.
+   */
+  private List<CompletableSubject> rewrite() throws IOException {
+
+    channel();
+    List<JournalEntry> result = new ArrayList<>();
+    Map<String, Integer> mergeable = new HashMap<>();
+    Set<String> usedKeys = new HashSet<>();
+    for (JournalEntry entry : pending.values()) {
+      if (entry.getRecordId() != null) {
+        usedKeys.add(entry.getRecordId());
+        entry = entry.withRecordId(resolve(entry.getRecordId()));
+      }
+      String target = (entry.getOp() == Op.CREATE) ? entry.getKey() : entry.getRecordId();
+      Integer previous = mergeable.remove(target);
+      if (sent.contains(entry.getSeq())) {
+        result.add(entry);
+        continue;
+      }
+
+      if (entry.getOp() == Op.UPDATE && previous != null) {
+        result.set(previous, result.get(previous).merge(entry));
+        mergeable.put(target, previous);
+      } else if (entry.getOp() == Op.DESTROY && previous != null) {
+        JournalEntry superseded = result.set(previous, null);
+        if (superseded.getOp() != Op.CREATE) {
+          result.add(entry);
+        }
+      } else {
+        if (entry.getOp() != Op.DESTROY) {
+          mergeable.put(target, result.size());
+        }
+        result.add(entry);
+      }
+    }
+
+    Map<String, String> keptAliases = new HashMap<>(aliases);
+    keptAliases.keySet().retainAll(usedKeys);
+    File temp = new File(file.getPath() + TEMP_SUFFIX);
+    try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+      out.setLength(0);
+      FileChannel tempChannel = out.getChannel();
+      for (Map.Entry<String, String> alias : keptAliases.entrySet()) {
+        JsonObject frame = new JsonObject();
+        frame.addProperty("t", ALIAS);
+        frame.addProperty("k", alias.getKey());
+        frame.addProperty("i", alias.getValue());
+        write(tempChannel, frame);
+      }
+      for (JournalEntry entry : result) {
+        if (entry != null) {
+          write(tempChannel, toFrame(entry));
+          if (sent.contains(entry.getSeq())) {
+            JsonObject frame = new JsonObject();
+            frame.addProperty("t", SENT);
+            frame.addProperty("s", entry.getSeq());
+            write(tempChannel, frame);
+          }
+        }
+      }
+      tempChannel.force(false);
+    }
+
+    if (!temp.renameTo(file)) {
+      //noinspection ResultOfMethodCallIgnored
+      temp.delete();
+      throw new IOException("Can't replace " + file);
+    }
+    output.close();
+    openOutput();
+
+    aliases.keySet().retainAll(usedKeys);
+    pending.clear();
+    for (JournalEntry entry : result) {
+      if (entry != null) {
+        pending.put(entry.getSeq(), entry);
+      }
+    }
+    sent.retainAll(pending.keySet());
+
+    List<CompletableSubject> durable = unsynced;
+    unsynced = new ArrayList<>();
+
+    return durable;
+  }
+
+  /**
+   * @return number of entries appended.
+   */
+  public long getAppends() {
+
+    return appends.get();
+  }
+
+  /**
+   * @return number of syncs of the file.
+   */
+  public long getSyncs() {
+
+    return syncs.get();
+  }
+
+  /**
+   * Sync and close the file. Appends and completions waiting for a scheduled sync complete, as
+   * they are durable.
+   */
+  @Override
+  public void close() throws IOException {
+
+    List<CompletableSubject> completions;
+    synchronized (this) {
+      if (output == null) {
+        return;
+      }
+      channel.force(false);
+      output.close();
+      output = null;
+      completions = unsynced;
+      unsynced = new ArrayList<>();
+    }
+
+    for (CompletableSubject completion : completions) {
+      completion.onComplete();
+    }
+  }
+
+  @Override
+  public String toString() {
+
+    return "Journal{file=" + file
+        + ", pending=" + pending().size()
+        + ", appends=" + getAppends()
+        + ", syncs=" + getSyncs() + "}";
+  }
+
+  private Single<JournalEntry> append(Op op, String recordId, JsonObject fields,
+      JsonObject base) {
+
+    CompletableSubject synced = CompletableSubject.create();
+    JournalEntry entry;
+    long delay;
+    try {
+      synchronized (this) {
+        entry = new JournalEntry(nextSeq, op, UUID.randomUUID().toString(), recordId,
+            (fields != null) ? fields.deepCopy() : null, (base != null) ? base.deepCopy() : null);
+        write(toFrame(entry));
+        nextSeq++;
+        pending.put(entry.getSeq(), entry);
+
+        unsynced.add(synced);
+        delay = scheduleSync();
+      }
+    } catch (IOException ex) {
+      return Single.error(ex);
+    }
+    appends.incrementAndGet();
+
+    if (delay >= 0) {
+      Schedulers.io().scheduleDirect(this::sync, delay, TimeUnit.NANOSECONDS);
+    }
+
+    return synced.toSingleDefault(entry).cache();
+  }
+
+  /**
+   * Request a group sync, must hold the lock.
+   *
+   * @return delay of the sync to be scheduled in ns, -1 if a sync is already scheduled.
+   */
+  private long scheduleSync() {
+
+    if (syncScheduled) {
+      return -1;
+    }
+    syncScheduled = true;
+
+    return syncWindowNanos;
+  }
+
+  /**
+   * Sync the file once for all appends and completions made until now.
+   */
+  private void sync() {
+
+    List<CompletableSubject> completions;
+    FileChannel fileChannel;
+    synchronized (this) {
+      syncScheduled = false;
+      if (output == null) {
+        // synced and completed by close()
+        return;
+      }
+      completions = unsynced;
+      unsynced = new ArrayList<>();
+      fileChannel = channel;
+    }
+
+    Throwable error = null;
+    try {
+      fileChannel.force(false);
+      syncs.incrementAndGet();
+    } catch (IOException | RuntimeException ex) {
+      synchronized (this) {
+        // the file was rewritten by a compaction or closed meanwhile, both sync it first
+        error = (fileChannel != channel || output == null) ? null : ex;
+      }
+    }
+    for (CompletableSubject completion : completions) {
+      if (error == null) {
+        completion.onComplete();
+      } else {
+        completion.onError(error);
+      }
+    }
+  }
+
+  /**
+   * Read the frames of the file and cut off an incomplete or corrupt tail.
+   */
+  private synchronized void recover() throws IOException {
+
+    openOutput();
+    long size = channel.size();
+    long position = 0;
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    while (position + HEADER_SIZE <= size) {
+      header.clear();
+      channel.read(header, position);
+      header.flip();
+      int length = header.getInt();
+      long checksum = header.getInt() & 0xffffffffL;
+      if (length < 0 || position + HEADER_SIZE + length > size) {
+        break;
+      }
+
+      ByteBuffer payload = ByteBuffer.allocate(length);
+      channel.read(payload, position + HEADER_SIZE);
+      CRC32 crc = new CRC32();
+      crc.update(payload.array());
+      if (crc.getValue() != checksum) {
+        break;
+      }
+
+      JsonObject frame;
+      try {
+        frame = GSON.fromJson(new String(payload.array(), UTF_8), JsonObject.class);
+        apply(frame);
+      } catch (RuntimeException ex) {
+        break;
+      }
+      position += HEADER_SIZE + length;
+    }
+
+    if (position < size) {
+      channel.truncate(position);
+      channel.force(false);
+    }
+    channel.position(position);
+  }
+
+  /**
+   * Apply a frame read from the file to the state.
+   */
+  private void apply(JsonObject frame) {
+
+    String type = frame.get("t").getAsString();
+    switch (type) {
+      case CREATE:
+      case UPDATE:
+      case DESTROY:
+        JournalEntry entry = fromFrame(frame);
+        pending.put(entry.getSeq(), entry);
+        nextSeq = Math.max(nextSeq, entry.getSeq() + 1);
+        break;
+      case SENT:
+        sent.add(frame.get("s").getAsLong());
+        break;
+      case DONE:
+        done(frame.get("s").getAsLong(), string(frame.get("i")));
+        break;
+      case ALIAS:
+        aliases.put(frame.get("k").getAsString(), frame.get("i").getAsString());
+        break;
+      default:
+        throw new IllegalStateException("Invalid frame type " + type);
+    }
+  }
+
+  private void done(long seq, String recordId) {
+
+    JournalEntry entry = pending.remove(seq);
+    sent.remove(seq);
+    if (entry != null && entry.getOp() == Op.CREATE && recordId != null) {
+      aliases.put(entry.getKey(), recordId);
+    }
+  }
+
+  private static JsonObject toFrame(JournalEntry entry) {
+
+    JsonObject frame = new JsonObject();
+    switch (entry.getOp()) {
+      case CREATE:
+        frame.addProperty("t", CREATE);
+        break;
+      case UPDATE:
+        frame.addProperty("t", UPDATE);
+        break;
+      default:
+        frame.addProperty("t", DESTROY);
+        break;
+    }
+    frame.addProperty("s", entry.getSeq());
+    frame.addProperty("k", entry.getKey());
+    if (entry.getRecordId() != null) {
+      frame.addProperty("i", entry.getRecordId());
+    }
+    if (entry.getFields() != null) {
+      frame.add("f", entry.getFields());
+    }
+    if (entry.getBase() != null) {
+      frame.add("b", entry.getBase());
+    }
+
+    return frame;
+  }
+
+  private static JournalEntry fromFrame(JsonObject frame) {
+
+    String type = frame.get("t").getAsString();
+    Op op = CREATE.equals(type) ? Op.CREATE : UPDATE.equals(type) ? Op.UPDATE : Op.DESTROY;
+    JsonElement fields = frame.get("f");
+    JsonElement base = frame.get("b");
+
+    return new JournalEntry(frame.get("s").getAsLong(), op, frame.get("k").getAsString(),
+        string(frame.get("i")), (fields != null) ? fields.getAsJsonObject() : null,
+        (base != null) ? base.getAsJsonObject() : null);
+  }
+
+  private static String string(JsonElement value) {
+
+    return (value != null && !value.isJsonNull()) ? value.getAsString() : null;
+  }
+
+  private void write(JsonObject frame) throws IOException {
+
+    write(channel(), frame);
+  }
+
+  private static void write(FileChannel channel, JsonObject frame) throws IOException {
+
+    byte[] payload = GSON.toJson(frame).getBytes(UTF_8);
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+    buffer.putInt(payload.length);
+    buffer.putInt((int) crc.getValue());
+    buffer.put(payload);
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private synchronized FileChannel channel() throws IOException {
+
+    if (output == null) {
+      throw new IOException("Journal closed: " + file);
+    }
+
+    return channel;
+  }
+
+  private void openOutput() throws IOException {
+
+    output = new RandomAccessFile(file, "rw");
+    channel = output.getChannel();
+    channel.position(channel.size());
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.journal;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Mutation of a record recorded in the {@link Journal}, not yet applied to Airtable.
+ *
+ * <p>Every entry has a unique key. The key of a create is its idempotency key and the local
+ * id of the record until it is created, so later updates and destroys may refer to it. Entries
+ * are immutable, their fields must not be modified.</p>
+ *
+ * <p>Updates may carry the base values of their fields, the values last read from Airtable,
+ * to detect concurrent changes before they are sent.</p>
+ */
+public final class JournalEntry {
+
+  /**
+   * Kind of mutation.
+   */
+  public enum Op {
+    CREATE, UPDATE, DESTROY
+  }
+
+  private final long seq;
+  private final Op op;
+  private final String key;
+  private final String recordId;
+  private final JsonObject fields;
+  private final JsonObject base;
+
+  JournalEntry(long seq, Op op, String key, String recordId, JsonObject fields,
+      JsonObject base) {
+
+    this.seq = seq;
+    this.op = op;
+    this.key = key;
+    this.recordId = recordId;
+    this.fields = fields;
+    this.base = base;
+  }
+
+  /**
+   * @return position of the entry in the journal.
+   */
+  public long getSeq() {
+
+    return seq;
+  }
+
+  public Op getOp() {
+
+    return op;
+  }
+
+  /**
+   * @return unique key of the entry.
+   */
+  public String getKey() {
+
+    return key;
+  }
+
+  /**
+   * @return id of the record to update or destroy, the key of its create if it isn't created
+   *     yet, null for creates.
+   */
+  public String getRecordId() {
+
+    return recordId;
+  }
+
+  /**
+   * @return fields to create or update, null for destroys.
+   */
+  public JsonObject getFields() {
+
+    return fields;
+  }
+
+  /**
+   * @return values of the updated fields last read from Airtable, null if unknown.
+   */
+  public JsonObject getBase() {
+
+    return base;
+  }
+
+  /**
+   * Get a copy of this entry with another record id.
+   */
+  JournalEntry withRecordId(String recordId) {
+
+    return new JournalEntry(seq, op, key, recordId, fields, base);
+  }
+
+  /**
+   * Get a copy of this entry with the fields of a later update merged, later values win. The
+   * base of a field is the one of its first update.
+   */
+  JournalEntry merge(JournalEntry later) {
+
+    JsonObject merged = fields.deepCopy();
+    for (String name : later.fields.keySet()) {
+      merged.add(name, later.fields.get(name));
+    }
+
+    JsonObject mergedBase = null;
+    if (base != null && later.base != null) {
+      mergedBase = base.deepCopy();
+      for (String name : later.base.keySet()) {
+        if (!fields.has(name)) {
+          mergedBase.add(name, later.base.get(name));
+        }
+      }
+    }
+
+    return new JournalEntry(seq, op, key, recordId, merged, mergedBase);
+  }
+
+  @Override
+  public String toString() {
+
+    return "JournalEntry{seq=" + seq + ", op=" + op + ", key=" + key
+        + ((recordId != null) ? ", recordId=" + recordId : "")
+        + ((fields != null) ? ", fields=" + fields : "") + "}";
+  }
+}
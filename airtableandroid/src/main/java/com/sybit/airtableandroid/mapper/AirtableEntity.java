@@ -0,0 +1,32 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.mapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class mapped to Airtable records, so a mapper without reflection is generated at
+ * compile time.
+ *
+ * <p>Add the annotation processor of module <code>compiler</code> to the build, e.g.
+ * <code>annotationProcessor project(':compiler')</code>. For a class <code>Event</code> the
+ * processor generates <code>Event_AirtableMapper</code> in the same package, which is used by
+ * <code>Table</code> instead of the reflective {@link RecordMapper}.</p>
+ *
+ * <p>Properties are read and written by their public getters and setters, or directly if the
+ * field is visible in the package. Column names are taken from <code>@SerializedName</code>.</p>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface AirtableEntity {
+
+}
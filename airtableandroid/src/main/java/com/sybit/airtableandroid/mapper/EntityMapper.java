@@ -0,0 +1,286 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.mapper;
+
+import com.sybit.airtableandroid.vo.RecordItem;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import jodd.bean.BeanException;
+import jodd.typeconverter.TypeConverterManager;
+import timber.log.Timber;
+
+/**
+ * Maps Airtable records to items of a class and items back to Airtable fields.
+ *
+ * <p>Columns are resolved to properties the first time they are seen: the column name is
+ * converted to a property name and replaced by the annotated property if it matches a
+ * <code>@SerializedName</code> value. Values are converted by the jodd type converters.</p>
+ *
+ * <p>Use {@link EntityMappers#of(Class)} to get the mapper of a class: the one generated for
+ * classes annotated with {@link AirtableEntity} or else a {@link RecordMapper}.</p>
+ *
+ * @param <T> class of items
+ */
+public abstract class EntityMapper<T> {
+
+  private static final String FIELDS = "fields";
+
+  /**
+   * Property of columns without writable property.
+   */
+  private static final String UNBOUND = "";
+
+  private final Class<T> type;
+
+  /**
+   * Property names by lower case <code>@SerializedName</code> value.
+   */
+  private final Map<String, String> serializedNames = new HashMap<>();
+
+  private final Map<String, String> properties = new ConcurrentHashMap<>();
+
+  private volatile List<String> columns;
+
+  protected EntityMapper(Class<T> type) {
+
+    this.type = type;
+  }
+
+  /**
+   * @return class of items.
+   */
+  public Class<T> getType() {
+
+    return type;
+  }
+
+  /**
+   * Create a new empty item.
+   */
+  public abstract T newInstance() throws InstantiationException, IllegalAccessException;
+
+  /**
+   * Get the value of a property.
+   *
+   * @param item item to read
+   * @param property name of the Java property
+   * @return value of property, null if the property doesn't exist or is not readable
+   */
+  public abstract Object get(T item, String property);
+
+  /**
+   * Get the fields to send to Airtable, by column name.
+   *
+   * <p>The properties <code>id</code> and <code>createdTime</code> are not contained, the item is
+   * not modified.</p>
+   *
+   * @param item item to read
+   * @return values of the fields by column name
+   */
+  public abstract Map<String, Object> getFields(T item);
+
+  /**
+   * Get the names of the columns written from the items, see {@link #getFields(Object)}.
+   *
+   * @return names of the columns, without <code>id</code> and <code>createdTime</code>.
+   */
+  public List<String> getColumns() {
+
+    List<String> result = columns;
+    if (result == null) {
+      try {
+        result = Collections.unmodifiableList(new ArrayList<>(getFields(newInstance()).keySet()));
+      } catch (InstantiationException | IllegalAccessException ex) {
+        throw new IllegalStateException("Can't create item of " + type, ex);
+      }
+      columns = result;
+    }
+
+    return result;
+  }
+
+  /**
+   * @return true if the property has a public setter.
+   */
+  protected abstract boolean hasSetter(String property);
+
+  /**
+   * Convert and set the value of a property with public setter.
+   */
+  protected abstract void setProperty(T item, String property, Object value) throws Exception;
+
+  /**
+   * Register the <code>@SerializedName</code> value of a property.
+   */
+  protected void addSerializedName(String serializedName, String property) {
+
+    String key = serializedName.toLowerCase(Locale.ROOT);
+    if (!serializedNames.containsKey(key)) {
+      serializedNames.put(key, property);
+    }
+  }
+
+  /**
+   * Set the values of a record, with the columns nested in <code>fields</code>.
+   *
+   * @param record record as parsed from the response
+   * @param item item to fill
+   * @return the given item
+   */
+  public T map(Map<String, Object> record, T item) {
+
+    for (Map.Entry<String, Object> entry : record.entrySet()) {
+      if (FIELDS.equals(entry.getKey()) && entry.getValue() instanceof Map) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> fields = (Map<String, Object>) entry.getValue();
+        map(fields, item);
+      } else {
+        set(item, entry.getKey(), entry.getValue());
+      }
+    }
+
+    return item;
+  }
+
+  /**
+   * Set the values of a record.
+   *
+   * @param record record as parsed from the response
+   * @param item item to fill
+   * @return the given item
+   */
+  public T map(RecordItem record, T item) {
+
+    set(item, "id", record.getId());
+    set(item, "createdTime", record.getCreatedTime());
+
+    if (record.getFields() != null) {
+      map(record.getFields(), item);
+    }
+
+    return item;
+  }
+
+  /**
+   * Check whether a column is set to a property of the items, without resolving it for later use.
+   *
+   * @param column name of the Airtable column
+   * @return true if the column is set to a property of the items.
+   */
+  public boolean isMapped(String column) {
+
+    String property = properties.get(column);
+
+    return !(property != null ? property : resolve(column)).isEmpty();
+  }
+
+  /**
+   * @return true if the column is set to a property of the items, resolved once per column.
+   */
+  boolean isBound(String column) {
+
+    return !property(column).isEmpty();
+  }
+
+  /**
+   * Set the value of a single column.
+   *
+   * @param item item to fill
+   * @param column name of the Airtable column
+   * @param value value as parsed from the response
+   */
+  public void set(T item, String column, Object value) {
+
+    String property = property(column);
+    if (!property.isEmpty()) {
+      try {
+        setProperty(item, property, value);
+      } catch (BeanException ex) {
+        throw ex;
+      } catch (Exception ex) {
+        throw new BeanException("Setter failed: " + property, ex);
+      }
+    }
+  }
+
+  /**
+   * Get the property of a column, UNBOUND if it has no writable property.
+   */
+  private String property(String column) {
+
+    String property = properties.get(column);
+    if (property == null) {
+      if (column.contains(" ") || column.contains("-")) {
+        Timber.w("Annotate columns having special characters by using @SerializedName for "
+            + "property: [" + column + "]");
+      }
+      property = resolve(column);
+      if (property.isEmpty()) {
+        Timber.w(type + " does not support public setter for column [" + column + "]");
+      }
+      properties.put(column, property);
+    }
+
+    return property;
+  }
+
+  /**
+   * Resolve the property of a column.
+   */
+  private String resolve(String column) {
+
+    String property = key2property(column);
+    if (property.isEmpty()) {
+      return UNBOUND;
+    }
+
+    String serializedProperty = serializedNames.get(property.toLowerCase(Locale.ROOT));
+    if (serializedProperty != null) {
+      property = serializedProperty;
+    }
+
+    return hasSetter(property) ? property : UNBOUND;
+  }
+
+  /**
+   * Convert AirTable ColumnName to Java PropertyName.
+   */
+  private static String key2property(String key) {
+
+    String property = key.trim();
+    if (property.isEmpty()) {
+      return property;
+    }
+
+    return property.substring(0, 1).toLowerCase() + property.substring(1, property.length());
+  }
+
+  /**
+   * Convert a parsed value to the type of a property.
+   */
+  protected static <V> V convert(Object value, Class<V> type) {
+
+    return TypeConverterManager.convertType(value, type);
+  }
+
+  /**
+   * Convert a parsed value to the collection type of a property.
+   */
+  @SuppressWarnings("unchecked")
+  protected static <V> V convertToCollection(Object value, Class<?> type,
+      Class<?> componentType) {
+
+    return (V) TypeConverterManager.convertToCollection(value, type.asSubclass(Collection.class),
+        componentType);
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.mapper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import timber.log.Timber;
+
+/**
+ * Factory of entity mappers.
+ *
+ * <p>Mappers resolve the columns of records once, {@link #get(Class)} returns the mapper of a class
+ * shared by all bases and the parser factory.</p>
+ */
+public final class EntityMappers {
+
+  /**
+   * Suffix of the class name of generated mappers.
+   */
+  public static final String SUFFIX = "_AirtableMapper";
+
+  private static final ConcurrentMap<Class<?>, EntityMapper<?>> MAPPERS =
+      new ConcurrentHashMap<>();
+
+  private EntityMappers() {
+
+  }
+
+  /**
+   * Get the shared mapper of given class, created once per class.
+   *
+   * @param type class of items
+   * @return the mapper created by {@link #of(Class)} for the first caller.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> EntityMapper<T> get(Class<T> type) {
+
+    EntityMapper<T> mapper = (EntityMapper<T>) MAPPERS.get(type);
+    if (mapper == null) {
+      mapper = of(type);
+      EntityMapper<T> existing = (EntityMapper<T>) MAPPERS.putIfAbsent(type, mapper);
+      if (existing != null) {
+        mapper = existing;
+      }
+    }
+
+    return mapper;
+  }
+
+  /**
+   * Create a new mapper of given class.
+   *
+   * @param type class of items
+   * @return the generated mapper if the class is annotated with {@link AirtableEntity}, else a
+   *     {@link RecordMapper}.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> EntityMapper<T> of(Class<T> type) {
+
+    String name = mapperName(type);
+    try {
+      Class<?> mapperClass = Class.forName(name, true, type.getClassLoader());
+      Timber.d("Using generated mapper " + name);
+
+      return (EntityMapper<T>) mapperClass.newInstance();
+    } catch (ClassNotFoundException ex) {
+      return new RecordMapper<>(type);
+    } catch (InstantiationException | IllegalAccessException ex) {
+      Timber.e(ex, "Could not create generated mapper " + name);
+      return new RecordMapper<>(type);
+    }
+  }
+
+  /**
+   * Get the class name of the generated mapper: the nested class names are joined by '_'.
+   */
+  static String mapperName(Class<?> type) {
+
+    String name = type.getName();
+    int packageEnd = name.lastIndexOf('.') + 1;
+
+    return name.substring(0, packageEnd) + name.substring(packageEnd).replace('$', '_') + SUFFIX;
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.mapper;
+
+import com.google.gson.annotations.SerializedName;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jodd.bean.BeanUtil;
+import jodd.introspector.ClassDescriptor;
+import jodd.introspector.Getter;
+import jodd.introspector.PropertyDescriptor;
+import jodd.introspector.Setter;
+import jodd.typeconverter.TypeConverterManager;
+
+/**
+ * Maps Airtable records to items of a class by reflection.
+ *
+ * <p>The class is inspected once: the names of <code>@SerializedName</code> annotations of the
+ * class and its super classes are collected when the mapper is created and the setter of every
+ * column is resolved the first time the column is seen. Mapping a value is then a single lookup
+ * followed by the conversion and the invocation of the setter.</p>
+ *
+ * <p>Values are converted by the jodd type converters, the same way
+ * <code>BeanUtil.pojo.setProperty()</code> does. Fields are written the way Gson serializes the
+ * item. Instances are thread safe.</p>
+ *
+ * @param <T> class of items
+ */
+public class RecordMapper<T> extends EntityMapper<T> {
+
+  private final ClassDescriptor descriptor;
+
+  private final Map<String, Binding> bindings = new ConcurrentHashMap<>();
+
+  private final Map<String, Getter> getters = new ConcurrentHashMap<>();
+
+  /**
+   * Serialized fields of the class, without id and createdTime.
+   */
+  private final List<Field> fields;
+
+  /**
+   * Inspect given class.
+   *
+   * @param type class of items
+   */
+  public RecordMapper(Class<T> type) {
+
+    super(type);
+    this.descriptor = BeanUtil.pojo.getIntrospector().lookup(type);
+
+    List<Field> serialized = new ArrayList<>();
+    for (Field f : declaredFields(type)) {
+      final SerializedName annotation = f.getAnnotation(SerializedName.class);
+
+      if (annotation != null) {
+        addSerializedName(annotation.value(), f.getName());
+      }
+
+      String name = f.getName();
+      if (!Modifier.isTransient(f.getModifiers()) && !name.equals("id")
+          && !name.equals("createdTime")) {
+        f.setAccessible(true);
+        serialized.add(f);
+      }
+    }
+
+    this.fields = Collections.unmodifiableList(serialized);
+  }
+
+  @Override
+  public T newInstance() throws InstantiationException, IllegalAccessException {
+
+    return getType().newInstance();
+  }
+
+  @Override
+  public Object get(T item, String property) {
+
+    Getter getter = getters.get(property);
+    if (getter == null) {
+      PropertyDescriptor propertyDescriptor = descriptor.getPropertyDescriptor(property, false);
+      getter = (propertyDescriptor != null) ? propertyDescriptor.getGetter(false) : null;
+      if (getter == null) {
+        return null;
+      }
+      getters.put(property, getter);
+    }
+
+    try {
+      return getter.invokeGetter(item);
+    } catch (Exception ex) {
+      throw new IllegalStateException("Getter failed: " + property, ex);
+    }
+  }
+
+  @Override
+  public Map<String, Object> getFields(T item) {
+
+    Map<String, Object> values = new LinkedHashMap<>();
+    try {
+      for (Field field : fields) {
+        SerializedName annotation = field.getAnnotation(SerializedName.class);
+        String column = (annotation != null) ? annotation.value() : field.getName();
+
+        values.put(column, field.get(item));
+      }
+    } catch (IllegalAccessException ex) {
+      throw new IllegalStateException(ex);
+    }
+
+    return values;
+  }
+
+  @Override
+  protected boolean hasSetter(String property) {
+
+    return binding(property) != null;
+  }
+
+  @Override
+  protected void setProperty(T item, String property, Object value) throws Exception {
+
+    binding(property).write(item, value);
+  }
+
+  private Binding binding(String property) {
+
+    Binding binding = bindings.get(property);
+    if (binding == null) {
+      PropertyDescriptor propertyDescriptor = descriptor.getPropertyDescriptor(property, false);
+      Setter setter = (propertyDescriptor != null) ? propertyDescriptor.getSetter(false) : null;
+      if (setter == null) {
+        return null;
+      }
+      binding = new Binding(setter);
+      bindings.put(property, binding);
+    }
+
+    return binding;
+  }
+
+  /**
+   * Collect the non static fields of the class and its super classes, in the order Gson
+   * serializes them. Fields of super classes shadowed by a field of the same name are skipped.
+   */
+  private static List<Field> declaredFields(Class<?> type) {
+
+    List<Field> result = new ArrayList<>();
+    Set<String> names = new HashSet<>();
+    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()
+            || !names.add(field.getName())) {
+          continue;
+        }
+        result.add(field);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Setter of a property together with the target type of the conversion.
+   */
+  private static final class Binding {
+
+    private final Setter setter;
+    private final Class rawType;
+    private final Class componentType;
+    private final boolean collection;
+
+    Binding(Setter setter) {
+
+      this.setter = setter;
+      this.rawType = setter.getSetterRawType();
+      this.componentType = setter.getSetterRawComponentType();
+      this.collection = Collection.class.isAssignableFrom(rawType);
+    }
+
+    @SuppressWarnings("unchecked")
+    void write(Object item, Object value) throws Exception {
+
+      Object converted = collection
+          ? TypeConverterManager.convertToCollection(value, rawType, componentType)
+          : TypeConverterManager.convertType(value, rawType);
+
+      if (converted == null && rawType.isPrimitive()) {
+        // null can't be unboxed, the property keeps its value
+        return;
+      }
+
+      setter.invokeSetter(item, converted);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.mapper;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.sybit.airtableandroid.vo.RecordPage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads responses of Airtable token by token and maps the records directly to items.
+ *
+ * <p>Unlike parsing the response to maps first, no tree of the whole page is built: every column
+ * is set to the item as soon as its value is read, and values of columns without property are
+ * skipped. Only values of nested objects and arrays, like attachments, are read to maps and lists
+ * before they are converted.</p>
+ *
+ * <p>Numbers are read as <code>Double</code>, the same way Gson does, so the conversion of the
+ * values doesn't change. Instances are thread safe.</p>
+ *
+ * @param <T> class of items
+ */
+public class RecordReader<T> {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final String RECORDS = "records";
+  private static final String OFFSET = "offset";
+  private static final String FIELDS = "fields";
+
+  private final EntityMapper<T> mapper;
+
+  /**
+   * @param mapper mapper of the items
+   */
+  public RecordReader(EntityMapper<T> mapper) {
+
+    this.mapper = mapper;
+  }
+
+  /**
+   * Read a page of records.
+   *
+   * @param in response body, closed when the page is read
+   * @return items and offset of the page
+   * @throws IOException if the response is not a page of records
+   */
+  public RecordPage<T> readPage(InputStream in) throws IOException {
+
+    try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+      expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+      RecordPage<T> page = new RecordPage<>();
+      List<T> items = new ArrayList<>();
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+
+        if (RECORDS.equals(name) && token == JsonToken.START_ARRAY) {
+          while (parser.nextToken() == JsonToken.START_OBJECT) {
+            items.add(readRecord(parser));
+          }
+        } else if (OFFSET.equals(name) && token == JsonToken.VALUE_STRING) {
+          page.setOffset(parser.getText());
+        } else {
+          parser.skipChildren();
+        }
+      }
+
+      page.setItems(items);
+
+      return page;
+    }
+  }
+
+  /**
+   * Read the record starting at the current START_OBJECT token.
+   */
+  private T readRecord(JsonParser parser) throws IOException {
+
+    T item;
+    try {
+      item = mapper.newInstance();
+    } catch (InstantiationException | IllegalAccessException ex) {
+      throw new IOException("Could not create item of " + mapper.getType(), ex);
+    }
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+
+      if (FIELDS.equals(name) && token == JsonToken.START_OBJECT) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String column = parser.getCurrentName();
+          token = parser.nextToken();
+          readColumn(parser, token, item, column);
+        }
+      } else {
+        readColumn(parser, token, item, name);
+      }
+    }
+
+    return item;
+  }
+
+  private void readColumn(JsonParser parser, JsonToken token, T item, String column)
+      throws IOException {
+
+    if (mapper.isBound(column)) {
+      mapper.set(item, column, readValue(parser, token));
+    } else {
+      parser.skipChildren();
+    }
+  }
+
+  /**
+   * Read the value starting at given token.
+   */
+  private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+
+    switch (token) {
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return parser.getDoubleValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      case VALUE_NULL:
+        return null;
+      case START_ARRAY:
+        List<Object> list = new ArrayList<>();
+        for (JsonToken t = parser.nextToken(); t != JsonToken.END_ARRAY; t = parser.nextToken()) {
+          list.add(readValue(parser, t));
+        }
+        return list;
+      case START_OBJECT:
+        Map<String, Object> map = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String name = parser.getCurrentName();
+          map.put(name, readValue(parser, parser.nextToken()));
+        }
+        return map;
+      default:
+        throw new JsonParseException(parser, "Unexpected token " + token);
+    }
+  }
+
+  private static void expect(JsonParser parser, JsonToken token, JsonToken expected)
+      throws JsonParseException {
+
+    if (token != expected) {
+      throw new JsonParseException(parser, "Expected " + expected + " but was " + token);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.mapper;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.sybit.airtableandroid.vo.PostRecord;
+import com.sybit.airtableandroid.vo.UpdateRecord;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the bodies of write requests token by token to UTF-8 bytes.
+ *
+ * <p>Unlike serializing the body to a string and parsing it to a <code>JSONObject</code> for
+ * the networking library, the records are written in a single pass and the bytes are sent as
+ * they are. The type adapters of the values are created once and shared by all tables, so a
+ * single writer serves every entity type.</p>
+ *
+ * <p>Null fields are written only if requested, to clear the fields on update. Instances are
+ * thread safe.</p>
+ */
+public class RecordWriter {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final String RECORDS = "records";
+  private static final String ID = "id";
+  private static final String FIELDS = "fields";
+
+  private final Gson gson;
+  private final Gson nullsGson;
+
+  /**
+   * @param dateFormat format of dates
+   */
+  public RecordWriter(String dateFormat) {
+
+    this.gson = new GsonBuilder().setDateFormat(dateFormat).create();
+    this.nullsGson = new GsonBuilder().setDateFormat(dateFormat).serializeNulls().create();
+  }
+
+  /**
+   * Write the body of a request writing a single record.
+   *
+   * @param record record to write
+   * @param serializeNulls true to write null values
+   * @return the body
+   * @throws IOException if a value can't be written
+   */
+  public byte[] writeRecord(PostRecord<Map<String, Object>> record, boolean serializeNulls)
+      throws IOException {
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Gson gson = serializeNulls ? nullsGson : this.gson;
+    try (JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(out, UTF_8))) {
+      write(gson, writer, record);
+    }
+
+    return out.toByteArray();
+  }
+
+  /**
+   * Write the body of a request writing multiple records.
+   *
+   * @param records records to write
+   * @param serializeNulls true to write null values
+   * @return the body
+   * @throws IOException if a value can't be written
+   */
+  public byte[] writeRecords(List<? extends PostRecord<Map<String, Object>>> records,
+      boolean serializeNulls) throws IOException {
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Gson gson = serializeNulls ? nullsGson : this.gson;
+    try (JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(out, UTF_8))) {
+      writer.beginObject();
+      writer.name(RECORDS).beginArray();
+      for (PostRecord<Map<String, Object>> record : records) {
+        write(gson, writer, record);
+      }
+      writer.endArray();
+      writer.endObject();
+    }
+
+    return out.toByteArray();
+  }
+
+  private static void write(Gson gson, JsonWriter writer, PostRecord<Map<String, Object>> record)
+      throws IOException {
+
+    writer.beginObject();
+    if (record instanceof UpdateRecord) {
+      writer.name(ID).value(((UpdateRecord<?>) record).getId());
+    }
+
+    writer.name(FIELDS).beginObject();
+    if (record.getFields() != null) {
+      for (Map.Entry<String, Object> field : record.getFields().entrySet()) {
+        Object value = field.getValue();
+        if (value == null) {
+          if (writer.getSerializeNulls()) {
+            writer.name(field.getKey()).nullValue();
+          }
+        } else {
+          writer.name(field.getKey());
+          gson.toJson(value, value.getClass(), writer);
+        }
+      }
+    }
+    writer.endObject();
+
+    writer.endObject();
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.store;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store writing every snapshot to a compact binary file, which is mapped into memory when it is
+ * loaded.
+ *
+ * <p>Field names are stored once in a name table, values are length prefixed, and an index
+ * holds the position and id of every record. Loading a snapshot only reads the header, the
+ * records are decoded when they are accessed, see {@link TableSnapshot#getRecord(String)}.</p>
+ */
+public class BinaryTableStore extends FileTableStore {
+
+  private static final String SUFFIX = ".snapshot";
+
+  /**
+   * @param directory directory of the files, created if it doesn't exist.
+   */
+  public BinaryTableStore(File directory) {
+
+    super(directory, SUFFIX);
+  }
+
+  @Override
+  protected TableSnapshot read(File file) throws IOException {
+
+    MappedRecords records = MappedRecords.open(file);
+
+    return new TableSnapshot(records.getWatermark(), records);
+  }
+
+  @Override
+  protected void write(File file, TableSnapshot snapshot) throws IOException {
+
+    List<JsonObject> records = snapshot.getRecords();
+    Map<String, Integer> names = new HashMap<>();
+    List<String> nameTable = new ArrayList<>();
+
+    ByteArrayOutputStream ids = new ByteArrayOutputStream();
+    ByteArrayOutputStream values = new ByteArrayOutputStream();
+    DataOutputStream valuesOut = new DataOutputStream(values);
+    int[] offsets = new int[records.size()];
+    for (int i = 0; i < offsets.length; i++) {
+      JsonObject record = records.get(i);
+      JsonElement id = record.get("id");
+      writeString(ids, (id != null && id.isJsonPrimitive()) ? id.getAsString() : "");
+      offsets[i] = valuesOut.size();
+      writeValue(valuesOut, record, names, nameTable);
+    }
+
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    DataOutputStream headerOut = new DataOutputStream(header);
+    headerOut.writeInt(MappedRecords.MAGIC);
+    headerOut.writeLong(snapshot.getWatermark());
+    writeVarint(headerOut, nameTable.size());
+    for (String name : nameTable) {
+      writeString(headerOut, name);
+    }
+    headerOut.writeInt(offsets.length);
+
+    long start = (long) header.size() + 4L * offsets.length + ids.size();
+    if (start + values.size() > Integer.MAX_VALUE) {
+      throw new IOException("Snapshot too large: " + (start + values.size()) + " bytes");
+    }
+
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file)))) {
+      header.writeTo(out);
+      for (int offset : offsets) {
+        out.writeInt((int) start + offset);
+      }
+      ids.writeTo(out);
+      values.writeTo(out);
+    }
+  }
+
+  private static void writeValue(DataOutputStream out, JsonElement value,
+      Map<String, Integer> names, List<String> nameTable) throws IOException {
+
+    if (value == null || value.isJsonNull()) {
+      out.writeByte(MappedRecords.NULL);
+    } else if (value.isJsonObject()) {
+      JsonObject object = value.getAsJsonObject();
+      out.writeByte(MappedRecords.OBJECT);
+      writeVarint(out, object.size());
+      for (Map.Entry<String, JsonElement> member : object.entrySet()) {
+        Integer name = names.get(member.getKey());
+        if (name == null) {
+          name = nameTable.size();
+          names.put(member.getKey(), name);
+          nameTable.add(member.getKey());
+        }
+        writeVarint(out, name);
+        writeValue(out, member.getValue(), names, nameTable);
+      }
+    } else if (value.isJsonArray()) {
+      JsonArray array = value.getAsJsonArray();
+      out.writeByte(MappedRecords.ARRAY);
+      writeVarint(out, array.size());
+      for (JsonElement element : array) {
+        writeValue(out, element, names, nameTable);
+      }
+    } else {
+      writePrimitive(out, value.getAsJsonPrimitive());
+    }
+  }
+
+  private static void writePrimitive(DataOutputStream out, JsonPrimitive value)
+      throws IOException {
+
+    if (value.isBoolean()) {
+      out.writeByte(value.getAsBoolean() ? MappedRecords.TRUE : MappedRecords.FALSE);
+    } else if (value.isNumber()) {
+      String number = value.getAsString();
+      Long integral = null;
+      if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+        try {
+          integral = Long.parseLong(number);
+        } catch (NumberFormatException ex) {
+          // too large for a long, stored as double
+        }
+      }
+      if (integral != null) {
+        out.writeByte(MappedRecords.LONG);
+        out.writeLong(integral);
+      } else {
+        out.writeByte(MappedRecords.DOUBLE);
+        out.writeDouble(value.getAsDouble());
+      }
+    } else {
+      out.writeByte(MappedRecords.STRING);
+      writeString(out, value.getAsString());
+    }
+  }
+
+  private static void writeString(OutputStream out, String value) throws IOException {
+
+    byte[] bytes = value.getBytes(MappedRecords.UTF_8);
+    writeVarint(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static void writeVarint(OutputStream out, int value) throws IOException {
+
+    while ((value & ~0x7f) != 0) {
+      out.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+}
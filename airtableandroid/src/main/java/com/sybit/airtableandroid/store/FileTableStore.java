@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.store;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Store writing every snapshot to a JSON file in a directory, for example the files directory
+ * of the app.
+ *
+ * <p>A snapshot is written to a temporary file, synced to the disk, which then replaces the
+ * previous file, so a snapshot is either read completely or not at all, also after a crash.
+ * Snapshots of the same table must not be saved concurrently.</p>
+ *
+ * <p>Subclasses may store another format by overriding {@link #read(File)} and
+ * {@link #write(File, TableSnapshot)}.</p>
+ *
+ * @see BinaryTableStore
+ */
+public class FileTableStore implements TableStore {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final String SUFFIX = ".json";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private static final String WATERMARK = "watermark";
+  private static final String RECORDS = "records";
+
+  private final Gson gson = new GsonBuilder().serializeNulls().create();
+
+  private final File directory;
+  private final String suffix;
+
+  /**
+   * @param directory directory of the files, created if it doesn't exist.
+   */
+  public FileTableStore(File directory) {
+
+    this(directory, SUFFIX);
+  }
+
+  /**
+   * @param directory directory of the files, created if it doesn't exist.
+   * @param suffix extension of the files.
+   */
+  protected FileTableStore(File directory, String suffix) {
+
+    this.directory = directory;
+    this.suffix = suffix;
+  }
+
+  @Override
+  public TableSnapshot load(String base, String table) throws IOException {
+
+    File file = file(base, table);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      return read(file);
+    } catch (FileNotFoundException ex) {
+      return null;
+    } catch (RuntimeException ex) {
+      throw new IOException("Invalid snapshot of table [" + table + "]", ex);
+    }
+  }
+
+  /**
+   * Read a snapshot written by {@link #write(File, TableSnapshot)}.
+   *
+   * @param file the file of the snapshot.
+   * @return the snapshot.
+   */
+  protected TableSnapshot read(File file) throws IOException {
+
+    long watermark = 0;
+    List<JsonObject> records = new ArrayList<>();
+    try (JsonReader reader = new JsonReader(new InputStreamReader(
+        new BufferedInputStream(new FileInputStream(file)), UTF_8))) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if (WATERMARK.equals(name)) {
+          watermark = reader.nextLong();
+        } else if (RECORDS.equals(name)) {
+          reader.beginArray();
+          while (reader.hasNext()) {
+            records.add(gson.fromJson(reader, JsonObject.class));
+          }
+          reader.endArray();
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+    }
+
+    return new TableSnapshot(watermark, records);
+  }
+
+  @Override
+  public void save(String base, String table, TableSnapshot snapshot) throws IOException {
+
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Can't create directory " + directory);
+    }
+
+    File file = file(base, table);
+    File temp = new File(directory, file.getName() + TEMP_SUFFIX);
+    try {
+      write(temp, snapshot);
+      sync(temp);
+    } catch (IOException | RuntimeException ex) {
+      //noinspection ResultOfMethodCallIgnored
+      temp.delete();
+      throw ex;
+    }
+
+    if (!temp.renameTo(file)) {
+      //noinspection ResultOfMethodCallIgnored
+      temp.delete();
+      throw new IOException("Can't replace " + file);
+    }
+  }
+
+  /**
+   * Write a snapshot to a new file.
+   *
+   * @param file the file to write.
+   * @param snapshot the snapshot.
+   */
+  protected void write(File file, TableSnapshot snapshot) throws IOException {
+
+    try (JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(
+        new BufferedOutputStream(new FileOutputStream(file)), UTF_8))) {
+      writer.beginObject();
+      writer.name(WATERMARK).value(snapshot.getWatermark());
+      writer.name(RECORDS).beginArray();
+      for (JsonObject record : snapshot.getRecords()) {
+        gson.toJson(record, writer);
+      }
+      writer.endArray();
+      writer.endObject();
+    }
+  }
+
+  /**
+   * Flush a written file to the disk, so the rename never replaces a snapshot by a file whose
+   * content is still only in the page cache.
+   */
+  private static void sync(File file) throws IOException {
+
+    try (FileOutputStream out = new FileOutputStream(file, true)) {
+      out.getFD().sync();
+    }
+  }
+
+  @Override
+  public void remove(String base, String table) throws IOException {
+
+    File file = file(base, table);
+    if (file.exists() && !file.delete()) {
+      throw new IOException("Can't delete " + file);
+    }
+  }
+
+  /**
+   * Get the file of a table, with encoded names so any names give a distinct valid file name.
+   */
+  private File file(String base, String table) {
+
+    return new File(directory, encode(base) + "-" + encode(table) + suffix);
+  }
+
+  private static String encode(String name) {
+
+    try {
+      return URLEncoder.encode(name, "UTF-8").replace("*", "%2A").replace("-", "%2D");
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  @Override
+  public String toString() {
+
+    return getClass().getSimpleName() + "{" + directory + "}";
+  }
+}
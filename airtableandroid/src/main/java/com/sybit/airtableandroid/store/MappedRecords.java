@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.store;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Records of a binary snapshot file, mapped into memory and decoded when they are accessed.
+ *
+ * <p>Opening the file reads the header and the field name table only. The id index is read on
+ * the first lookup by id. Every access decodes the record again, so callers should keep the
+ * records they use. Instances are immutable and thread safe.</p>
+ *
+ * <p>Format, numbers are big endian and lengths and counts are unsigned varints:</p>
+ * <pre>
+ * int     magic and version
+ * long    watermark
+ * varint  number of field names, followed by the names
+ * int     number of records
+ * int[]   file position of every record
+ * string[] id of every record, empty if the record has no id
+ * value[] records
+ * </pre>
+ * <p>Strings are length prefixed UTF-8. A value is a tag byte followed by its payload: nothing
+ * for null, true and false, a long or double for numbers, a string, or the element count
+ * followed by the elements for arrays, and by pairs of field name index and value for
+ * objects.</p>
+ */
+final class MappedRecords extends AbstractList<JsonObject> implements RandomAccess {
+
+  static final int MAGIC = 0x41545301;
+
+  static final byte NULL = 0;
+  static final byte TRUE = 1;
+  static final byte FALSE = 2;
+  static final byte LONG = 3;
+  static final byte DOUBLE = 4;
+  static final byte STRING = 5;
+  static final byte ARRAY = 6;
+  static final byte OBJECT = 7;
+
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final ByteBuffer buffer;
+  private final long watermark;
+  private final String[] names;
+  private final int size;
+  private final int offsetsPosition;
+
+  private volatile Map<String, Integer> index;
+
+  private MappedRecords(ByteBuffer buffer) throws IOException {
+
+    this.buffer = buffer;
+    ByteBuffer in = buffer.duplicate();
+    if (in.getInt() != MAGIC) {
+      throw new IOException("Not a snapshot file");
+    }
+    watermark = in.getLong();
+    names = new String[readVarint(in)];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = readString(in);
+    }
+    size = in.getInt();
+    offsetsPosition = in.position();
+  }
+
+  /**
+   * Map a snapshot file into memory and read its header.
+   *
+   * @param file the file written by {@link BinaryTableStore}.
+   * @return the records of the file.
+   * @throws IOException if the file can't be read or is no snapshot file.
+   */
+  static MappedRecords open(File file) throws IOException {
+
+    try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+      FileChannel channel = input.getChannel();
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+      return new MappedRecords(buffer);
+    }
+  }
+
+  /**
+   * @return start time of the sync in ms.
+   */
+  long getWatermark() {
+
+    return watermark;
+  }
+
+  @Override
+  public JsonObject get(int index) {
+
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+    ByteBuffer in = buffer.duplicate();
+    in.position(in.getInt(offsetsPosition + 4 * index));
+
+    return readValue(in).getAsJsonObject();
+  }
+
+  @Override
+  public int size() {
+
+    return size;
+  }
+
+  /**
+   * Get the index of the record with given id, reading the id index on the first call.
+   *
+   * @return the index, -1 if there is no record with the id.
+   */
+  int indexOfId(String id) {
+
+    Map<String, Integer> result = index;
+    if (result == null) {
+      result = new HashMap<>(size * 4 / 3 + 1);
+      ByteBuffer in = buffer.duplicate();
+      in.position(offsetsPosition + 4 * size);
+      for (int i = 0; i < size; i++) {
+        String recordId = readString(in);
+        if (!recordId.isEmpty() && !result.containsKey(recordId)) {
+          result.put(recordId, i);
+        }
+      }
+      index = result;
+    }
+    Integer position = result.get(id);
+
+    return (position != null) ? position : -1;
+  }
+
+  private JsonElement readValue(ByteBuffer in) {
+
+    byte tag = in.get();
+    switch (tag) {
+      case NULL:
+        return JsonNull.INSTANCE;
+      case TRUE:
+        return new JsonPrimitive(true);
+      case FALSE:
+        return new JsonPrimitive(false);
+      case LONG:
+        return new JsonPrimitive(in.getLong());
+      case DOUBLE:
+        return new JsonPrimitive(in.getDouble());
+      case STRING:
+        return new JsonPrimitive(readString(in));
+      case ARRAY:
+        int length = readVarint(in);
+        JsonArray array = new JsonArray(length);
+        for (int i = 0; i < length; i++) {
+          array.add(readValue(in));
+        }
+        return array;
+      case OBJECT:
+        int count = readVarint(in);
+        JsonObject object = new JsonObject();
+        for (int i = 0; i < count; i++) {
+          String name = names[readVarint(in)];
+          object.add(name, readValue(in));
+        }
+        return object;
+      default:
+        throw new IllegalStateException("Invalid value tag " + tag + " at " + (in.position() - 1));
+    }
+  }
+
+  private static String readString(ByteBuffer in) {
+
+    byte[] bytes = new byte[readVarint(in)];
+    in.get(bytes);
+
+    return new String(bytes, UTF_8);
+  }
+
+  private static int readVarint(ByteBuffer in) {
+
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = in.get();
+      value |= (b & 0x7f) << shift;
+      shift += 7;
+    } while (b < 0);
+
+    return value;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.store;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Store keeping the snapshots in memory, for the lifetime of the process.
+ */
+public class MemoryTableStore implements TableStore {
+
+  private final Map<String, TableSnapshot> snapshots = new ConcurrentHashMap<>();
+
+  @Override
+  public TableSnapshot load(String base, String table) {
+
+    return snapshots.get(key(base, table));
+  }
+
+  @Override
+  public void save(String base, String table, TableSnapshot snapshot) {
+
+    snapshots.put(key(base, table), snapshot);
+  }
+
+  @Override
+  public void remove(String base, String table) {
+
+    snapshots.remove(key(base, table));
+  }
+
+  private static String key(String base, String table) {
+
+    return base.length() + ":" + base + "/" + table;
+  }
+}
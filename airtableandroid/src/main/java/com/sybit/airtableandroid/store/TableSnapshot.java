@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.store;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records of a table at a point in time, with the watermark of the sync that loaded them.
+ *
+ * <p>Records are stored as returned by Airtable, with <code>id</code>, <code>createdTime</code>
+ * and <code>fields</code>, so they are independent of the class they are mapped to. The records
+ * must not be modified.</p>
+ *
+ * <p>Snapshots loaded by a {@link BinaryTableStore} decode their records on access, every call
+ * of <code>get</code> of the records returns a new instance.</p>
+ */
+public final class TableSnapshot {
+
+  private final long watermark;
+  private final List<JsonObject> records;
+
+  /**
+   * @param watermark start time of the sync in ms.
+   * @param records records of the table.
+   */
+  public TableSnapshot(long watermark, List<JsonObject> records) {
+
+    this.watermark = watermark;
+    // mapped records are immutable and decoded lazily, so they are not copied
+    this.records = (records instanceof MappedRecords)
+        ? records : Collections.unmodifiableList(new ArrayList<>(records));
+  }
+
+  /**
+   * @return start time of the sync in ms.
+   */
+  public long getWatermark() {
+
+    return watermark;
+  }
+
+  /**
+   * @return records of the table.
+   */
+  public List<JsonObject> getRecords() {
+
+    return records;
+  }
+
+  /**
+   * Get a record by id, using the index of the file if the snapshot was loaded from a
+   * {@link BinaryTableStore}.
+   *
+   * @param id id of the record.
+   * @return the record, null if there is no record with the id.
+   */
+  public JsonObject getRecord(String id) {
+
+    if (records instanceof MappedRecords) {
+      int index = ((MappedRecords) records).indexOfId(id);
+      return (index >= 0) ? records.get(index) : null;
+    }
+
+    for (JsonObject record : records) {
+      JsonElement recordId = record.get("id");
+      if (recordId != null && recordId.isJsonPrimitive() && id.equals(recordId.getAsString())) {
+        return record;
+      }
+    }
+
+    return null;
+  }
+
+  @Override
+  public String toString() {
+
+    return "TableSnapshot{watermark=" + watermark + ", records=" + records.size() + "}";
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.store;
+
+import java.io.IOException;
+
+/**
+ * Local store of table snapshots, keyed by base and table.
+ *
+ * <p>Implementations must be thread safe. Snapshots are saved and loaded as a whole, a snapshot
+ * replaces the previous snapshot of the same table.</p>
+ *
+ * @see MemoryTableStore
+ * @see FileTableStore
+ */
+public interface TableStore {
+
+  /**
+   * Load the snapshot of a table.
+   *
+   * @param base id of the base.
+   * @param table name of the table.
+   * @return the snapshot, null if none was saved.
+   * @throws IOException if the snapshot can't be read.
+   */
+  TableSnapshot load(String base, String table) throws IOException;
+
+  /**
+   * Save the snapshot of a table, replacing the previous one.
+   *
+   * @param base id of the base.
+   * @param table name of the table.
+   * @param snapshot the snapshot.
+   * @throws IOException if the snapshot can't be written.
+   */
+  void save(String base, String table, TableSnapshot snapshot) throws IOException;
+
+  /**
+   * Remove the snapshot of a table.
+   *
+   * @param base id of the base.
+   * @param table name of the table.
+   * @throws IOException if the snapshot can't be removed.
+   */
+  void remove(String base, String table) throws IOException;
+}
@@ -0,0 +1,33 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.vo;
+
+import java.util.List;
+
+/**
+ * Response of requests deleting multiple records at once.
+ */
+public class Deletes {
+
+  private List<Delete> records;
+
+  /**
+   * @return the records
+   */
+  public List<Delete> getRecords() {
+
+    return records;
+  }
+
+  /**
+   * @param records the records to set
+   */
+  public void setRecords(List<Delete> records) {
+
+    this.records = records;
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.vo;
+
+import java.util.List;
+
+/**
+ * Page of records already mapped to items.
+ *
+ * @param <T> class of items
+ */
+public class RecordPage<T> {
+
+  private List<T> items;
+
+  private String offset;
+
+  public List<T> getItems() {
+
+    return items;
+  }
+
+  public void setItems(List<T> items) {
+
+    this.items = items;
+  }
+
+  /**
+   * @return offset to request the next page, null if this is the last page.
+   */
+  public String getOffset() {
+
+    return offset;
+  }
+
+  public void setOffset(String offset) {
+
+    this.offset = offset;
+  }
+}
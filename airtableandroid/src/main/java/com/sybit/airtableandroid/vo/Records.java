@@ -16,6 +16,8 @@ public class Records {
 
   private List<Map<String, Object>> records;
 
+  private String offset;
+
   public List<Map<String, Object>> getRecords() {
 
     return records;
@@ -26,4 +28,17 @@ public class Records {
     this.records = records;
   }
 
+  /**
+   * @return offset to request the next page, null if this is the last page.
+   */
+  public String getOffset() {
+
+    return offset;
+  }
+
+  public void setOffset(String offset) {
+
+    this.offset = offset;
+  }
+
 }
@@ -0,0 +1,31 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Sybit GmbH
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ */
+package com.sybit.airtableandroid.vo;
+
+/**
+ * Record of requests updating multiple records at once.
+ */
+public class UpdateRecord<T> extends PostRecord<T> {
+
+  private String id;
+
+  /**
+   * @return the id
+   */
+  public String getId() {
+
+    return id;
+  }
+
+  /**
+   * @param id the id to set
+   */
+  public void setId(String id) {
+
+    this.id = id;
+  }
+}
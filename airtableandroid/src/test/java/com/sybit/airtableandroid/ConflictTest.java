@@ -0,0 +1,59 @@
+package com.sybit.airtableandroid;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Checks the detection of conflicting fields and the resolvers.
+ */
+public class ConflictTest {
+
+  private static final JsonObject BASE = fields(
+      "{\"Name\":\"A\",\"Tags\":[\"x\",\"y\"],\"Status\":\"open\",\"Count\":1}");
+  private static final JsonObject LOCAL = fields(
+      "{\"Name\":\"B\",\"Tags\":[\"x\",\"z\"],\"Status\":\"done\",\"Count\":2,\"New\":true}");
+  private static final JsonObject SERVER = fields(
+      "{\"Name\":\"C\",\"Tags\":[\"w\",\"x\",\"y\"],\"Status\":\"done\",\"Count\":1}");
+
+  @Test
+  public void conflicts_WhenChangedOnBothSides_ReturnFields() {
+
+    List<String> fields = Conflict.conflicts(LOCAL, BASE, SERVER);
+
+    assertThat(fields).containsExactly("Name", "Tags").inOrder();
+    assertThat(Conflict.conflicts(LOCAL, BASE, BASE)).isEmpty();
+    assertThat(Conflict.conflicts(LOCAL, new JsonObject(), SERVER)).isEmpty();
+  }
+
+  @Test
+  public void conflicts_WhenFieldEmptyInAirtable_CompareWithNull() {
+
+    JsonObject base = fields("{\"Name\":null}");
+
+    assertThat(Conflict.conflicts(fields("{\"Name\":\"B\"}"), base, new JsonObject())).isEmpty();
+    assertThat(Conflict.conflicts(fields("{\"Name\":\"B\"}"), fields("{\"Name\":\"A\"}"),
+        new JsonObject())).containsExactly("Name");
+  }
+
+  @Test
+  public void resolve_WhenResolvers_ReturnFieldsToSend() {
+
+    Conflict conflict = new Conflict("rec1", LOCAL, BASE, SERVER,
+        Conflict.conflicts(LOCAL, BASE, SERVER));
+
+    assertThat(ConflictResolver.CLIENT_WINS.resolve(conflict)).isEqualTo(LOCAL);
+    assertThat(ConflictResolver.SERVER_WINS.resolve(conflict)).isEqualTo(
+        fields("{\"Status\":\"done\",\"Count\":2,\"New\":true}"));
+    assertThat(ConflictResolver.FIELD_MERGE.resolve(conflict)).isEqualTo(
+        fields("{\"Tags\":[\"w\",\"x\",\"z\"],\"Status\":\"done\",\"Count\":2,\"New\":true}"));
+  }
+
+  private static JsonObject fields(String json) {
+
+    return new JsonParser().parse(json).getAsJsonObject();
+  }
+}
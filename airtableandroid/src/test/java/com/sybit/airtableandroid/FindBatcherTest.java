@@ -0,0 +1,103 @@
+package com.sybit.airtableandroid;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Checks the collection of finds into batches.
+ */
+public class FindBatcherTest {
+
+  private final List<String> formulas = Collections.synchronizedList(new ArrayList<>());
+
+  private FindBatcher<String> batcher(long window, int maxSize) {
+
+    return new FindBatcher<>(formula -> {
+      formulas.add(formula);
+      List<String> found = new ArrayList<>();
+      for (String clause : formula.substring(3, formula.length() - 1).split(",")) {
+        String id = clause.substring("RECORD_ID()='".length(), clause.length() - 1);
+        if (!id.startsWith("missing")) {
+          found.add(id);
+        }
+      }
+
+      return Single.just(found);
+    }, id -> id, window, maxSize);
+  }
+
+  @Test
+  public void find_WhenWindowElapsed_SelectCollectedIds() {
+
+    FindBatcher<String> batcher = batcher(50, 50);
+
+    TestObserver<String> first = batcher.find("rec1").test();
+    TestObserver<String> second = batcher.find("rec2").test();
+    TestObserver<String> duplicate = batcher.find("rec1").test();
+    TestObserver<String> missing = batcher.find("missing").test();
+
+    first.awaitTerminalEvent();
+    missing.awaitTerminalEvent();
+    first.assertResult("rec1");
+    second.assertResult("rec2");
+    duplicate.assertResult("rec1");
+    missing.assertResult();
+    assertThat(formulas)
+        .containsExactly("OR(RECORD_ID()='rec1',RECORD_ID()='rec2',RECORD_ID()='missing')");
+  }
+
+  @Test
+  public void find_WhenMaxSizeReached_SelectWithoutWaiting() {
+
+    FindBatcher<String> batcher = batcher(60000, 50);
+
+    List<TestObserver<String>> observers = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      observers.add(batcher.find("rec" + i).test());
+    }
+
+    for (TestObserver<String> observer : observers) {
+      observer.awaitTerminalEvent();
+      observer.assertValueCount(1);
+    }
+    assertThat(formulas).hasSize(2);
+  }
+
+  @Test
+  public void find_WhenFormulaTooLong_SplitBatch() {
+
+    FindBatcher<String> batcher = batcher(50, 100);
+
+    char[] chars = new char[FindBatcher.MAX_FORMULA_LENGTH / 3];
+    Arrays.fill(chars, 'x');
+    String id = new String(chars);
+
+    List<TestObserver<String>> observers = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      observers.add(batcher.find(i + id).test());
+    }
+
+    for (TestObserver<String> observer : observers) {
+      observer.awaitTerminalEvent();
+      observer.assertValueCount(1);
+    }
+    assertThat(formulas).hasSize(2);
+    for (String formula : formulas) {
+      assertThat(formula.length()).isAtMost(FindBatcher.MAX_FORMULA_LENGTH);
+    }
+  }
+
+  @Test
+  public void formula_WhenIdContainsQuote_EscapeQuote() {
+
+    assertThat(FindBatcher.formula(Arrays.asList("a'b", "c")))
+        .isEqualTo("OR(RECORD_ID()='a\\'b',RECORD_ID()='c')");
+  }
+}
@@ -0,0 +1,60 @@
+package com.sybit.airtableandroid;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Checks the validation, encoding and equality of immutable queries.
+ */
+public class ImmutableQueryTest {
+
+  @Test
+  public void build_Always_EncodeParametersOnce() {
+
+    ImmutableQuery query = new ImmutableQuery.Builder()
+        .fields("Text", "Number")
+        .filterByFormula("{Text} = 'a b'")
+        .sort(new Sort("Number", Sort.Direction.desc))
+        .pageSize(20)
+        .build();
+
+    String encoded = query.parameters().encode();
+    assertThat(encoded).isEqualTo("fields%5B%5D=Text&fields%5B%5D=Number"
+        + "&filterByFormula=%7BText%7D%20%3D%20%27a%20b%27&pageSize=20"
+        + "&sort%5B0%5D%5Bfield%5D=Number&sort%5B0%5D%5Bdirection%5D=desc");
+    assertThat(query.parameters().encode()).isSameInstanceAs(encoded);
+  }
+
+  @Test
+  public void parameters_WhenModified_KeepQuery() {
+
+    ImmutableQuery query = new ImmutableQuery.Builder().fields("Text").build();
+
+    query.parameters().add("offset", "itr1");
+
+    assertThat(query.parameters().encode()).isEqualTo("fields%5B%5D=Text");
+  }
+
+  @Test
+  public void equals_WhenFieldsReordered_ReturnTrue() {
+
+    ImmutableQuery query = new ImmutableQuery.Builder().fields("Text", "Number").build();
+
+    assertThat(new ImmutableQuery.Builder().fields("Number", "Text").build()).isEqualTo(query);
+    assertThat(query.toBuilder().offset("itr1").build()).isNotEqualTo(query);
+    assertThat(query.toBuilder().view("Grid").build()).isNotEqualTo(query);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void build_WhenPageSizeTooLarge_ThrowException() {
+
+    new ImmutableQuery.Builder().pageSize(Table.MAX_PAGE_SIZE + 1).build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void build_WhenSortWithoutField_ThrowException() {
+
+    new ImmutableQuery.Builder().sort(new Sort(null)).build();
+  }
+}
@@ -1,24 +1,58 @@
 package com.sybit.airtableandroid;
 
+import static com.google.common.truth.Truth.assertThat;
+import static com.sybit.airtableandroid.common.Helper.check;
 import static com.sybit.airtableandroid.common.Helper.checkEntityValues;
 import static org.junit.Assert.assertEquals;
 
 import android.content.Context;
 import android.os.Build.VERSION_CODES;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sybit.airtableandroid.cache.QueryCache;
+import com.sybit.airtableandroid.cache.RecordCache;
+import com.sybit.airtableandroid.common.AnnotatedEntity;
 import com.sybit.airtableandroid.common.Entity;
 import com.sybit.airtableandroid.common.Helper;
 import com.sybit.airtableandroid.exception.AirtableException;
+import com.sybit.airtableandroid.formula.Filter;
+import com.sybit.airtableandroid.journal.Journal;
+import com.sybit.airtableandroid.journal.JournalEntry;
+import com.sybit.airtableandroid.mapper.EntityMappers;
+import com.sybit.airtableandroid.mapper.RecordMapper;
+import com.sybit.airtableandroid.store.FileTableStore;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subscribers.TestSubscriber;
+import java.io.File;
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
@@ -34,9 +68,14 @@ public class MockTableTest {
 
   private static final String API_KEY = "api_key";
   private static final String BASE = "base";
+  private Airtable airtable;
+  private Base base;
   private Table<Entity> entityTable;
   private MockWebServer server = new MockWebServer();
 
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
   @Before
   public void setUp() throws Exception {
 
@@ -46,8 +85,11 @@ public class MockTableTest {
     Context appContext = RuntimeEnvironment.application;
 
     Configuration configuration = new Configuration(API_KEY, serviceEndpoint);
-    Airtable airtable = new Airtable(appContext).configure(configuration);
-    Base base = airtable.base(BASE);
+    configuration.setRateLimit(0);
+    configuration.getRetryPolicy().setInitialBackoff(10);
+    configuration.getRetryPolicy().setLockout(100);
+    airtable = new Airtable(appContext).configure(configuration);
+    base = airtable.base(BASE);
 
     entityTable = base.table("Entity", Entity.class);
   }
@@ -81,6 +123,125 @@ public class MockTableTest {
     assertEquals("GET", request.getMethod());
   }
 
+  @Test
+  public void selectAll_WhenOffset_FollowAllPages() throws Exception {
+
+    enqueueMockResponse(200, "entities_page1.json");
+    enqueueMockResponse(200, "entities_page2.json");
+
+    TestSubscriber<Entity> testSubscriber = entityTable.selectAll()
+        .test();
+
+    testSubscriber.awaitTerminalEvent();
+
+    testSubscriber
+        .assertComplete()
+        .assertNoErrors()
+        .assertValueCount(3)
+        .assertValueAt(2, check(result -> assertThat(result.getText()).isEqualTo("Text 3")));
+
+    RecordedRequest first = server.takeRequest();
+    assertEquals("/v0/base/Entity", first.getPath());
+
+    RecordedRequest second = server.takeRequest();
+    assertEquals("itrBgBv1PbJ8NrhfW/recn0atKgqPpCAav8",
+        second.getRequestUrl().queryParameter("offset"));
+  }
+
+  @Test
+  public void selectAll_WhenNotRequested_LoadOnlyOnePageAhead() throws Exception {
+
+    enqueueMockResponse(200, "entities_page1.json");
+    enqueueMockResponse(200, "entities_page1.json");
+    enqueueMockResponse(200, "entities_page2.json");
+
+    TestSubscriber<Entity> testSubscriber = entityTable.selectAll()
+        .test(1);
+
+    testSubscriber
+        .assertNotComplete()
+        .assertValueCount(1);
+
+    assertEquals(2, server.getRequestCount());
+
+    testSubscriber.cancel();
+  }
+
+  @Test
+  public void selectAll_WhenPrefetch_KeepOrderAndCollectStats() throws Exception {
+
+    enqueueMockResponse(200, "entities_page1.json");
+    enqueueMockResponse(200, "entities_page1.json");
+    enqueueMockResponse(200, "entities_page2.json");
+
+    ScanStats stats = new ScanStats();
+
+    TestSubscriber<String> testSubscriber = entityTable.selectAll(Table.ALL_RECORDS, 2, stats)
+        .map(entity -> {
+          Thread.sleep(20);
+          return entity.getText();
+        })
+        .test();
+
+    testSubscriber.awaitTerminalEvent();
+
+    testSubscriber
+        .assertComplete()
+        .assertNoErrors()
+        .assertValues("Text 1", "Text 2", "Text 1", "Text 2", "Text 3");
+
+    assertEquals(3, stats.getPages());
+    assertEquals(5, stats.getRecords());
+    assertThat(stats.getMapTime(TimeUnit.MILLISECONDS)).isAtLeast(100L);
+    assertThat(stats.getOverlapTime(TimeUnit.NANOSECONDS))
+        .isAtMost(stats.getFetchTime(TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  public void selectAll_WhenRateLimited_AcquirePermitPerPage() throws Exception {
+
+    enqueueMockResponse(200, "entities_page1.json");
+    enqueueMockResponse(200, "entities_page1.json");
+    enqueueMockResponse(200, "entities_page2.json");
+
+    airtable.getConfig().setRateLimit(5);
+    Base limitedBase = airtable.base(BASE);
+    Table<Entity> table = limitedBase.table("Entity", Entity.class);
+
+    long start = System.nanoTime();
+    TestSubscriber<Entity> testSubscriber = table.selectAll()
+        .test();
+
+    testSubscriber.awaitTerminalEvent();
+    testSubscriber
+        .assertComplete()
+        .assertValueCount(5);
+
+    assertThat(System.nanoTime() - start).isAtLeast(TimeUnit.MILLISECONDS.toNanos(400));
+    assertEquals(3, limitedBase.limiter().getPermits());
+    assertEquals(2, limitedBase.limiter().getDelayed());
+  }
+
+  @Test
+  public void limiter_WhenConfigChanged_CreateAgain() {
+
+    RateLimiter limiter = base.limiter();
+    Retrier retrier = base.retrier();
+
+    assertThat(base.limiter()).isSameInstanceAs(limiter);
+    assertThat(base.retrier()).isSameInstanceAs(retrier);
+
+    airtable.getConfig().setRateBurst(10);
+
+    assertThat(base.limiter()).isNotSameInstanceAs(limiter);
+    assertThat(base.retrier()).isNotSameInstanceAs(retrier);
+
+    retrier = base.retrier();
+    airtable.getConfig().setRetryPolicy(new RetryPolicy());
+
+    assertThat(base.retrier()).isNotSameInstanceAs(retrier);
+  }
+
   @Test
   public void createEntity_Always_ReturnCreatedValue() throws Exception {
 
@@ -96,6 +257,69 @@ public class MockTableTest {
         .test();
 
     checkEntityValues(testObserver, entity);
+
+    RecordedRequest request = server.takeRequest();
+    assertEquals("POST", request.getMethod());
+    assertEquals("{\"fields\":{\"Text\":\"New event\",\"Number\":111.1,\"Checkbox\":true,"
+        + "\"Date\":\"2018-03-31\",\"NullableInteger\":999}}", request.getBody().readUtf8());
+  }
+
+  @Test
+  public void createAll_Always_SendBatchAndReturnResults() throws Exception {
+
+    enqueueMockResponse(200, "entities_created.json");
+
+    List<Entity> entities = newEntities(2);
+
+    TestSubscriber<RecordResult<Entity>> testSubscriber = entityTable.createAll(entities)
+        .test();
+
+    testSubscriber.awaitTerminalEvent();
+    testSubscriber
+        .assertComplete()
+        .assertNoErrors()
+        .assertValueCount(2);
+
+    for (RecordResult<Entity> result : testSubscriber.values()) {
+      assertThat(result.isSuccess()).isTrue();
+      assertThat(result.getResult().getId()).startsWith("rec0Xqfldqwf");
+      assertThat(result.getResult().getText()).isEqualTo(result.getItem().getText());
+    }
+
+    RecordedRequest request = server.takeRequest();
+    assertEquals("POST", request.getMethod());
+    assertEquals("/v0/base/Entity", request.getPath());
+    assertEquals("{\"records\":["
+        + "{\"fields\":{\"Text\":\"New event 1\",\"Number\":111.1,\"Checkbox\":true,"
+        + "\"Date\":\"2018-03-31\",\"NullableInteger\":1}},"
+        + "{\"fields\":{\"Text\":\"New event 2\",\"Number\":111.1,\"Checkbox\":true,"
+        + "\"Date\":\"2018-03-31\",\"NullableInteger\":2}}]}", request.getBody().readUtf8());
+  }
+
+  @Test
+  public void createAll_WhenBatchFails_ReportErrorOfBatchOnly() throws Exception {
+
+    enqueueMockResponse(422, "entities_invalid.json");
+    enqueueMockResponse(200, "entities_created.json");
+
+    TestSubscriber<RecordResult<Entity>> testSubscriber = entityTable
+        .createAll(Flowable.fromIterable(newEntities(12)), 1)
+        .test();
+
+    testSubscriber.awaitTerminalEvent();
+    testSubscriber
+        .assertComplete()
+        .assertNoErrors()
+        .assertValueCount(12);
+
+    List<RecordResult<Entity>> results = testSubscriber.values();
+    for (int i = 0; i < Table.BATCH_SIZE; i++) {
+      assertThat(results.get(i).isSuccess()).isFalse();
+      assertThat(results.get(i).getError()).isInstanceOf(AirtableException.class);
+    }
+    assertThat(results.get(10).isSuccess()).isTrue();
+    assertThat(results.get(11).isSuccess()).isTrue();
+    assertEquals(2, server.getRequestCount());
   }
 
   @Test
@@ -114,6 +338,105 @@ public class MockTableTest {
     checkEntityValues(testObserver, entity);
   }
 
+  @Test
+  public void updateAll_WhenItemWithoutId_SendOthersWithNulls() throws Exception {
+
+    enqueueMockResponse(200, "entities_created.json");
+
+    List<Entity> entities = new ArrayList<>();
+    entities.add(new Entity("rec0XqfldqwfXeoaa", "New event 1", 111.1, true, Helper.newDate(),
+        null));
+    entities.add(new Entity("New event", 111.1, true, Helper.newDate(), 1));
+    entities.add(new Entity("rec0XqfldqwfXeobb", "New event 2", 111.1, true, Helper.newDate(),
+        2));
+
+    TestSubscriber<RecordResult<Entity>> testSubscriber = entityTable.updateAll(entities)
+        .test();
+
+    testSubscriber.awaitTerminalEvent();
+    testSubscriber
+        .assertComplete()
+        .assertNoErrors()
+        .assertValueCount(3);
+
+    RecordResult<Entity> failure = testSubscriber.values().get(0);
+    assertThat(failure.getItem()).isSameInstanceAs(entities.get(1));
+    assertThat(failure.getError()).isInstanceOf(AirtableException.class);
+    assertThat(testSubscriber.values().get(1).getResult().getId()).isEqualTo("rec0XqfldqwfXeoaa");
+    assertThat(entities.get(0).getId()).isEqualTo("rec0XqfldqwfXeoaa");
+
+    RecordedRequest request = server.takeRequest();
+    assertEquals("PATCH", request.getMethod());
+    assertEquals("/v0/base/Entity", request.getPath());
+    assertEquals("{\"records\":["
+        + "{\"id\":\"rec0XqfldqwfXeoaa\",\"fields\":{\"Text\":\"New event 1\",\"Number\":111.1,"
+        + "\"Checkbox\":true,\"Date\":\"2018-03-31\",\"NullableInteger\":null}},"
+        + "{\"id\":\"rec0XqfldqwfXeobb\",\"fields\":{\"Text\":\"New event 2\",\"Number\":111.1,"
+        + "\"Checkbox\":true,\"Date\":\"2018-03-31\",\"NullableInteger\":2}}]}",
+        request.getBody().readUtf8());
+  }
+
+  @Test
+  public void replaceAll_Always_SendPut() throws Exception {
+
+    enqueueMockResponse(200, "entities_created.json");
+
+    List<Entity> entities = new ArrayList<>();
+    entities.add(new Entity("rec0XqfldqwfXeoaa", "New event 1", 111.1, true, Helper.newDate(),
+        1));
+    entities.add(new Entity("rec0XqfldqwfXeobb", "New event 2", 111.1, true, Helper.newDate(),
+        2));
+
+    TestSubscriber<RecordResult<Entity>> testSubscriber = entityTable.replaceAll(entities)
+        .test();
+
+    testSubscriber.awaitTerminalEvent();
+    testSubscriber
+        .assertComplete()
+        .assertNoErrors()
+        .assertValueCount(2);
+
+    assertThat(testSubscriber.values().get(1).isSuccess()).isTrue();
+    assertEquals("PUT", server.takeRequest().getMethod());
+  }
+
+  @Test
+  public void replace_Always_SendSinglePut() throws Exception {
+
+    enqueueMockResponse(200, "entities_created.json");
+
+    Entity entity = new Entity("rec0XqfldqwfXeoaa", "New event 1", 111.1, true,
+        Helper.newDate(), 1);
+
+    TestObserver<Entity> testObserver = entityTable.replace(entity).test();
+
+    testObserver.awaitTerminalEvent();
+    testObserver
+        .assertComplete()
+        .assertNoErrors()
+        .assertValueCount(1);
+
+    assertEquals("rec0XqfldqwfXeoaa", testObserver.values().get(0).getId());
+    RecordedRequest request = server.takeRequest();
+    assertEquals("PUT", request.getMethod());
+    assertEquals("/v0/base/Entity", request.getPath());
+    assertEquals("{\"records\":["
+        + "{\"id\":\"rec0XqfldqwfXeoaa\",\"fields\":{\"Text\":\"New event 1\",\"Number\":111.1,"
+        + "\"Checkbox\":true,\"Date\":\"2018-03-31\",\"NullableInteger\":1}}]}",
+        request.getBody().readUtf8());
+  }
+
+  @Test
+  public void replace_WhenNoId_ReturnErrorWithoutRequest() {
+
+    Entity entity = new Entity(null, "New event 1", 111.1, true, Helper.newDate(), 1);
+
+    entityTable.replace(entity).test().awaitDone(5, TimeUnit.SECONDS)
+        .assertNoValues()
+        .assertError(AirtableException.class);
+    assertEquals(0, server.getRequestCount());
+  }
+
   @Test
   public void deleteEvent_Always_ReturnResult() throws Exception {
 
@@ -131,6 +454,97 @@ public class MockTableTest {
         .assertValue(result -> true);
   }
 
+  @Test
+  public void destroyAll_Always_DeleteTenRecordsPerRequest() throws Exception {
+
+    server.setDispatcher(new DeleteDispatcher());
+
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      ids.add("rec" + i);
+    }
+
+    TestSubscriber<RecordResult<String>> testSubscriber = entityTable.destroyAll(ids)
+        .test();
+
+    testSubscriber.awaitTerminalEvent();
+    testSubscriber
+        .assertComplete()
+        .assertNoErrors()
+        .assertValueCount(12);
+
+    for (RecordResult<String> result : testSubscriber.values()) {
+      assertThat(result.isSuccess()).isTrue();
+    }
+    assertEquals(2, server.getRequestCount());
+
+    List<Integer> batchSizes = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      RecordedRequest request = server.takeRequest();
+      assertEquals("DELETE", request.getMethod());
+      batchSizes.add(request.getRequestUrl().queryParameterValues("records[]").size());
+    }
+    assertThat(batchSizes).containsExactly(Table.BATCH_SIZE, 2);
+  }
+
+  @Test
+  public void destroyWhere_Always_DeleteIdsOfScan() throws Exception {
+
+    server.setDispatcher(new DeleteDispatcher());
+
+    Query query = new Query() {
+      @Override
+      public Integer getMaxRecords() {
+
+        return null;
+      }
+
+      @Override
+      public String getView() {
+
+        return null;
+      }
+
+      @Override
+      public List<Sort> getSort() {
+
+        return null;
+      }
+
+      @Override
+      public String filterByFormula() {
+
+        return "{Checkbox}";
+      }
+
+      @Override
+      public String[] getFields() {
+
+        return new String[]{"Text"};
+      }
+
+      @Override
+      public Integer getPageSize() {
+
+        return null;
+      }
+    };
+
+    TestSubscriber<RecordResult<String>> testSubscriber = entityTable.destroyWhere(query)
+        .test();
+
+    testSubscriber.awaitTerminalEvent();
+    testSubscriber
+        .assertComplete()
+        .assertNoErrors()
+        .assertValueCount(3);
+
+    RecordedRequest request = server.takeRequest();
+    assertEquals("GET", request.getMethod());
+    assertEquals("", request.getRequestUrl().queryParameter("fields[]"));
+    assertEquals("{Checkbox}", request.getRequestUrl().queryParameter("filterByFormula"));
+  }
+
   @Test
   public void select_WhenNotFound_ThrowAirtableException() throws Exception {
 
@@ -155,6 +569,765 @@ public class MockTableTest {
             "Could not find what you are looking for (NOT_FOUND) [Http code 404]");
   }
 
+  @Test
+  public void select_WhenServiceUnavailable_RetryRead() throws Exception {
+
+    enqueueMockResponse(HttpURLConnection.HTTP_UNAVAILABLE, "entity_not_found.json");
+    enqueueMockResponse(200, "entities_all.json");
+
+    TestObserver<Entity> testObserver = entityTable.select()
+        .toObservable()
+        .concatMap(Observable::fromIterable)
+        .test();
+
+    testObserver.awaitTerminalEvent();
+    testObserver
+        .assertComplete()
+        .assertValueCount(2);
+
+    assertEquals(2, server.getRequestCount());
+    assertEquals(1, base.retrier().getRetries());
+  }
+
+  @Test
+  public void create_WhenServerError_DontRetryWrite() throws Exception {
+
+    enqueueMockResponse(HttpURLConnection.HTTP_INTERNAL_ERROR, "entity_not_found.json");
+
+    TestObserver<Entity> testObserver = entityTable
+        .create(new Entity("New event", 111.1, true, Helper.newDate(), 999))
+        .test();
+
+    testObserver.awaitTerminalEvent();
+    testObserver.assertError(AirtableException.class);
+
+    assertEquals(1, server.getRequestCount());
+    assertEquals(0, base.retrier().getRetries());
+  }
+
+  @Test
+  public void find_WhenTooManyRequests_WaitForLockout() throws Exception {
+
+    enqueueMockResponse(429, "entity_not_found.json");
+    enqueueMockResponse(200, "entity_created.json");
+
+    long start = System.nanoTime();
+    TestObserver<Entity> testObserver = entityTable.find("rec0XqfldqwfXeoaa")
+        .test();
+
+    testObserver.awaitTerminalEvent();
+    testObserver
+        .assertComplete()
+        .assertValueCount(1);
+
+    assertThat(System.nanoTime() - start).isAtLeast(TimeUnit.MILLISECONDS.toNanos(100));
+    assertEquals(1, base.retrier().getLockouts());
+    assertThat(base.retrier().getBackoffTime(TimeUnit.MILLISECONDS)).isAtLeast(100L);
+  }
+
+  @Test
+  public void find_WhenRetriesExhausted_ThrowAirtableException() throws Exception {
+
+    airtable.getConfig().getRetryPolicy().setMaxRetries(1);
+    enqueueMockResponse(HttpURLConnection.HTTP_UNAVAILABLE, "entity_not_found.json");
+    enqueueMockResponse(HttpURLConnection.HTTP_UNAVAILABLE, "entity_not_found.json");
+
+    TestObserver<Entity> testObserver = entityTable.find("rec0XqfldqwfXeoaa")
+        .test();
+
+    testObserver.awaitTerminalEvent();
+    testObserver.assertFailure(error ->
+        ((AirtableException) error).getStatusCode() == HttpURLConnection.HTTP_UNAVAILABLE);
+
+    assertEquals(2, server.getRequestCount());
+    assertEquals(1, base.retrier().getGiveUps());
+  }
+
+  @Test
+  public void find_WhenCached_ReturnWithoutRequest() throws Exception {
+
+    enqueueMockResponse(200, "entities_all.json");
+    enqueueMockResponse(200, "entity_deleted.json");
+    enqueueMockResponse(200, "entity_created.json");
+
+    RecordCache<Entity> cache = new RecordCache<>(100, 1, TimeUnit.MINUTES);
+    entityTable.setRecordCache(cache);
+
+    List<Entity> entities = entityTable.select().blockingGet();
+    String id = entities.get(0).getId();
+    String text = entities.get(0).getText();
+
+    Entity found = entityTable.find(id).blockingGet();
+    assertThat(found).isNotSameInstanceAs(entities.get(0));
+    assertEquals(id, found.getId());
+    assertEquals(text, found.getText());
+    assertEquals(1, server.getRequestCount());
+    assertEquals(1, cache.getHits());
+
+    found.setText("Modified");
+    entities.get(0).setText("Modified");
+    assertEquals(text, entityTable.find(id).blockingGet().getText());
+
+    entityTable.destroy(id).blockingGet();
+    entityTable.find(id).blockingGet();
+    assertEquals(3, server.getRequestCount());
+  }
+
+  @Test
+  public void select_WhenCached_ReturnWithoutRequestUntilWrite() throws Exception {
+
+    enqueueMockResponse(200, "entities_all.json");
+    enqueueMockResponse(200, "entity_created.json");
+    enqueueMockResponse(200, "entities_all.json");
+
+    QueryCache<Entity> cache = new QueryCache<>(10, 1, TimeUnit.MINUTES);
+    entityTable.setQueryCache(cache);
+
+    List<Entity> entities = entityTable.select().blockingGet();
+    String id = entities.get(0).getId();
+    entities.get(0).setId("recModified");
+    List<Entity> cached = entityTable.select().blockingGet();
+    assertThat(cached).hasSize(entities.size());
+    assertEquals(id, cached.get(0).getId());
+    assertEquals(1, server.getRequestCount());
+    assertEquals(1, cache.getHits());
+
+    entityTable.create(newEntities(1).get(0)).blockingGet();
+    assertThat(entityTable.select().blockingGet()).isNotSameInstanceAs(entities);
+    assertEquals(3, server.getRequestCount());
+    assertEquals(1, cache.getInvalidations());
+  }
+
+  @Test
+  public void select_WhenProjectionChanged_MissCache() throws Exception {
+
+    enqueueMockResponse(200, "entities_all.json");
+    enqueueMockResponse(200, "entities_all.json");
+
+    QueryCache<Entity> cache = new QueryCache<>(10, 1, TimeUnit.MINUTES);
+    entityTable.setQueryCache(cache);
+
+    entityTable.select().blockingGet();
+    entityTable.setProjection(true);
+    entityTable.select().blockingGet();
+    entityTable.select().blockingGet();
+
+    assertEquals(2, server.getRequestCount());
+    assertEquals(1, cache.getHits());
+    assertThat(server.takeRequest().getRequestUrl().queryParameter("fields[]")).isNull();
+    assertThat(server.takeRequest().getRequestUrl().queryParameter("fields[]")).isNotNull();
+  }
+
+  @Test
+  public void select_WhenIdenticalInFlight_ShareRequest() throws Exception {
+
+    MockResponse response = new MockResponse()
+        .setResponseCode(200)
+        .setBody(Helper.readFromInputStream("entities_all.json"))
+        .setBodyDelay(300, TimeUnit.MILLISECONDS);
+    server.enqueue(response);
+
+    List<TestObserver<List<Entity>>> observers = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      observers.add(entityTable.select().subscribeOn(Schedulers.io()).test());
+    }
+
+    Set<Entity> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (TestObserver<List<Entity>> observer : observers) {
+      observer.awaitTerminalEvent();
+      observer.assertComplete();
+      List<Entity> entities = observer.values().get(0);
+      assertThat(entities).hasSize(2);
+      assertEquals("recOycQDwG7iLL17e", entities.get(0).getId());
+      instances.addAll(entities);
+    }
+    assertEquals(6, instances.size());
+    assertEquals(1, server.getRequestCount());
+    assertEquals(2, entityTable.getSingleFlight().getCoalesced());
+  }
+
+  @Test
+  public void find_WhenBatched_SelectIdsByFormula() throws Exception {
+
+    enqueueMockResponse(200, "entities_all.json");
+    airtable.getConfig().setFindBatchWindow(50);
+
+    TestObserver<Entity> first = entityTable.find("recOycQDwG7iLL17e").test();
+    TestObserver<Entity> second = entityTable.find("recn0atKgqPpCAav8").test();
+    TestObserver<Entity> missing = entityTable.find("recMissing").test();
+
+    first.awaitTerminalEvent();
+    second.awaitTerminalEvent();
+    missing.awaitTerminalEvent();
+    assertEquals("recOycQDwG7iLL17e", first.values().get(0).getId());
+    assertEquals("recn0atKgqPpCAav8", second.values().get(0).getId());
+    missing.assertResult();
+
+    assertEquals(1, server.getRequestCount());
+    RecordedRequest request = server.takeRequest();
+    assertEquals("OR(RECORD_ID()='recOycQDwG7iLL17e',RECORD_ID()='recn0atKgqPpCAav8',"
+            + "RECORD_ID()='recMissing')",
+        request.getRequestUrl().queryParameter("filterByFormula"));
+  }
+
+  @Test
+  public void writeBehind_WhenFlushed_SendMergedUpdates() throws Exception {
+
+    EchoDispatcher dispatcher = new EchoDispatcher();
+    server.setDispatcher(dispatcher);
+    WriteBehind<Entity> writeBehind = new WriteBehind<>(entityTable, 1, TimeUnit.MINUTES);
+
+    Entity first = new Entity("rec1", "Text 1", 1, false, Helper.newDate(), 1);
+    Entity second = new Entity("rec2", "Text 2", 2, false, Helper.newDate(), 2);
+    writeBehind.update(first);
+    first.setText("Text 1 edited");
+    TestObserver<Void> edited = writeBehind.update(first).test();
+    writeBehind.update(second);
+
+    assertEquals(0, server.getRequestCount());
+    assertEquals(2, writeBehind.getPendingCount());
+    edited.assertNotComplete();
+
+    assertThat(writeBehind.flush().blockingAwait(5, TimeUnit.SECONDS)).isTrue();
+    edited.assertComplete();
+
+    assertEquals(1, server.getRequestCount());
+    RecordedRequest request = server.takeRequest();
+    assertEquals("PATCH", request.getMethod());
+    JsonArray records = dispatcher.bodies.get(0).getAsJsonArray("records");
+    assertEquals(2, records.size());
+    assertEquals("Text 1 edited", records.get(0).getAsJsonObject()
+        .getAsJsonObject("fields").get("Text").getAsString());
+    assertEquals(1, writeBehind.getMerges());
+    assertEquals(2, writeBehind.getSent());
+  }
+
+  @Test
+  public void writeBehind_WhenBatchFull_SendWithoutFlush() throws Exception {
+
+    server.setDispatcher(new EchoDispatcher());
+    WriteBehind<Entity> writeBehind = new WriteBehind<>(entityTable, 1, TimeUnit.MINUTES);
+
+    List<Entity> entities = newEntities(Table.BATCH_SIZE + 1);
+    List<TestObserver<Void>> observers = new ArrayList<>();
+    for (int i = 0; i < entities.size(); i++) {
+      entities.get(i).setId("rec" + i);
+      observers.add(writeBehind.update(entities.get(i)).test());
+    }
+
+    for (int i = 0; i < Table.BATCH_SIZE; i++) {
+      observers.get(i).awaitTerminalEvent(5, TimeUnit.SECONDS);
+      observers.get(i).assertComplete();
+    }
+    assertEquals(1, server.getRequestCount());
+    assertEquals(1, writeBehind.getPendingCount());
+  }
+
+  @Test
+  public void writeBehind_WhenNoChanges_CompleteWithoutRequest() throws Exception {
+
+    enqueueMockResponse(200, "entity_created.json");
+    entityTable.setSnapshotCache(new RecordCache<>(100, 1, TimeUnit.MINUTES));
+    WriteBehind<Entity> writeBehind = new WriteBehind<>(entityTable, 1, TimeUnit.MINUTES);
+    Entity entity = entityTable.find("rec0XqfldqwfXeoaa").blockingGet();
+
+    writeBehind.update(entity).test().assertComplete();
+
+    assertEquals(0, writeBehind.getPendingCount());
+    assertThat(writeBehind.flush().blockingAwait(5, TimeUnit.SECONDS)).isTrue();
+    assertEquals(1, server.getRequestCount());
+  }
+
+  @Test
+  public void writeBehind_WhenEditReverted_SendSnapshotValue() throws Exception {
+
+    enqueueMockResponse(200, "entity_created.json");
+    entityTable.setSnapshotCache(new RecordCache<>(100, 1, TimeUnit.MINUTES));
+    WriteBehind<Entity> writeBehind = new WriteBehind<>(entityTable, 1, TimeUnit.MINUTES);
+    Entity entity = entityTable.find("rec0XqfldqwfXeoaa").blockingGet();
+    String text = entity.getText();
+    EchoDispatcher dispatcher = new EchoDispatcher();
+    server.setDispatcher(dispatcher);
+
+    entity.setText("Edited");
+    writeBehind.update(entity);
+    entity.setText(text);
+    writeBehind.update(entity);
+
+    assertThat(writeBehind.flush().blockingAwait(5, TimeUnit.SECONDS)).isTrue();
+    assertEquals(2, server.getRequestCount());
+    JsonObject fields = dispatcher.bodies.get(0).getAsJsonArray("records").get(0)
+        .getAsJsonObject().getAsJsonObject("fields");
+    assertEquals(text, fields.get("Text").getAsString());
+    assertEquals(1, writeBehind.getMerges());
+  }
+
+  @Test
+  public void writeBehind_WhenRequestFails_ReportFailedIds() throws Exception {
+
+    server.enqueue(new MockResponse().setResponseCode(422).setBody(
+        "{\"error\":{\"type\":\"INVALID_VALUE_FOR_COLUMN\",\"message\":\"Invalid\"}}"));
+    server.enqueue(new MockResponse().setBody("{\"records\":[{\"id\":\"rec1\","
+        + "\"fields\":{\"Text\":\"Text 1\"},\"createdTime\":\"2018-01-01T00:00:00.000Z\"}]}"));
+    WriteBehind<Entity> writeBehind = new WriteBehind<>(entityTable, 1, TimeUnit.MINUTES);
+    Entity first = new Entity("rec1", "Text 1", 1, false, Helper.newDate(), 1);
+    Entity second = new Entity("rec2", "Text 2", 2, false, Helper.newDate(), 2);
+    writeBehind.update(first);
+    writeBehind.update(second);
+
+    writeBehind.flush().test().awaitTerminalEvent(5, TimeUnit.SECONDS);
+
+    assertThat(writeBehind.getFailedIds()).containsExactly("rec1", "rec2").inOrder();
+    assertEquals(2, writeBehind.getFailed());
+    TestObserver<Void> retry = writeBehind.update(first).test();
+    assertThat(writeBehind.flush().blockingAwait(5, TimeUnit.SECONDS)).isTrue();
+    retry.assertComplete();
+    assertThat(writeBehind.getFailedIds()).containsExactly("rec2");
+  }
+
+  @Test
+  public void update_WhenSnapshotTracked_SendChangedFieldsOnly() throws Exception {
+
+    enqueueMockResponse(200, "entity_created.json");
+    enqueueMockResponse(200, "entity_edited.json");
+    entityTable.setSnapshotCache(new RecordCache<>(100, 1, TimeUnit.MINUTES));
+
+    Entity entity = entityTable.find("rec0XqfldqwfXeoaa").blockingGet();
+    entity.setText("Text modified");
+    Entity updated = entityTable.update(entity).blockingGet();
+
+    server.takeRequest();
+    RecordedRequest request = server.takeRequest();
+    assertEquals("PATCH", request.getMethod());
+    assertEquals("{\"fields\":{\"Text\":\"Text modified\"}}", request.getBody().readUtf8());
+
+    assertThat(entityTable.update(updated).blockingGet()).isSameInstanceAs(updated);
+    assertEquals(2, server.getRequestCount());
+  }
+
+  @Test
+  public void select_WhenInvalidParameter_ReturnError() {
+
+    entityTable.select(0).test().assertError(IllegalArgumentException.class);
+    entityTable.select((Sort) null).test().assertError(IllegalArgumentException.class);
+    entityTable.select(new String[]{null}).test().assertError(IllegalArgumentException.class);
+    assertEquals(0, server.getRequestCount());
+  }
+
+  @Test
+  public void select_WhenAnnotatedEntity_MapByGeneratedMapper() throws Exception {
+
+    enqueueMockResponse(200, "entities_page1.json");
+    Table<AnnotatedEntity> table = base.table("Annotated", AnnotatedEntity.class);
+
+    List<AnnotatedEntity> entities = table.select().blockingGet();
+
+    assertThat(base.mapper(AnnotatedEntity.class)).isNotInstanceOf(RecordMapper.class);
+    assertThat(base.mapper(AnnotatedEntity.class))
+        .isSameInstanceAs(EntityMappers.get(AnnotatedEntity.class));
+    assertEquals(2, entities.size());
+    assertEquals("recOycQDwG7iLL17e", entities.get(0).getId());
+    assertEquals("Text 1", entities.get(0).getText());
+    assertEquals(111.1, entities.get(0).getNumber(), 0);
+  }
+
+  @Test
+  public void select_WhenProjection_RequestMappedColumns() throws Exception {
+
+    enqueueMockResponse(200, "entities_all.json");
+    entityTable.setProjection(true);
+
+    entityTable.select().blockingGet();
+
+    RecordedRequest request = server.takeRequest();
+    assertThat(request.getRequestUrl().queryParameterValues("fields[]"))
+        .containsExactly("Text", "Number", "Checkbox", "Date", "NullableInteger").inOrder();
+  }
+
+  @Test
+  public void select_WhenMultipleFieldsAndSorts_SendAllParameters() throws Exception {
+
+    enqueueMockResponse(200, "entities_all.json");
+
+    entityTable.select(new Query() {
+      @Override
+      public Integer getMaxRecords() {
+
+        return null;
+      }
+
+      @Override
+      public String getView() {
+
+        return null;
+      }
+
+      @Override
+      public List<Sort> getSort() {
+
+        return Arrays.asList(new Sort("Number", Sort.Direction.desc), new Sort("Text"));
+      }
+
+      @Override
+      public String filterByFormula() {
+
+        return "AND({Checkbox}, {Number} > 1)";
+      }
+
+      @Override
+      public String[] getFields() {
+
+        return new String[]{"Text", "Number"};
+      }
+
+      @Override
+      public Integer getPageSize() {
+
+        return null;
+      }
+    }).blockingGet();
+
+    HttpUrl url = server.takeRequest().getRequestUrl();
+    assertThat(url.queryParameterValues("fields[]")).containsExactly("Text", "Number").inOrder();
+    assertEquals("Number", url.queryParameter("sort[0][field]"));
+    assertEquals("desc", url.queryParameter("sort[0][direction]"));
+    assertEquals("Text", url.queryParameter("sort[1][field]"));
+    assertEquals("asc", url.queryParameter("sort[1][direction]"));
+    assertEquals("AND({Checkbox}, {Number} > 1)", url.queryParameter("filterByFormula"));
+  }
+
+  @Test
+  public void selectAll_WhenImmutableQueryWithOffset_StartAtOffset() throws Exception {
+
+    enqueueMockResponse(200, "entities_page2.json");
+    enqueueMockResponse(200, "entities_page2.json");
+    ImmutableQuery query = new ImmutableQuery.Builder()
+        .fields("Text")
+        .offset("itrPage2")
+        .build();
+
+    long first = entityTable.selectAll(query).count().blockingGet();
+    long second = entityTable.selectAll(query).count().blockingGet();
+
+    assertEquals(first, second);
+    for (int i = 0; i < 2; i++) {
+      HttpUrl url = server.takeRequest().getRequestUrl();
+      assertEquals("itrPage2", url.queryParameter("offset"));
+      assertEquals("Text", url.queryParameter("fields[]"));
+    }
+  }
+
+  @Test
+  public void select_WhenFilter_SendCompiledFormula() throws Exception {
+
+    enqueueMockResponse(200, "entities_all.json");
+
+    entityTable.select(Filter.and(Filter.eq("Checkbox", true), Filter.gt("Number", 100)))
+        .blockingGet();
+
+    assertEquals("AND({Checkbox}=TRUE(),{Number}>100)",
+        server.takeRequest().getRequestUrl().queryParameter("filterByFormula"));
+  }
+
+  @Test
+  public void select_WhenFilterFieldNotMapped_ThrowException() {
+
+    entityTable.select(Filter.eq("Unknown", 1)).test()
+        .assertError(IllegalArgumentException.class);
+    assertEquals(0, server.getRequestCount());
+  }
+
+  @Test
+  public void sync_WhenDelta_MergeChangesAndRemoveDeleted() throws Exception {
+
+    server.setDispatcher(new SyncDispatcher());
+    SyncEngine<Entity> engine = new SyncEngine<>(entityTable);
+    engine.setReconcileInterval(2);
+
+    SyncEngine.Result first = engine.sync().blockingGet();
+    SyncEngine.Result second = engine.sync().blockingGet();
+
+    assertThat(first.isFull()).isTrue();
+    assertEquals(2, first.getUpdated());
+    assertThat(second.isFull()).isFalse();
+    assertEquals(1, second.getUpdated());
+    assertEquals(1, second.getDeleted());
+    assertEquals(1, engine.getRecords().size());
+    assertEquals("recOycQDwG7iLL17e", engine.getRecords().get(0).getId());
+
+    assertEquals(3, server.getRequestCount());
+    assertThat(server.takeRequest().getRequestUrl().queryParameter("filterByFormula")).isNull();
+    assertThat(server.takeRequest().getRequestUrl().queryParameter("filterByFormula"))
+        .startsWith("IS_AFTER(LAST_MODIFIED_TIME(),DATETIME_PARSE('");
+    assertEquals("", server.takeRequest().getRequestUrl().queryParameter("fields[]"));
+  }
+
+  @Test
+  public void sync_WhenDeviceClockWrong_TakeWatermarkFromServer() throws Exception {
+
+    SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    long serverTime = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+    server.enqueue(new MockResponse()
+        .setBody(Helper.readFromInputStream("entities_all.json"))
+        .addHeader("Date", format.format(new Date(serverTime))));
+    SyncEngine<Entity> engine = new SyncEngine<>(entityTable);
+
+    engine.sync().blockingGet();
+
+    assertThat(engine.getWatermark()).isAtLeast(serverTime - TimeUnit.SECONDS.toMillis(2));
+  }
+
+  @Test
+  public void sync_WhenReconciled_LoadMissedRecords() throws Exception {
+
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+
+        HttpUrl url = request.getRequestUrl();
+        String formula = url.queryParameter("filterByFormula");
+        if (formula != null && formula.contains("LAST_MODIFIED_TIME()")) {
+          return new MockResponse().setBody("{\"records\":[]}");
+        }
+        if ("".equals(url.queryParameter("fields[]"))) {
+          assertThat(url.queryParameter("maxRecords")).isNull();
+          return new MockResponse().setBody("{\"records\":["
+              + "{\"id\":\"recOycQDwG7iLL17e\",\"createdTime\":\"2017-05-11T09:14:33.000Z\"},"
+              + "{\"id\":\"recn0atKgqPpCAav8\",\"createdTime\":\"2016-05-08T17:57:56.000Z\"},"
+              + "{\"id\":\"recMissed\",\"createdTime\":\"2018-01-01T00:00:00.000Z\"}]}");
+        }
+        if (formula != null) {
+          assertEquals("OR(RECORD_ID()='recMissed')", formula);
+          return new MockResponse().setBody("{\"records\":[{\"id\":\"recMissed\","
+              + "\"fields\":{\"Name\":\"Missed\"},\"createdTime\":\"2018-01-01T00:00:00.000Z\"}]}");
+        }
+        try {
+          return new MockResponse().setBody(Helper.readFromInputStream("entities_all.json"));
+        } catch (IOException ex) {
+          return new MockResponse().setResponseCode(500);
+        }
+      }
+    });
+    SyncEngine<Entity> engine = new SyncEngine<>(entityTable,
+        new ImmutableQuery.Builder().maxRecords(2).build());
+    engine.setReconcileInterval(2);
+
+    engine.sync().blockingGet();
+    SyncEngine.Result second = engine.sync().blockingGet();
+
+    assertEquals(1, second.getUpdated());
+    assertEquals(0, second.getDeleted());
+    assertEquals(3, engine.getRecords().size());
+    assertEquals("recMissed", engine.getRecords().get(2).getId());
+    assertEquals(4, server.getRequestCount());
+  }
+
+  @Test
+  public void restore_WhenStoreSaved_ReturnRecordsWithoutRequest() throws Exception {
+
+    enqueueMockResponse(200, "entities_page1.json");
+    enqueueMockResponse(200, "entities_page2.json");
+    FileTableStore store = new FileTableStore(folder.getRoot());
+    SyncEngine<Entity> network = new SyncEngine<>(entityTable);
+    network.setStore(store);
+    network.sync().blockingGet();
+    assertEquals(2, server.getRequestCount());
+
+    SyncEngine<Entity> cold = new SyncEngine<>(entityTable);
+    cold.setStore(store);
+    List<Entity> restored = cold.restore().blockingGet();
+
+    assertEquals(2, server.getRequestCount());
+    assertEquals(network.getWatermark(), cold.getWatermark());
+    assertEquals(3, restored.size());
+    for (int i = 0; i < restored.size(); i++) {
+      Entity expected = network.getRecords().get(i);
+      assertEquals(expected.getId(), restored.get(i).getId());
+      assertEquals(expected.getText(), restored.get(i).getText());
+      assertEquals(expected.getNumber(), restored.get(i).getNumber(), 0);
+      assertEquals(expected.getDate(), restored.get(i).getDate());
+      assertEquals(expected.getNullableInteger(), restored.get(i).getNullableInteger());
+    }
+
+    enqueueMockResponse(200, "entities_page2.json");
+    assertThat(cold.sync().blockingGet().isFull()).isFalse();
+  }
+
+  @Test
+  public void replay_WhenJournaled_SendCompactedBatchesInOrder() throws Exception {
+
+    JournalDispatcher dispatcher = new JournalDispatcher();
+    server.setDispatcher(dispatcher);
+    Journal journal = Journal.open(folder.newFile("journal"));
+    JournalReplayer<Entity> replayer = new JournalReplayer<>(entityTable, journal);
+    replayer.setIdempotencyField("Key");
+
+    Entity created = newEntities(1).get(0);
+    String key = replayer.create(created).blockingGet();
+    created.setId(key);
+    created.setText("Changed");
+    replayer.update(created).blockingAwait();
+    Entity existing = newEntities(1).get(0);
+    existing.setId("rec1");
+    replayer.update(existing).blockingAwait();
+    existing.setNumber(222.2);
+    replayer.update(existing).blockingAwait();
+    replayer.destroy("rec2").blockingAwait();
+
+    replayer.replay().blockingAwait();
+
+    assertEquals(3, server.getRequestCount());
+    RecordedRequest post = server.takeRequest();
+    assertEquals("POST", post.getMethod());
+    JsonObject fields = dispatcher.bodies.get(0).getAsJsonArray("records").get(0)
+        .getAsJsonObject().getAsJsonObject("fields");
+    assertEquals("Changed", fields.get("Text").getAsString());
+    assertEquals(key, fields.get("Key").getAsString());
+    RecordedRequest patch = server.takeRequest();
+    assertEquals("PATCH", patch.getMethod());
+    JsonObject update = dispatcher.bodies.get(1).getAsJsonArray("records").get(0).getAsJsonObject();
+    assertEquals("rec1", update.get("id").getAsString());
+    assertEquals(222.2, update.getAsJsonObject("fields").get("Number").getAsDouble(), 0);
+    RecordedRequest delete = server.takeRequest();
+    assertEquals("DELETE", delete.getMethod());
+    assertEquals("rec2", delete.getRequestUrl().queryParameter("records[]"));
+
+    assertThat(journal.pending()).isEmpty();
+    assertEquals("recNew1", journal.resolve(key));
+    assertEquals(3, replayer.getReplayed());
+    journal.close();
+  }
+
+  @Test
+  public void replay_WhenCreateSentBefore_FindByIdempotencyKey() throws Exception {
+
+    server.setDispatcher(new JournalDispatcher());
+    File file = folder.newFile("journal");
+    Journal journal = Journal.open(file);
+    JournalEntry create = journal.create(new JsonObject()).blockingGet();
+    journal.markSent(Collections.singletonList(create));
+    journal.close();
+
+    journal = Journal.open(file);
+    JournalReplayer<Entity> replayer = new JournalReplayer<>(entityTable, journal);
+    replayer.setIdempotencyField("Key");
+    replayer.replay().blockingAwait();
+
+    assertEquals(1, server.getRequestCount());
+    assertEquals("{Key}='" + create.getKey() + "'",
+        server.takeRequest().getRequestUrl().queryParameter("filterByFormula"));
+    assertEquals(1, replayer.getRecovered());
+    assertEquals("recOycQDwG7iLL17e", journal.resolve(create.getKey()));
+    journal.close();
+  }
+
+  @Test
+  public void replay_WhenDoneLostAndRecordsDeleted_DrainJournal() throws Exception {
+
+    JournalDispatcher dispatcher = new JournalDispatcher();
+    dispatcher.missing.add("rec1");
+    dispatcher.missing.add("rec3");
+    server.setDispatcher(dispatcher);
+    File file = folder.newFile("journal");
+    Journal journal = Journal.open(file);
+    JsonObject fields = new JsonObject();
+    fields.addProperty("Text", "Changed");
+    journal.update("rec3", fields).blockingGet();
+    journal.update("rec4", fields).blockingGet();
+    journal.destroy("rec1").blockingGet();
+    journal.destroy("rec2").blockingGet();
+    // the destroy of rec1 was applied, but its completion is lost by a crash
+    journal.markSent(journal.pending());
+    journal.close();
+
+    journal = Journal.open(file);
+    JournalReplayer<Entity> replayer = new JournalReplayer<>(entityTable, journal);
+    replayer.replay().blockingAwait();
+
+    assertThat(journal.pending()).isEmpty();
+    assertEquals(3, replayer.getReplayed());
+    assertEquals(1, replayer.getConflicts());
+    assertEquals(6, server.getRequestCount());
+    replayer.replay().blockingAwait();
+    assertEquals(6, server.getRequestCount());
+    journal.close();
+  }
+
+  @Test
+  public void update_WhenJournaledEditReverted_JournalSnapshotValue() throws Exception {
+
+    enqueueMockResponse(200, "entities_page1.json");
+    entityTable.setSnapshotCache(new RecordCache<>(100, 1, TimeUnit.MINUTES));
+    Journal journal = Journal.open(folder.newFile("journal"));
+    JournalReplayer<Entity> replayer = new JournalReplayer<>(entityTable, journal);
+
+    Entity entity = entityTable.select().blockingGet().get(0);
+    String text = entity.getText();
+    entity.setText("Local");
+    replayer.update(entity).blockingAwait();
+    entity.setText(text);
+    replayer.update(entity).blockingAwait();
+    journal.compact();
+
+    assertThat(journal.pending()).hasSize(1);
+    assertEquals(text, journal.pending().get(0).getFields().get("Text").getAsString());
+    journal.close();
+  }
+
+  @Test
+  public void replay_WhenConflict_ResolveWithCurrentValues() throws Exception {
+
+    enqueueMockResponse(200, "entities_page1.json");
+    server.enqueue(new MockResponse().setBody("{\"records\":["
+        + "{\"id\":\"recOycQDwG7iLL17e\",\"fields\":{\"Text\":\"Server\",\"Number\":111.1},"
+        + "\"createdTime\":\"2017-05-11T09:14:33.000Z\"},"
+        + "{\"id\":\"recn0atKgqPpCAav8\",\"fields\":{\"Text\":\"Text 2\",\"Number\":222.2},"
+        + "\"createdTime\":\"2016-05-08T17:57:56.000Z\"}]}"));
+    server.enqueue(new MockResponse().setBody("{\"records\":["
+        + "{\"id\":\"recOycQDwG7iLL17e\",\"fields\":{\"Text\":\"Server\",\"Number\":333},"
+        + "\"createdTime\":\"2017-05-11T09:14:33.000Z\"},"
+        + "{\"id\":\"recn0atKgqPpCAav8\",\"fields\":{\"Text\":\"Text 2\",\"Number\":999},"
+        + "\"createdTime\":\"2016-05-08T17:57:56.000Z\"}]}"));
+    entityTable.setSnapshotCache(new RecordCache<>(100, 1, TimeUnit.MINUTES));
+    Journal journal = Journal.open(folder.newFile("journal"));
+    JournalReplayer<Entity> replayer = new JournalReplayer<>(entityTable, journal);
+    replayer.setConflictResolver(ConflictResolver.SERVER_WINS);
+
+    List<Entity> entities = entityTable.select().blockingGet();
+    entities.get(0).setText("Local");
+    entities.get(0).setNumber(333);
+    replayer.update(entities.get(0)).blockingAwait();
+    entities.get(1).setNumber(999);
+    replayer.update(entities.get(1)).blockingAwait();
+    replayer.replay().blockingAwait();
+
+    assertEquals(3, server.getRequestCount());
+    server.takeRequest();
+    HttpUrl check = server.takeRequest().getRequestUrl();
+    assertEquals("OR(RECORD_ID()='recOycQDwG7iLL17e',RECORD_ID()='recn0atKgqPpCAav8')",
+        check.queryParameter("filterByFormula"));
+    assertThat(check.queryParameterValues("fields[]")).containsExactly("Text", "Number");
+    RecordedRequest patch = server.takeRequest();
+    assertEquals("PATCH", patch.getMethod());
+    assertEquals("{\"records\":[{\"id\":\"recOycQDwG7iLL17e\",\"fields\":{\"Number\":333.0}},"
+        + "{\"id\":\"recn0atKgqPpCAav8\",\"fields\":{\"Number\":999.0}}]}",
+        patch.getBody().readUtf8());
+    assertEquals(1, replayer.getConflicts());
+    assertThat(journal.pending()).isEmpty();
+    journal.close();
+  }
+
+  private static List<Entity> newEntities(int count) {
+
+    List<Entity> entities = new ArrayList<>();
+    for (int i = 1; i <= count; i++) {
+      entities.add(new Entity("New event " + i, 111.1, true, Helper.newDate(), i));
+    }
+
+    return entities;
+  }
+
   private void enqueueMockResponse(int code, String fileName) throws IOException {
 
     MockResponse mockResponse = new MockResponse();
@@ -166,4 +1339,136 @@ public class MockTableTest {
     server.enqueue(mockResponse);
   }
 
+  /**
+   * Returns the records of write requests as written, recording their bodies.
+   */
+  private static class EchoDispatcher extends Dispatcher {
+
+    private final List<JsonObject> bodies = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+
+      JsonObject body = new JsonParser().parse(request.getBody().readUtf8()).getAsJsonObject();
+      bodies.add(body);
+
+      for (JsonElement record : body.getAsJsonArray("records")) {
+        record.getAsJsonObject().addProperty("createdTime", "2018-01-01T00:00:00.000Z");
+      }
+
+      return new MockResponse().setBody(body.toString());
+    }
+  }
+
+  /**
+   * Serves all records, the changed record for delta formulas and one id for id scans.
+   */
+  private static class SyncDispatcher extends Dispatcher {
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+
+      HttpUrl url = request.getRequestUrl();
+      String formula = url.queryParameter("filterByFormula");
+      if (formula != null && formula.contains("LAST_MODIFIED_TIME()")) {
+        return new MockResponse().setBody("{\"records\":[{\"id\":\"recOycQDwG7iLL17e\","
+            + "\"fields\":{\"Name\":\"Changed\"},\"createdTime\":\"2017-05-11T09:14:33.000Z\"}]}");
+      }
+      if ("".equals(url.queryParameter("fields[]"))) {
+        return new MockResponse().setBody("{\"records\":[{\"id\":\"recOycQDwG7iLL17e\","
+            + "\"createdTime\":\"2017-05-11T09:14:33.000Z\"}]}");
+      }
+      try {
+        return new MockResponse().setBody(Helper.readFromInputStream("entities_all.json"));
+      } catch (IOException ex) {
+        return new MockResponse().setResponseCode(500);
+      }
+    }
+  }
+
+  /**
+   * Assigns ids to created records, echoes updates, deletes every requested record and finds
+   * the first record of entities_all.json, recording the bodies of write requests.
+   */
+  private static class JournalDispatcher extends Dispatcher {
+
+    private final List<JsonObject> bodies = new ArrayList<>();
+    private final Set<String> missing = new HashSet<>();
+    private int created;
+
+    @Override
+    public synchronized MockResponse dispatch(RecordedRequest request) {
+
+      try {
+        if ("GET".equals(request.getMethod())) {
+          return new MockResponse().setBody(Helper.readFromInputStream("entities_all.json")
+              .replaceFirst("\\},\\s*\\{[^]]*]", "}]"));
+        }
+      } catch (IOException ex) {
+        return new MockResponse().setResponseCode(500);
+      }
+      if ("DELETE".equals(request.getMethod())) {
+        List<String> ids = request.getRequestUrl().queryParameterValues("records[]");
+        if (!Collections.disjoint(ids, missing)) {
+          return new MockResponse().setResponseCode(404).setBody("{\"error\":\"NOT_FOUND\"}");
+        }
+        StringBuilder body = new StringBuilder("{\"records\":[");
+        for (String id : ids) {
+          if (body.charAt(body.length() - 1) != '[') {
+            body.append(',');
+          }
+          body.append("{\"id\":\"").append(id).append("\",\"deleted\":true}");
+        }
+
+        return new MockResponse().setBody(body.append("]}").toString());
+      }
+
+      JsonObject body = new JsonParser().parse(request.getBody().readUtf8()).getAsJsonObject();
+      bodies.add(body.deepCopy());
+      for (JsonElement record : body.getAsJsonArray("records")) {
+        JsonElement id = record.getAsJsonObject().get("id");
+        if (id != null && missing.contains(id.getAsString())) {
+          return new MockResponse().setResponseCode(422).setBody("{\"error\":{"
+              + "\"type\":\"ROW_DOES_NOT_EXIST\",\"message\":\"Record not found\"}}");
+        }
+        if ("POST".equals(request.getMethod())) {
+          record.getAsJsonObject().addProperty("id", "recNew" + ++created);
+        }
+        record.getAsJsonObject().addProperty("createdTime", "2018-01-01T00:00:00.000Z");
+      }
+
+      return new MockResponse().setBody(body.toString());
+    }
+  }
+
+  /**
+   * Serves the pages of a scan and deletes every requested record.
+   */
+  private static class DeleteDispatcher extends Dispatcher {
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+
+      try {
+        if ("GET".equals(request.getMethod())) {
+          String page = (request.getRequestUrl().queryParameter("offset") == null)
+              ? "entities_page1.json" : "entities_page2.json";
+
+          return new MockResponse().setBody(Helper.readFromInputStream(page));
+        }
+      } catch (IOException ex) {
+        return new MockResponse().setResponseCode(500);
+      }
+
+      StringBuilder body = new StringBuilder("{\"records\":[");
+      for (String id : request.getRequestUrl().queryParameterValues("records[]")) {
+        if (body.charAt(body.length() - 1) != '[') {
+          body.append(',');
+        }
+        body.append("{\"id\":\"").append(id).append("\",\"deleted\":true}");
+      }
+
+      return new MockResponse().setBody(body.append("]}").toString());
+    }
+  }
 }
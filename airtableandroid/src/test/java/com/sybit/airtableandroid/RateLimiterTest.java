@@ -0,0 +1,117 @@
+package com.sybit.airtableandroid;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.reactivex.observers.TestObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Checks the reservation of permits of the token bucket.
+ */
+public class RateLimiterTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long INTERVAL = SECOND / 5;
+
+  @Test
+  public void reserve_WhenNoBurst_SpreadPermitsEvenly() {
+
+    RateLimiter limiter = new RateLimiter(5, 1);
+    long now = System.nanoTime();
+
+    assertThat(limiter.reserve(now)).isEqualTo(0);
+    assertThat(limiter.reserve(now)).isEqualTo(INTERVAL);
+    assertThat(limiter.reserve(now)).isEqualTo(2 * INTERVAL);
+  }
+
+  @Test
+  public void reserve_WhenBurst_GrantStoredPermitsAtOnce() {
+
+    RateLimiter limiter = new RateLimiter(5, 3);
+    long now = System.nanoTime();
+
+    assertThat(limiter.reserve(now)).isEqualTo(0);
+    assertThat(limiter.reserve(now)).isEqualTo(0);
+    assertThat(limiter.reserve(now)).isEqualTo(0);
+    assertThat(limiter.reserve(now)).isEqualTo(INTERVAL);
+  }
+
+  @Test
+  public void reserve_WhenIdle_RefillUpToBurst() {
+
+    RateLimiter limiter = new RateLimiter(5, 2);
+    long now = System.nanoTime();
+
+    limiter.reserve(now);
+    limiter.reserve(now);
+    now += 10 * SECOND;
+
+    assertThat(limiter.reserve(now)).isEqualTo(0);
+    assertThat(limiter.reserve(now)).isEqualTo(0);
+    assertThat(limiter.reserve(now)).isEqualTo(INTERVAL);
+  }
+
+  @Test
+  public void acquire_WhenLimited_DelayAndCountWaiting() {
+
+    RateLimiter limiter = new RateLimiter(20, 1);
+    long start = System.nanoTime();
+
+    List<TestObserver<Void>> observers = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      observers.add(limiter.acquire().test());
+    }
+
+    assertThat(limiter.getQueueDepth()).isEqualTo(4);
+
+    for (TestObserver<Void> observer : observers) {
+      observer.awaitTerminalEvent();
+      observer.assertComplete();
+    }
+
+    assertThat(System.nanoTime() - start).isAtLeast(4 * SECOND / 20);
+    assertThat(limiter.getPermits()).isEqualTo(5);
+    assertThat(limiter.getDelayed()).isEqualTo(4);
+    assertThat(limiter.getMaxQueueDepth()).isEqualTo(4);
+    assertThat(limiter.getWaitTime(TimeUnit.MILLISECONDS)).isAtLeast(400L);
+  }
+
+  @Test
+  public void acquire_WhenNotSubscribed_ReserveNothing() {
+
+    RateLimiter limiter = new RateLimiter(5, 1);
+
+    limiter.acquire();
+    limiter.acquire();
+
+    assertThat(limiter.getPermits()).isEqualTo(0);
+    assertThat(limiter.reserve(System.nanoTime())).isEqualTo(0);
+  }
+
+  @Test
+  public void acquire_WhenDisabled_CompleteAtOnce() {
+
+    RateLimiter limiter = new RateLimiter(0, 1);
+
+    for (int i = 0; i < 100; i++) {
+      limiter.acquire().blockingAwait();
+    }
+
+    assertThat(limiter.getDelayed()).isEqualTo(0);
+  }
+
+  @Test
+  public void reserve_WhenDisabledAndPaused_WaitForPause() {
+
+    RateLimiter limiter = new RateLimiter(0, 1);
+
+    limiter.pause(SECOND);
+    long now = System.nanoTime();
+
+    assertThat(limiter.reserve(now)).isGreaterThan(SECOND / 2);
+    assertThat(limiter.reserve(now + SECOND)).isAtMost(0L);
+  }
+}
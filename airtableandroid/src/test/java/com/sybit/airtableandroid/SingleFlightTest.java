@@ -0,0 +1,82 @@
+package com.sybit.airtableandroid;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Checks the sharing of requests in flight.
+ */
+public class SingleFlightTest {
+
+  private final SingleFlight singleFlight = new SingleFlight();
+
+  @Test
+  public void share_WhenInFlight_SubscribeOnce() {
+
+    PublishSubject<String> request = PublishSubject.create();
+    AtomicInteger subscriptions = new AtomicInteger();
+    Observable<String> source = request.doOnSubscribe(d -> subscriptions.incrementAndGet());
+
+    TestObserver<String> first = singleFlight.share("key", source).test();
+    TestObserver<String> second = singleFlight.share("key", source).test();
+    TestObserver<String> other = singleFlight.share("other", source).test();
+
+    request.onNext("result");
+    request.onComplete();
+
+    first.assertResult("result");
+    second.assertResult("result");
+    other.assertResult("result");
+    assertThat(subscriptions.get()).isEqualTo(2);
+    assertThat(singleFlight.getCoalesced()).isEqualTo(1);
+    assertThat(singleFlight.getCoalescingRatio()).isWithin(1e-9).of(1.0 / 3);
+  }
+
+  @Test
+  public void share_WhenCopierGiven_CopyForAttachedSubscribers() {
+
+    PublishSubject<StringBuilder> request = PublishSubject.create();
+    StringBuilder result = new StringBuilder("result");
+
+    TestObserver<StringBuilder> first =
+        singleFlight.share("key", request, StringBuilder::new).test();
+    TestObserver<StringBuilder> second =
+        singleFlight.share("key", request, StringBuilder::new).test();
+    request.onNext(result);
+    request.onComplete();
+
+    assertThat(first.values().get(0)).isSameInstanceAs(result);
+    assertThat(second.values().get(0)).isNotSameInstanceAs(result);
+    assertThat(second.values().get(0).toString()).isEqualTo("result");
+  }
+
+  @Test
+  public void share_WhenTerminated_SubscribeAgain() {
+
+    AtomicInteger subscriptions = new AtomicInteger();
+    Observable<Integer> source = Observable.fromCallable(subscriptions::incrementAndGet);
+
+    singleFlight.share("key", source).test().assertResult(1);
+    singleFlight.share("key", source).test().assertResult(2);
+    assertThat(singleFlight.getCoalesced()).isEqualTo(0);
+  }
+
+  @Test
+  public void share_WhenFailed_ShareErrorAndForget() {
+
+    PublishSubject<String> request = PublishSubject.create();
+
+    TestObserver<String> first = singleFlight.share("key", request).test();
+    TestObserver<String> second = singleFlight.share("key", request).test();
+    request.onError(new IllegalStateException());
+
+    first.assertError(IllegalStateException.class);
+    second.assertError(IllegalStateException.class);
+    singleFlight.share("key", Observable.just("retry")).test().assertResult("retry");
+  }
+}
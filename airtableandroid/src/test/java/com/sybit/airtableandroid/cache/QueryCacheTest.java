@@ -0,0 +1,126 @@
+package com.sybit.airtableandroid.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.sybit.airtableandroid.Query;
+import com.sybit.airtableandroid.Sort;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Checks the keys of queries and the invalidation of cached results.
+ */
+public class QueryCacheTest {
+
+  private long now;
+
+  private final QueryCache<String> cache = new QueryCache<String>(2, 1, TimeUnit.SECONDS) {
+    @Override
+    protected long now() {
+
+      return now;
+    }
+  };
+
+  @Test
+  public void key_WhenFieldsReordered_ReturnSameKey() {
+
+    String key = QueryCache.key(new TestQuery("{Checkbox}", "Text", "Number"));
+
+    assertThat(QueryCache.key(new TestQuery("{Checkbox}", "Number", "Text"))).isEqualTo(key);
+    assertThat(QueryCache.key(new TestQuery("{Checkbox}", "Text"))).isNotEqualTo(key);
+    assertThat(QueryCache.key(new TestQuery(null, "Text", "Number"))).isNotEqualTo(key);
+  }
+
+  @Test
+  public void key_WhenValuesContainSeparators_ReturnDifferentKeys() {
+
+    assertThat(QueryCache.key(new TestQuery(null, "a1:b")))
+        .isNotEqualTo(QueryCache.key(new TestQuery(null, "a", "b")));
+  }
+
+  @Test
+  public void get_WhenCached_ReturnResult() {
+
+    cache.put("query", Arrays.asList("a", "b"), cache.generation());
+
+    assertThat(cache.get("query")).containsExactly("a", "b").inOrder();
+    assertThat(cache.get("other")).isNull();
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  public void get_WhenExpired_ReturnNull() {
+
+    cache.put("query", Collections.singletonList("a"), cache.generation());
+    now += TimeUnit.SECONDS.toNanos(1);
+
+    assertThat(cache.get("query")).isNull();
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_WhenInvalidatedSinceStart_DoNotCache() {
+
+    long generation = cache.generation();
+    cache.invalidate();
+
+    List<String> result = cache.put("query", Collections.singletonList("a"), generation);
+
+    assertThat(result).containsExactly("a");
+    assertThat(cache.get("query")).isNull();
+    assertThat(cache.getInvalidations()).isEqualTo(1);
+  }
+
+  private static final class TestQuery implements Query {
+
+    private final String formula;
+    private final String[] fields;
+
+    TestQuery(String formula, String... fields) {
+
+      this.formula = formula;
+      this.fields = fields;
+    }
+
+    @Override
+    public String[] getFields() {
+
+      return fields;
+    }
+
+    @Override
+    public Integer getPageSize() {
+
+      return null;
+    }
+
+    @Override
+    public Integer getMaxRecords() {
+
+      return null;
+    }
+
+    @Override
+    public String getView() {
+
+      return null;
+    }
+
+    @Override
+    public List<Sort> getSort() {
+
+      return null;
+    }
+
+    @Override
+    public String filterByFormula() {
+
+      return formula;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.sybit.airtableandroid.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Checks eviction and expiration of cached records.
+ */
+public class RecordCacheTest {
+
+  private long now;
+
+  private final RecordCache<String> cache = new RecordCache<String>(2, 1, TimeUnit.SECONDS) {
+    @Override
+    protected long now() {
+
+      return now;
+    }
+  };
+
+  @Test
+  public void get_WhenCached_ReturnRecord() {
+
+    cache.put("rec1", "Record 1");
+
+    assertThat(cache.get("rec1")).isEqualTo("Record 1");
+    assertThat(cache.get("rec2")).isNull();
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  public void put_WhenFull_EvictLeastRecentlyUsed() {
+
+    cache.put("rec1", "Record 1");
+    cache.put("rec2", "Record 2");
+    cache.get("rec1");
+    cache.put("rec3", "Record 3");
+
+    assertThat(cache.get("rec1")).isEqualTo("Record 1");
+    assertThat(cache.get("rec2")).isNull();
+    assertThat(cache.get("rec3")).isEqualTo("Record 3");
+    assertThat(cache.getEvictions()).isEqualTo(1);
+  }
+
+  @Test
+  public void get_WhenExpired_ReturnNull() {
+
+    cache.put("rec1", "Record 1");
+    now += TimeUnit.MILLISECONDS.toNanos(999);
+    assertThat(cache.get("rec1")).isEqualTo("Record 1");
+
+    now += TimeUnit.MILLISECONDS.toNanos(1);
+    assertThat(cache.get("rec1")).isNull();
+    assertThat(cache.getExpirations()).isEqualTo(1);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void remove_Always_RemoveRecord() {
+
+    cache.put("rec1", "Record 1");
+    cache.remove("rec1");
+
+    assertThat(cache.get("rec1")).isNull();
+  }
+}
@@ -0,0 +1,104 @@
+package com.sybit.airtableandroid.formula;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.sybit.airtableandroid.common.Entity;
+import com.sybit.airtableandroid.mapper.RecordMapper;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import org.junit.Test;
+
+/**
+ * Checks the formulas compiled from filters and the cache of their templates.
+ */
+public class FormulaCompilerTest {
+
+  private final FormulaCompiler compiler = new FormulaCompiler(new RecordMapper<>(Entity.class));
+
+  @Test
+  public void compile_WhenComparisons_ReturnFormula() {
+
+    Filter filter = Filter.and(
+        Filter.eq("Text", "it's"),
+        Filter.between("Number", 1, 2.5),
+        Filter.not(Filter.eq("Checkbox", true)),
+        Filter.ne("NullableInteger", null));
+
+    assertThat(compiler.compile(filter)).isEqualTo("AND({Text}='it\\'s',"
+        + "AND({Number}>=1,{Number}<=2.5),NOT({Checkbox}=TRUE()),NOT({NullableInteger}=BLANK()))");
+  }
+
+  @Test
+  public void compile_WhenInAndContains_ReturnFormula() {
+
+    assertThat(compiler.compile(Filter.or(
+        Filter.in("Text", "a", "b"),
+        Filter.contains("Text", "c\\d"),
+        Filter.in("Number"))))
+        .isEqualTo("OR(OR({Text}='a',{Text}='b'),FIND('c\\\\d',{Text})>0,FALSE())");
+  }
+
+  @Test
+  public void compile_WhenDate_CompareByDay() {
+
+    Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+    calendar.clear();
+    calendar.set(2018, Calendar.MARCH, 31);
+    Date date = calendar.getTime();
+
+    String value = "DATETIME_PARSE('2018-03-31T00:00:00.000Z')";
+
+    assertThat(compiler.compile(Filter.eq("Date", date)))
+        .isEqualTo("IS_SAME({Date}," + value + ",'day')");
+    assertThat(compiler.compile(Filter.ne("Date", date)))
+        .isEqualTo("NOT(IS_SAME({Date}," + value + ",'day'))");
+    assertThat(compiler.compile(Filter.lt("Date", date))).isEqualTo("AND(IS_BEFORE({Date},"
+        + value + "),NOT(IS_SAME({Date}," + value + ",'day')))");
+    assertThat(compiler.compile(Filter.le("Date", date))).isEqualTo("OR(IS_BEFORE({Date},"
+        + value + "),IS_SAME({Date}," + value + ",'day'))");
+    assertThat(compiler.compile(Filter.gt("Date", date))).isEqualTo("AND(IS_AFTER({Date},"
+        + value + "),NOT(IS_SAME({Date}," + value + ",'day')))");
+    assertThat(compiler.compile(Filter.ge("Date", date))).isEqualTo("OR(IS_AFTER({Date},"
+        + value + "),IS_SAME({Date}," + value + ",'day'))");
+  }
+
+  @Test
+  public void compile_WhenSameShape_ReuseTemplate() {
+
+    assertThat(compiler.compile(Filter.eq("Text", "a"))).isEqualTo("{Text}='a'");
+    assertThat(compiler.compile(Filter.eq("Text", "b"))).isEqualTo("{Text}='b'");
+    assertThat(compiler.getTemplateCount()).isEqualTo(1);
+
+    compiler.compile(Filter.eq("Text", 1));
+    assertThat(compiler.getTemplateCount()).isEqualTo(2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void compile_WhenFieldNotMapped_ThrowException() {
+
+    compiler.compile(Filter.eq("Unknown Column", "a"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void compile_WhenFieldEmpty_ThrowException() {
+
+    compiler.compile(Filter.eq(" ", "a"));
+  }
+
+  @Test
+  public void compile_WhenManyShapes_KeepRecentTemplates() {
+
+    Object[] values = new Object[FormulaCompiler.MAX_TEMPLATES * 2];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i;
+      compiler.compile(Filter.in("Number", Arrays.copyOf(values, i + 1)));
+    }
+
+    assertThat(compiler.getTemplateCount()).isEqualTo(FormulaCompiler.MAX_TEMPLATES);
+    assertThat(compiler.compile(Filter.in("Number", 1, 2)))
+        .isEqualTo("OR({Number}=1,{Number}=2)");
+  }
+}
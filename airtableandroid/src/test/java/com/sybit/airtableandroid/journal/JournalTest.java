@@ -0,0 +1,194 @@
+package com.sybit.airtableandroid.journal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sybit.airtableandroid.journal.JournalEntry.Op;
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks recovery, group commit and compaction of the journal.
+ */
+public class JournalTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void open_WhenReopened_RestorePendingEntries() throws Exception {
+
+    File file = new File(folder.getRoot(), "journal");
+    Journal journal = Journal.open(file);
+    JournalEntry create = journal.create(fields("{\"Name\":\"New\"}")).blockingGet();
+    journal.update("rec1", fields("{\"Name\":\"Changed\",\"Empty\":null}")).blockingGet();
+    JournalEntry destroy = journal.destroy("rec2").blockingGet();
+    journal.markSent(Collections.singletonList(create));
+    journal.markDone(destroy, null);
+    journal.close();
+
+    journal = Journal.open(file);
+    List<JournalEntry> pending = journal.pending();
+
+    assertThat(pending).hasSize(2);
+    assertThat(pending.get(0).getOp()).isEqualTo(Op.CREATE);
+    assertThat(pending.get(0).getKey()).isEqualTo(create.getKey());
+    assertThat(journal.isSent(pending.get(0))).isTrue();
+    assertThat(pending.get(1).getRecordId()).isEqualTo("rec1");
+    assertThat(pending.get(1).getFields())
+        .isEqualTo(fields("{\"Name\":\"Changed\",\"Empty\":null}"));
+    assertThat(journal.isSent(pending.get(1))).isFalse();
+    assertThat(journal.destroy("rec3").blockingGet().getSeq()).isEqualTo(4);
+    journal.close();
+  }
+
+  @Test
+  public void open_WhenTornTail_CutOffTail() throws Exception {
+
+    File file = new File(folder.getRoot(), "journal");
+    Journal journal = Journal.open(file);
+    journal.update("rec1", fields("{\"Name\":\"Changed\"}")).blockingGet();
+    journal.update("rec2", fields("{\"Name\":\"Changed\"}")).blockingGet();
+    journal.close();
+    long length = file.length();
+    try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+      out.setLength(length - 3);
+    }
+
+    journal = Journal.open(file);
+    journal.update("rec3", fields("{\"Name\":\"Changed\"}")).blockingGet();
+    journal.close();
+    journal = Journal.open(file);
+
+    assertThat(journal.pending()).hasSize(2);
+    assertThat(journal.pending().get(0).getRecordId()).isEqualTo("rec1");
+    assertThat(journal.pending().get(1).getRecordId()).isEqualTo("rec3");
+    journal.close();
+  }
+
+  @Test
+  public void append_WhenConcurrent_ShareSyncs() throws Exception {
+
+    Journal journal = Journal.open(new File(folder.getRoot(), "journal"));
+    journal.setSyncWindow(50, TimeUnit.MILLISECONDS);
+    List<Single<JournalEntry>> appends = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      appends.add(journal.update("rec" + i, fields("{\"Number\":" + i + "}")));
+    }
+
+    Single.merge(appends).blockingSubscribe();
+
+    assertThat(journal.getAppends()).isEqualTo(100);
+    assertThat(journal.getSyncs()).isLessThan(5L);
+    journal.close();
+  }
+
+  @Test
+  public void compact_WhenSuperseded_MergeEntries() throws Exception {
+
+    File file = new File(folder.getRoot(), "journal");
+    Journal journal = Journal.open(file);
+    JournalEntry create = journal.create(fields("{\"Name\":\"New\",\"Number\":1}")).blockingGet();
+    journal.update(create.getKey(), fields("{\"Number\":2}")).blockingGet();
+    journal.update("rec1", fields("{\"Name\":\"A\",\"Number\":1}")).blockingGet();
+    journal.update("rec1", fields("{\"Name\":\"B\"}")).blockingGet();
+    JournalEntry temp = journal.create(fields("{\"Name\":\"Temp\"}")).blockingGet();
+    journal.update("rec2", fields("{\"Name\":\"C\"}")).blockingGet();
+    journal.destroy(temp.getKey()).blockingGet();
+    journal.destroy("rec2").blockingGet();
+
+    journal.compact();
+    journal.close();
+    journal = Journal.open(file);
+    List<JournalEntry> pending = journal.pending();
+
+    assertThat(pending).hasSize(3);
+    assertThat(pending.get(0).getKey()).isEqualTo(create.getKey());
+    assertThat(pending.get(0).getFields()).isEqualTo(fields("{\"Name\":\"New\",\"Number\":2}"));
+    assertThat(pending.get(1).getFields()).isEqualTo(fields("{\"Name\":\"B\",\"Number\":1}"));
+    assertThat(pending.get(2).getOp()).isEqualTo(Op.DESTROY);
+    assertThat(pending.get(2).getRecordId()).isEqualTo("rec2");
+    journal.close();
+  }
+
+  @Test
+  public void resolve_WhenCreateDone_ReturnCreatedId() throws Exception {
+
+    File file = new File(folder.getRoot(), "journal");
+    Journal journal = Journal.open(file);
+    JournalEntry create = journal.create(fields("{\"Name\":\"New\"}")).blockingGet();
+    journal.update(create.getKey(), fields("{\"Name\":\"Changed\"}")).blockingGet();
+    journal.markSent(Collections.singletonList(create));
+    journal.markDone(create, "recNew");
+    journal.compact();
+    journal.close();
+
+    journal = Journal.open(file);
+
+    assertThat(journal.resolve(create.getKey())).isEqualTo("recNew");
+    assertThat(journal.pending()).hasSize(1);
+    assertThat(journal.pending().get(0).getRecordId()).isEqualTo("recNew");
+    journal.compact();
+    journal.close();
+    journal = Journal.open(file);
+    assertThat(journal.resolve(create.getKey())).isEqualTo(create.getKey());
+    journal.close();
+  }
+
+  @Test
+  public void markDone_WhenDone_SyncByGroupCommit() throws Exception {
+
+    Journal journal = Journal.open(new File(folder.getRoot(), "journal"));
+    JournalEntry update = journal.update("rec1", fields("{\"Name\":\"A\"}")).blockingGet();
+    long syncs = journal.getSyncs();
+
+    journal.markDone(update, null);
+
+    for (int i = 0; i < 100 && journal.getSyncs() == syncs; i++) {
+      Thread.sleep(10);
+    }
+    assertThat(journal.getSyncs()).isEqualTo(syncs + 1);
+    journal.close();
+  }
+
+  @Test
+  public void close_WhenSyncScheduled_CompleteAppends() throws Exception {
+
+    Journal journal = Journal.open(new File(folder.getRoot(), "journal"));
+    journal.setSyncWindow(100, TimeUnit.MILLISECONDS);
+    TestObserver<JournalEntry> update = journal.update("rec1", fields("{\"Name\":\"A\"}"))
+        .test();
+    update.assertNotComplete();
+
+    journal.close();
+
+    update.assertComplete();
+    Thread.sleep(200);
+    update.assertNoErrors();
+  }
+
+  @Test(expected = IOException.class)
+  public void compact_WhenClosed_ThrowIOException() throws Exception {
+
+    Journal journal = Journal.open(new File(folder.getRoot(), "journal"));
+    journal.close();
+
+    journal.compact();
+  }
+
+  private static JsonObject fields(String json) {
+
+    return new JsonParser().parse(json).getAsJsonObject();
+  }
+}
@@ -0,0 +1,253 @@
+package com.sybit.airtableandroid.mapper;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gson.annotations.SerializedName;
+import com.sybit.airtableandroid.common.AnnotatedEntity;
+import com.sybit.airtableandroid.common.Entity;
+import com.sybit.airtableandroid.common.Helper;
+import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jodd.bean.BeanUtil;
+import org.junit.Test;
+
+/**
+ * Checks the mapping of records and compares it with the reflective mapping used before.
+ */
+public class RecordMapperTest {
+
+  private final RecordMapper<Entity> mapper = new RecordMapper<>(Entity.class);
+
+  @Test
+  public void map_Always_SetAnnotatedProperties() {
+
+    Entity entity = mapper.map(newRecord(1), new Entity());
+
+    assertThat(entity.getId()).isEqualTo("rec1");
+    assertThat(entity.getText()).isEqualTo("Text 1");
+    assertThat(entity.getNumber()).isEqualTo(111.1);
+    assertThat(entity.isCheckbox()).isTrue();
+    assertThat(entity.getDate()).isEqualTo(Helper.newDate());
+    assertThat(entity.getNullableInteger()).isEqualTo(1);
+  }
+
+  @Test
+  public void map_WhenUnknownColumn_IgnoreColumn() {
+
+    Map<String, Object> record = newRecord(1);
+    ((Map<String, Object>) record.get("fields")).put("Unknown Column", "value");
+
+    Entity entity = mapper.map(record, new Entity());
+
+    assertThat(entity.getText()).isEqualTo("Text 1");
+  }
+
+  @Test
+  public void of_WhenAnnotated_UseGeneratedMapper() {
+
+    EntityMapper<AnnotatedEntity> generated = EntityMappers.of(AnnotatedEntity.class);
+    AnnotatedEntity entity = generated.map(newRecord(1), new AnnotatedEntity());
+
+    assertThat(generated).isNotInstanceOf(RecordMapper.class);
+    assertThat(entity.getId()).isEqualTo("rec1");
+    assertThat(entity.getDate()).isEqualTo(Helper.newDate());
+    assertThat(entity.getNullableInteger()).isEqualTo(1);
+    assertThat(generated.getFields(entity))
+        .isEqualTo(mapper.getFields(mapper.map(newRecord(1), new Entity())));
+  }
+
+  @Test
+  public void of_WhenFieldShadowed_MapFieldOfSubclass() {
+
+    EntityMapper<Child> generated = EntityMappers.of(Child.class);
+    Map<String, Object> record = new LinkedHashMap<>();
+    record.put("Name", "Child");
+    Child child = generated.map(record, new Child());
+
+    assertThat(generated).isNotInstanceOf(RecordMapper.class);
+    assertThat(child.getName()).isEqualTo("Child");
+    assertThat(generated.getFields(child)).containsExactly("Name", "Child", "Number", 1.0);
+  }
+
+  @Test
+  public void map_WhenFieldShadowed_MapLikeGeneratedMapper() {
+
+    EntityMapper<Child> generated = EntityMappers.of(Child.class);
+    RecordMapper<Child> reflective = new RecordMapper<>(Child.class);
+    Map<String, Object> record = new LinkedHashMap<>();
+    record.put("Name", "Child");
+    Child child = reflective.map(record, new Child());
+
+    assertThat(child.getName()).isEqualTo("Child");
+    assertThat(reflective.isMapped("Name")).isTrue();
+    assertThat(reflective.getFields(child)).containsExactly("Name", "Child", "Number", 1.0);
+    assertThat(reflective.getFields(child)).isEqualTo(generated.getFields(child));
+  }
+
+  @Test
+  public void map_WhenPrimitiveNull_KeepValue() {
+
+    Map<String, Object> record = new LinkedHashMap<>();
+    record.put("Count", null);
+    EntityMapper<Counter> generated = EntityMappers.of(Counter.class);
+
+    assertThat(generated).isNotInstanceOf(RecordMapper.class);
+    assertThat(generated.map(record, new Counter()).getCount()).isEqualTo(5);
+    assertThat(new RecordMapper<>(Counter.class).map(record, new Counter()).getCount())
+        .isEqualTo(5);
+  }
+
+  @Test
+  public void of_WhenNotWritable_IgnoreColumns() {
+
+    EntityMapper<ReadOnly> generated = EntityMappers.of(ReadOnly.class);
+    Map<String, Object> record = new LinkedHashMap<>();
+    record.put("name", "Changed");
+
+    assertThat(generated).isNotInstanceOf(RecordMapper.class);
+    assertThat(generated.map(record, new ReadOnly()).name).isEqualTo("Fixed");
+  }
+
+  @Test
+  public void isMapped_Always_CheckWritableProperty() {
+
+    assertThat(mapper.isMapped("Text")).isTrue();
+    assertThat(mapper.isMapped("Unknown Column")).isFalse();
+    assertThat(mapper.isMapped("")).isFalse();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void map_Always_MapLikeReflectiveMapping() throws Exception {
+
+    Map<String, Object> record = newRecord(7);
+    Entity reflective = new Entity();
+    reflectiveMap(record, reflective);
+
+    Entity cached = mapper.map(record, new Entity());
+    AnnotatedEntity generated = EntityMappers.of(AnnotatedEntity.class)
+        .map(record, new AnnotatedEntity());
+
+    for (Object entity : new Object[]{cached, generated}) {
+      EntityMapper<Object> entityMapper = EntityMappers.of((Class<Object>) entity.getClass());
+      for (String property : new String[]{"id", "text", "number", "checkbox", "date",
+          "nullableInteger"}) {
+        assertThat(entityMapper.get(entity, property))
+            .isEqualTo(mapper.get(reflective, property));
+      }
+    }
+  }
+
+  private static Map<String, Object> newRecord(int i) {
+
+    Map<String, Object> fields = new LinkedHashMap<>();
+    fields.put("Text", "Text " + i);
+    fields.put("Number", 111.1);
+    fields.put("Checkbox", true);
+    fields.put("Date", "2018-03-31");
+    fields.put("NullableInteger", (double) i);
+
+    Map<String, Object> record = new LinkedHashMap<>();
+    record.put("id", "rec" + i);
+    record.put("fields", fields);
+    record.put("createdTime", "2017-05-11T09:14:33.000Z");
+
+    return record;
+  }
+
+  /**
+   * Mapping as done by Table before the RecordMapper.
+   */
+  @SuppressWarnings("unchecked")
+  private static void reflectiveMap(Map<String, Object> record, Object retval) {
+
+    for (String key : record.keySet()) {
+      if ("fields".equals(key)) {
+        reflectiveMap((Map<String, Object>) record.get("fields"), retval);
+      } else {
+        String property = key.trim();
+        property = property.substring(0, 1).toLowerCase() + property.substring(1);
+
+        for (Field f : retval.getClass().getDeclaredFields()) {
+          final SerializedName annotation = f.getAnnotation(SerializedName.class);
+
+          if (annotation != null && property.equalsIgnoreCase(annotation.value())) {
+            property = f.getName();
+            break;
+          }
+        }
+
+        if (BeanUtil.pojo.hasProperty(retval, property)) {
+          BeanUtil.pojo.setProperty(retval, property, record.get(key));
+        }
+      }
+    }
+  }
+
+  @AirtableEntity
+  public static class Parent {
+
+    @SerializedName("Name")
+    private String name = "Parent";
+
+    @SerializedName("Number")
+    private double number = 1;
+
+    public String getName() {
+
+      return name;
+    }
+
+    public void setName(String name) {
+
+      this.name = name;
+    }
+
+    public double getNumber() {
+
+      return number;
+    }
+  }
+
+  @AirtableEntity
+  public static class Child extends Parent {
+
+    @SerializedName("Name")
+    private String name;
+
+    @Override
+    public String getName() {
+
+      return name;
+    }
+
+    @Override
+    public void setName(String name) {
+
+      this.name = name;
+    }
+  }
+
+  @AirtableEntity
+  public static class Counter {
+
+    private int count = 5;
+
+    public int getCount() {
+
+      return count;
+    }
+
+    public void setCount(int count) {
+
+      this.count = count;
+    }
+  }
+
+  @AirtableEntity
+  public static class ReadOnly {
+
+    public final String name = "Fixed";
+  }
+}
@@ -0,0 +1,110 @@
+package com.sybit.airtableandroid.mapper;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gson.Gson;
+import com.sybit.airtableandroid.common.Entity;
+import com.sybit.airtableandroid.common.Helper;
+import com.sybit.airtableandroid.vo.RecordPage;
+import com.sybit.airtableandroid.vo.Records;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Checks the streaming read of pages and compares it with parsing the page to maps first.
+ */
+public class RecordReaderTest {
+
+  private static final int RECORDS = 100;
+
+  private final RecordMapper<Entity> mapper = new RecordMapper<>(Entity.class);
+  private final RecordReader<Entity> reader = new RecordReader<>(mapper);
+
+  @Test
+  public void readPage_Always_MapRecordsAndOffset() throws Exception {
+
+    RecordPage<Entity> page;
+    try (InputStream in = getClass().getClassLoader().getResourceAsStream("entities_page1.json")) {
+      page = reader.readPage(in);
+    }
+
+    assertThat(page.getOffset()).isEqualTo("itrBgBv1PbJ8NrhfW/recn0atKgqPpCAav8");
+    assertThat(page.getItems()).hasSize(2);
+
+    Entity entity = page.getItems().get(0);
+    assertThat(entity.getId()).isEqualTo("recOycQDwG7iLL17e");
+    assertThat(entity.getText()).isEqualTo("Text 1");
+    assertThat(entity.getNumber()).isEqualTo(111.1);
+    assertThat(entity.isCheckbox()).isTrue();
+    assertThat(entity.getDate()).isEqualTo(Helper.newDate());
+    assertThat(entity.getNullableInteger()).isEqualTo(1);
+    assertThat(page.getItems().get(1).isCheckbox()).isFalse();
+  }
+
+  @Test
+  public void readPage_WhenUnknownColumns_SkipValues() throws Exception {
+
+    String json = "{\"records\":[{\"id\":\"rec1\",\"fields\":{"
+        + "\"Unknown\":{\"nested\":[1,2,{\"a\":null}]},\"Text\":\"Text 1\"},"
+        + "\"createdTime\":\"2017-05-11T09:14:33.000Z\"}]}";
+
+    RecordPage<Entity> page = reader.readPage(toStream(json));
+
+    assertThat(page.getOffset()).isNull();
+    assertThat(page.getItems()).hasSize(1);
+    assertThat(page.getItems().get(0).getText()).isEqualTo("Text 1");
+  }
+
+  @Test(expected = IOException.class)
+  public void readPage_WhenNoObject_ThrowException() throws Exception {
+
+    reader.readPage(toStream("[]"));
+  }
+
+  @Test
+  public void readPage_Always_ReadLikeTreeParsing() throws Exception {
+
+    byte[] page = newPage().getBytes(StandardCharsets.UTF_8);
+
+    List<Entity> streamed = reader.readPage(new ByteArrayInputStream(page)).getItems();
+    Records records = new Gson().fromJson(new InputStreamReader(new ByteArrayInputStream(page),
+        StandardCharsets.UTF_8), Records.class);
+
+    assertThat(streamed).hasSize(records.getRecords().size());
+    for (int i = 0; i < streamed.size(); i++) {
+      Entity parsed = mapper.map(records.getRecords().get(i), new Entity());
+      for (String property : new String[]{"id", "text", "number", "checkbox", "date",
+          "nullableInteger"}) {
+        assertThat(mapper.get(streamed.get(i), property))
+            .isEqualTo(mapper.get(parsed, property));
+      }
+    }
+  }
+
+  private static String newPage() {
+
+    StringBuilder json = new StringBuilder("{\"records\":[");
+    for (int i = 0; i < RECORDS; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"id\":\"rec").append(i).append("\",\"fields\":{")
+          .append("\"Text\":\"Text ").append(i).append("\",")
+          .append("\"Number\":111.1,\"Checkbox\":true,\"Date\":\"2018-03-31\",")
+          .append("\"NullableInteger\":").append(i)
+          .append("},\"createdTime\":\"2017-05-11T09:14:33.000Z\"}");
+    }
+
+    return json.append("],\"offset\":\"itr/rec\"}").toString();
+  }
+
+  private static InputStream toStream(String json) {
+
+    return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,64 @@
+package com.sybit.airtableandroid.mapper;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.sybit.airtableandroid.vo.PostRecord;
+import com.sybit.airtableandroid.vo.UpdateRecord;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Checks the bodies written for single and batch requests.
+ */
+public class RecordWriterTest {
+
+  private final RecordWriter writer = new RecordWriter("yyyy-MM-dd");
+
+  @Test
+  public void writeRecord_WhenNullsNotSerialized_SkipNullFields() throws Exception {
+
+    PostRecord<Map<String, Object>> record = new PostRecord<>();
+    record.setFields(fields());
+
+    String body = new String(writer.writeRecord(record, false), StandardCharsets.UTF_8);
+
+    assertThat(body).isEqualTo(
+        "{\"fields\":{\"Text\":\"Grüße\",\"Number\":1.5,\"Date\":\"2018-03-31\","
+            + "\"Tags\":[\"a\",\"b\"]}}");
+  }
+
+  @Test
+  public void writeRecords_WhenNullsSerialized_WriteIdsAndNullFields() throws Exception {
+
+    UpdateRecord<Map<String, Object>> first = new UpdateRecord<>();
+    first.setId("rec1");
+    first.setFields(fields());
+    UpdateRecord<Map<String, Object>> second = new UpdateRecord<>();
+    second.setId("rec2");
+    second.setFields(new LinkedHashMap<>());
+
+    String body = new String(writer.writeRecords(Arrays.asList(first, second), true),
+        StandardCharsets.UTF_8);
+
+    assertThat(body).isEqualTo("{\"records\":["
+        + "{\"id\":\"rec1\",\"fields\":{\"Text\":\"Grüße\",\"Number\":1.5,\"Empty\":null,"
+        + "\"Date\":\"2018-03-31\",\"Tags\":[\"a\",\"b\"]}},"
+        + "{\"id\":\"rec2\",\"fields\":{}}]}");
+  }
+
+  private static Map<String, Object> fields() {
+
+    Map<String, Object> fields = new LinkedHashMap<>();
+    fields.put("Text", "Grüße");
+    fields.put("Number", 1.5);
+    fields.put("Empty", null);
+    fields.put("Date", new GregorianCalendar(2018, 2, 31).getTime());
+    fields.put("Tags", Arrays.asList("a", "b"));
+
+    return fields;
+  }
+}
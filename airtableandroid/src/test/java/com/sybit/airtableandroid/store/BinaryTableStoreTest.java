@@ -0,0 +1,93 @@
+package com.sybit.airtableandroid.store;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that binary snapshots are read back unchanged and compares them to JSON snapshots.
+ */
+public class BinaryTableStoreTest {
+
+  private static final int RECORDS = 20000;
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void load_WhenSaved_ReturnSnapshot() throws Exception {
+
+    BinaryTableStore store = new BinaryTableStore(folder.getRoot());
+    List<JsonObject> records = Arrays.asList(
+        record("{\"id\":\"rec1\",\"createdTime\":\"2018-01-01T00:00:00.000Z\","
+            + "\"fields\":{\"Name\":\"\\u00dcn\\u00efcode 'x'\",\"Number\":1.5,\"Count\":-3,"
+            + "\"Big\":12345678901234567890,\"Checkbox\":true,\"Empty\":null,"
+            + "\"Tags\":[\"a\",false,[]],\"Photo\":[{\"url\":\"http://a/b.png\"}]}}"),
+        record("{\"id\":\"rec2\",\"fields\":{}}"),
+        record("{}"));
+
+    store.save("app1", "Table 1", new TableSnapshot(42, records));
+    TableSnapshot snapshot = store.load("app1", "Table 1");
+
+    assertThat(snapshot.getWatermark()).isEqualTo(42);
+    assertThat(snapshot.getRecords()).containsExactlyElementsIn(records).inOrder();
+    assertThat(snapshot.getRecord("rec2")).isEqualTo(records.get(1));
+    assertThat(snapshot.getRecord("rec3")).isNull();
+    assertThat(store.load("app1", "Table 2")).isNull();
+  }
+
+  @Test
+  public void load_WhenInvalidFile_ThrowException() throws Exception {
+
+    BinaryTableStore store = new BinaryTableStore(folder.getRoot());
+    store.save("app1", "table", new TableSnapshot(1, new ArrayList<>()));
+    File file = folder.getRoot().listFiles()[0];
+    assertThat(file.delete()).isTrue();
+    assertThat(file.createNewFile()).isTrue();
+
+    try {
+      store.load("app1", "table");
+      throw new AssertionError("Invalid file loaded");
+    } catch (IOException ex) {
+      assertThat(ex).hasMessageThat().contains("table");
+    }
+  }
+
+  @Test
+  public void load_WhenManyRecords_LookupLikeJson() throws Exception {
+
+    List<JsonObject> records = new ArrayList<>();
+    for (int i = 0; i < RECORDS; i++) {
+      records.add(record("{\"id\":\"rec" + i + "\",\"createdTime\":\"2018-01-01T00:00:00.000Z\","
+          + "\"fields\":{\"Name\":\"Record " + i + "\",\"Number\":" + i * 1.5 + ","
+          + "\"Checkbox\":true,\"Date\":\"2018-03-31\",\"Tags\":[\"a\",\"b\"]}}"));
+    }
+    FileTableStore json = new FileTableStore(folder.newFolder("json"));
+    BinaryTableStore binary = new BinaryTableStore(folder.newFolder("binary"));
+    json.save("app1", "table", new TableSnapshot(1, records));
+    binary.save("app1", "table", new TableSnapshot(1, records));
+
+    TableSnapshot jsonSnapshot = json.load("app1", "table");
+    TableSnapshot binarySnapshot = binary.load("app1", "table");
+    JsonObject record = binarySnapshot.getRecord("rec" + RECORDS / 2);
+
+    assertThat(new File(folder.getRoot(), "binary").listFiles()[0].length())
+        .isLessThan(new File(folder.getRoot(), "json").listFiles()[0].length());
+    assertThat(record).isEqualTo(records.get(RECORDS / 2));
+    assertThat(binarySnapshot.getRecords()).hasSize(jsonSnapshot.getRecords().size());
+  }
+
+  private static JsonObject record(String json) {
+
+    return new JsonParser().parse(json).getAsJsonObject();
+  }
+}
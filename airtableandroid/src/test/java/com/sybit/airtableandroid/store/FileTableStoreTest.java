@@ -0,0 +1,66 @@
+package com.sybit.airtableandroid.store;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that snapshots are written and read back unchanged.
+ */
+public class FileTableStoreTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void load_WhenSaved_ReturnSnapshot() throws Exception {
+
+    FileTableStore store = new FileTableStore(new File(folder.getRoot(), "snapshots"));
+    JsonObject record = record("{\"id\":\"rec1\",\"createdTime\":\"2018-01-01T00:00:00.000Z\","
+        + "\"fields\":{\"Name\":\"\\u00dcn\\u00efcode 'x'\",\"Number\":1.5,\"Tags\":[\"a\",\"b\"],"
+        + "\"Empty\":null}}");
+
+    store.save("app1", "Table 1", new TableSnapshot(42, Arrays.asList(record, record("{}"))));
+    TableSnapshot snapshot = store.load("app1", "Table 1");
+
+    assertThat(snapshot.getWatermark()).isEqualTo(42);
+    assertThat(snapshot.getRecords()).containsExactly(record, record("{}")).inOrder();
+  }
+
+  @Test
+  public void load_WhenNotSavedOrRemoved_ReturnNull() throws Exception {
+
+    FileTableStore store = new FileTableStore(folder.getRoot());
+    store.save("app-1", "table", new TableSnapshot(1, Arrays.asList(record("{}"))));
+
+    assertThat(store.load("app", "1-table")).isNull();
+    assertThat(store.load("app-1", "table")).isNotNull();
+
+    store.remove("app-1", "table");
+
+    assertThat(store.load("app-1", "table")).isNull();
+  }
+
+  @Test
+  public void save_WhenSavedAgain_ReplaceSnapshot() throws Exception {
+
+    FileTableStore store = new FileTableStore(folder.getRoot());
+    store.save("app1", "table", new TableSnapshot(1, Arrays.asList(record("{}"), record("{}"))));
+    store.save("app1", "table", new TableSnapshot(2, Arrays.asList(record("{}"))));
+
+    assertThat(store.load("app1", "table").getWatermark()).isEqualTo(2);
+    assertThat(store.load("app1", "table").getRecords()).hasSize(1);
+    assertThat(folder.getRoot().list()).hasLength(1);
+  }
+
+  private static JsonObject record(String json) {
+
+    return new JsonParser().parse(json).getAsJsonObject();
+  }
+}